@@ -0,0 +1,108 @@
+package pro.evanwright.saphira.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.executor.VirtualThreadDatabaseExecutor;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the asynchronous API: each asynchronous benchmark joins its future, so the difference
+ * to its synchronous counterpart is the cost of the executor hand-off.  {@link #queryAsyncConcurrently()} instead
+ * compares how the bounded and virtual-thread executors hold up under 10k callers at once; run it through
+ * {@link BenchmarkRunner} so the GC profiler reports the memory each executor needs per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncBenchmark {
+    private static final String SELECT = "SELECT c1 FROM Counters WHERE id = ?";
+    private static final String UPDATE = "UPDATE Counters SET c1 = c1 + 1 WHERE id = ?";
+    private static final int CONCURRENT_QUERIES = 10000;
+
+    public enum Executor {
+        BOUNDED,
+        VIRTUAL
+    }
+
+    @Param({"BOUNDED", "VIRTUAL"})
+    public Executor executor;
+
+    private MockMySQLDatabaseClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutorSettings executorSettings;
+        if (this.executor == Executor.VIRTUAL) {
+            if (!VirtualThreadDatabaseExecutor.isSupported()) {
+                throw new IllegalStateException("Virtual threads require Java 21 or newer, run with -p executor=BOUNDED.");
+            }
+            executorSettings = ExecutorSettings.virtualThreads(1);
+        } else {
+            executorSettings = new ExecutorSettings();
+        }
+
+        this.client = new MockMySQLDatabaseClient("async_benchmark", executorSettings);
+        BenchmarkTables.create(this.client, "Counters", 2, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    public QueryResult query() {
+        return this.client.query(SELECT, 0);
+    }
+
+    @Benchmark
+    public QueryResult queryAsync() {
+        return this.client.queryAsync(SELECT, AsyncBenchmark::bindId).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_QUERIES)
+    public void queryAsyncConcurrently() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[CONCURRENT_QUERIES];
+        for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+            futures[i] = this.client.queryAsync(SELECT, AsyncBenchmark::bindId);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    public int update() {
+        return this.client.update(UPDATE, 0);
+    }
+
+    @Benchmark
+    public int updateAsync() {
+        return this.client.updateAsync(UPDATE, AsyncBenchmark::bindId).join();
+    }
+
+    private static void bindId(PreparedStatement preparedStatement) throws SQLException {
+        preparedStatement.setInt(1, 0);
+    }
+}
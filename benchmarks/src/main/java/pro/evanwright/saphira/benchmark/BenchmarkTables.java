@@ -0,0 +1,48 @@
+package pro.evanwright.saphira.benchmark;
+
+import pro.evanwright.saphira.DatabaseClient;
+
+/**
+ * Creates the tables the benchmarks read and write.
+ */
+final class BenchmarkTables {
+
+    private BenchmarkTables() {
+    }
+
+    /**
+     * Creates a table with an integer {@code id} key and alternating integer and string columns
+     * {@code c1 .. cN}, then fills it.
+     *
+     * @param client  The client to create the table with
+     * @param table   The name of the table, which is replaced if it exists
+     * @param columns The total number of columns, including the key
+     * @param rows    The number of rows to insert
+     */
+    static void create(DatabaseClient client, String table, int columns, int rows) {
+        StringBuilder definition = new StringBuilder("CREATE TABLE ").append(table).append(" (id INT PRIMARY KEY");
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" VALUES (?");
+        for (int column = 1; column < columns; column++) {
+            definition.append(", c").append(column).append(column % 2 == 1 ? " INT" : " VARCHAR(64)");
+            insert.append(", ?");
+        }
+
+        client.update("DROP TABLE IF EXISTS " + table);
+        client.update(definition.append(')').toString());
+        if (rows > 0) {
+            client.executeBatch(insert.append(')').toString(), preparedStatement -> {
+                for (int row = 0; row < rows; row++) {
+                    preparedStatement.setInt(1, row);
+                    for (int column = 1; column < columns; column++) {
+                        if (column % 2 == 1) {
+                            preparedStatement.setInt(column + 1, row * column);
+                        } else {
+                            preparedStatement.setString(column + 1, "value-" + row + "-" + column);
+                        }
+                    }
+                    preparedStatement.addBatch();
+                }
+            });
+        }
+    }
+}
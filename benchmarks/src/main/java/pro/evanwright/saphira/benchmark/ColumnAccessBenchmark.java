@@ -0,0 +1,82 @@
+package pro.evanwright.saphira.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a materialized {@link QueryResult} by column label and by column index.  The result is queried
+ * once, so only the accessor cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnAccessBenchmark {
+    private static final int ROWS = 1000;
+    private static final int COLUMNS = 10;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private MockMySQLDatabaseClient client;
+    private QueryResult result;
+    private String[] labels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.client = new MockMySQLDatabaseClient("column_access_benchmark", new ExecutorSettings());
+        this.client.setColumnarResults(this.columnar);
+        BenchmarkTables.create(this.client, "Rows", COLUMNS, ROWS);
+        this.result = this.client.query("SELECT * FROM Rows");
+
+        this.labels = new String[COLUMNS];
+        this.labels[0] = "id";
+        for (int column = 1; column < COLUMNS; column++) {
+            this.labels[column] = "c" + column;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    public void byLabel(Blackhole blackhole) {
+        this.result.beforeFirst();
+        while (this.result.next()) {
+            for (String label : this.labels) {
+                blackhole.consume(this.result.getObject(label));
+            }
+        }
+    }
+
+    @Benchmark
+    public void byIndex(Blackhole blackhole) {
+        this.result.beforeFirst();
+        while (this.result.next()) {
+            for (int column = 1; column <= COLUMNS; column++) {
+                blackhole.consume(this.result.getObject(column));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package pro.evanwright.saphira.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code query} followed by a full iteration of the {@link QueryResult}, by row and column count,
+ * with row-oriented and columnar results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    @Param({"2", "10"})
+    public int columns;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private MockMySQLDatabaseClient client;
+    private String sqlStatement;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.client = new MockMySQLDatabaseClient("query_benchmark", new ExecutorSettings());
+        this.client.setColumnarResults(this.columnar);
+        BenchmarkTables.create(this.client, "Rows", this.columns, this.rows);
+        this.sqlStatement = "SELECT * FROM Rows";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    public void queryAndIterate(Blackhole blackhole) {
+        QueryResult result = this.client.query(this.sqlStatement);
+        while (result.next()) {
+            for (int column = 1; column <= this.columns; column++) {
+                blackhole.consume(result.getObject(column));
+            }
+        }
+    }
+
+    @Benchmark
+    public QueryResult queryOnly() {
+        return this.client.query(this.sqlStatement);
+    }
+}
@@ -0,0 +1,65 @@
+package pro.evanwright.saphira.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@code executeTransaction}: an empty transaction isolates the begin and commit overhead,
+ * the others add one and two updates to compare against a plain {@code update}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+    private static final String UPDATE = "UPDATE Counters SET c1 = c1 + 1 WHERE id = ?";
+
+    private MockMySQLDatabaseClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.client = new MockMySQLDatabaseClient("transaction_benchmark", new ExecutorSettings());
+        BenchmarkTables.create(this.client, "Counters", 2, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    public int update() {
+        return this.client.update(UPDATE, 0);
+    }
+
+    @Benchmark
+    public Object emptyTransaction() {
+        return this.client.executeTransaction(() -> null);
+    }
+
+    @Benchmark
+    public int transactionWithOneUpdate() {
+        return this.client.executeTransaction(() -> this.client.update(UPDATE, 0));
+    }
+
+    @Benchmark
+    public int transactionWithTwoUpdates() {
+        return this.client.executeTransaction(() -> this.client.update(UPDATE, 0) + this.client.update(UPDATE, 1));
+    }
+}
@@ -0,0 +1,86 @@
+package pro.evanwright.saphira.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pro.evanwright.saphira.StatementHandle;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of writing rows one {@code update} at a time, through the varargs overload and through a
+ * {@link StatementHandle} with a typed binder, with writing them in one {@code executeBatch}.  All report operations
+ * per row, so their scores compare directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+    private static final int ROWS = 100;
+    private static final String UPSERT = "INSERT INTO Counters (id, c1) VALUES (?, ?) ON DUPLICATE KEY UPDATE c1 = c1 + VALUES(c1)";
+
+    private MockMySQLDatabaseClient client;
+    private StatementHandle upsert;
+    private int[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.client = new MockMySQLDatabaseClient("update_benchmark", new ExecutorSettings());
+        BenchmarkTables.create(this.client, "Counters", 2, ROWS);
+        this.upsert = this.client.prepare("INSERT INTO Counters (id, c1) VALUES (:id, 1) ON DUPLICATE KEY UPDATE c1 = c1 + VALUES(c1)");
+        this.keys = new int[1];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int update() {
+        int updated = 0;
+        for (int row = 0; row < ROWS; row++) {
+            updated += this.client.update(UPSERT, row, 1);
+        }
+        return updated;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int handleUpdate() {
+        int updated = 0;
+        for (int row = 0; row < ROWS; row++) {
+            this.keys[0] = row;
+            updated += this.upsert.update(this.keys, (parameters, keys) -> parameters.setInt("id", keys[0]));
+        }
+        return updated;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int executeBatch() {
+        return this.client.executeBatch(UPSERT, preparedStatement -> {
+            for (int row = 0; row < ROWS; row++) {
+                preparedStatement.setInt(1, row);
+                preparedStatement.setInt(2, 1);
+                preparedStatement.addBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package pro.evanwright.saphira.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Wraps a {@link DataSource} so that every call which would be a network round trip to a remote server blocks the
+ * calling thread for a fixed time first: opening a connection, executing a statement, and {@code commit},
+ * {@code rollback}, {@code setAutoCommit} and {@code isValid}.  The connection stays busy while it waits, as it
+ * would with a real server, so an in-process database like H2 shows the pool exhaustion and queueing of a remote one.
+ */
+public class LatencyInjectingDataSource implements DataSource {
+    private final DataSource delegate;
+    private final long rttNanos;
+
+    /**
+     * @param delegate The data source to wrap
+     * @param rtt      The simulated round trip time
+     * @param unit     The unit of the round trip time
+     */
+    public LatencyInjectingDataSource(@NotNull DataSource delegate, long rtt, @NotNull TimeUnit unit) {
+        this.delegate = delegate;
+        this.rttNanos = unit.toNanos(rtt);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        this.roundTrip();
+        return this.wrap(this.delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        this.roundTrip();
+        return this.wrap(this.delegate.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        if (this.rttNanos == 0) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private void roundTrip() {
+        long deadline = System.nanoTime() + this.rttNanos;
+        for (long remaining = this.rttNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                case "isValid":
+                    roundTrip();
+                    break;
+                case "unwrap":
+                    if (args[0] == Connection.class) { // Statements prepared on the unwrapped connection must still be delayed
+                        return proxy;
+                    }
+                    return LatencyInjectingDataSource.invoke(this.connection, method, args);
+                case "isWrapperFor":
+                    return LatencyInjectingDataSource.invoke(this.connection, method, args);
+            }
+
+            Object result = LatencyInjectingDataSource.invoke(this.connection, method, args);
+            if (result instanceof Statement) {
+                Class<?> statementType = method.getReturnType().isInterface() ? method.getReturnType() : Statement.class;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{statementType},
+                        new StatementHandler((Connection) proxy, (Statement) result));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Statement statement;
+
+        StatementHandler(Connection connection, Statement statement) {
+            this.connection = connection;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                roundTrip();
+            } else if (method.getName().equals("getConnection")) {
+                return this.connection;
+            }
+            return LatencyInjectingDataSource.invoke(this.statement, method, args);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return this.delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || this.delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,201 @@
+package pro.evanwright.saphira.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.metrics.LatencyHistogram;
+import pro.evanwright.saphira.metrics.LatencySnapshot;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open-loop workload generator for a {@link LoadTestClient}.
+ * <p>
+ * Operations are scheduled at fixed intervals derived from the target rate, and each one's latency is measured
+ * from the time it was scheduled to start rather than the time it actually started.  A slow database therefore
+ * cannot hold back the load it is offered, and time spent waiting for a caller thread, the client's executor or a
+ * pooled connection shows up in the percentiles instead of being hidden (coordinated omission).
+ * <p>
+ * Run with {@code java -cp saphira-benchmarks.jar pro.evanwright.saphira.loadtest.LoadTest --name=value ...},
+ * see {@link LoadTestSettings} for the settings.
+ */
+public class LoadTest {
+    private static final String SELECT = "SELECT counter, payload FROM LoadTest WHERE id = ?";
+    private static final String UPDATE = "UPDATE LoadTest SET counter = counter + 1 WHERE id = ?";
+    private static final long DRAIN_TIMEOUT_MILLIS = 60_000;
+
+    private final LoadTestSettings settings;
+    private final LoadTestClient client;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong outstanding = new AtomicLong();
+
+    /**
+     * @param settings The workload and pool configuration
+     * @param client   The client to drive, its table is created by {@link #run()}
+     */
+    public LoadTest(@NotNull LoadTestSettings settings, @NotNull LoadTestClient client) {
+        this.settings = settings;
+        this.client = client;
+    }
+
+    /**
+     * Creates and fills the table, then offers load for the configured duration, printing a report every interval.
+     *
+     * @return The latency distribution of every successful operation
+     * @throws InterruptedException If interrupted while waiting for operations to finish
+     */
+    public LatencySnapshot run() throws InterruptedException {
+        this.createTable();
+
+        ExecutorService callers = this.settings.isAsync() ? null : Executors.newFixedThreadPool(this.settings.getThreads(), daemonThreads("Load Test Caller"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemonThreads("Load Test Reporter"));
+        long start = System.nanoTime();
+        long reportIntervalNanos = TimeUnit.SECONDS.toNanos(this.settings.getReportIntervalSeconds());
+        reporter.scheduleAtFixedRate(() -> this.report(start), reportIntervalNanos, reportIntervalNanos, TimeUnit.NANOSECONDS);
+
+        try {
+            long end = start + TimeUnit.SECONDS.toNanos(this.settings.getDurationSeconds());
+            double intervalNanos = TimeUnit.SECONDS.toNanos(1) / this.settings.getRate();
+            for (long i = 0; ; i++) {
+                long intendedStart = start + (long) (i * intervalNanos);
+                if (intendedStart >= end) {
+                    break;
+                }
+                for (long wait = intendedStart - System.nanoTime(); wait > 0; wait = intendedStart - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                this.dispatch(callers, intendedStart);
+            }
+
+            if (callers != null) {
+                callers.shutdown();
+            }
+            long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+            while (this.outstanding.get() > 0 && System.currentTimeMillis() < drainDeadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            reporter.shutdownNow();
+            if (callers != null) {
+                callers.shutdownNow();
+            }
+        }
+
+        LatencySnapshot snapshot = this.total.snapshot();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "Total: %d ops, %d errors, %.1f ops/s, %s%n", snapshot.count, this.errors.sum(),
+                snapshot.count / elapsedSeconds, formatLatency(snapshot));
+        return snapshot;
+    }
+
+    private void dispatch(ExecutorService callers, long intendedStart) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean read = random.nextDouble() < this.settings.getReadRatio();
+        int key = random.nextInt(this.settings.getRows());
+        this.outstanding.incrementAndGet();
+
+        if (callers == null) {
+            CompletableFuture<?> future;
+            try {
+                future = read
+                        ? this.client.queryAsync(SELECT, preparedStatement -> preparedStatement.setInt(1, key))
+                        : this.client.updateAsync(UPDATE, preparedStatement -> preparedStatement.setInt(1, key));
+            } catch (RuntimeException exception) {
+                future = failedFuture(exception);
+            }
+            future.whenComplete((result, throwable) -> this.complete(intendedStart, throwable));
+        } else {
+            callers.execute(() -> {
+                try {
+                    if (read) {
+                        this.client.query(SELECT, key);
+                    } else {
+                        this.client.update(UPDATE, key);
+                    }
+                    this.complete(intendedStart, null);
+                } catch (RuntimeException exception) {
+                    this.complete(intendedStart, exception);
+                }
+            });
+        }
+    }
+
+    private void complete(long intendedStart, Throwable error) {
+        if (error == null) {
+            long latency = System.nanoTime() - intendedStart;
+            this.total.record(latency);
+            this.interval.get().record(latency);
+        } else {
+            this.errors.increment();
+        }
+        this.outstanding.decrementAndGet();
+    }
+
+    private void report(long start) {
+        // Operations completing during the swap may land in the old histogram and be missing from this interval only
+        LatencySnapshot snapshot = this.interval.getAndSet(new LatencyHistogram()).snapshot();
+        HikariPoolMXBean pool = this.client.getPool();
+        System.out.printf(Locale.ROOT, "[%4ds] %9.1f ops/s, %6d errors, %s | pool active=%d idle=%d waiting=%d | executor queue=%d | in flight=%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                snapshot.count / (double) this.settings.getReportIntervalSeconds(), this.errors.sum(), formatLatency(snapshot),
+                pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection(),
+                this.settings.isAsync() ? this.client.getExecutor().getQueueDepth() : 0, this.outstanding.get());
+    }
+
+    private void createTable() {
+        this.client.update("DROP TABLE IF EXISTS LoadTest");
+        this.client.update("CREATE TABLE LoadTest (id INT PRIMARY KEY, counter INT, payload VARCHAR(64))");
+        this.client.executeBatch("INSERT INTO LoadTest VALUES (?, 0, ?)", preparedStatement -> {
+            for (int row = 0; row < this.settings.getRows(); row++) {
+                preparedStatement.setInt(1, row);
+                preparedStatement.setString(2, "payload-" + row);
+                preparedStatement.addBatch();
+            }
+        });
+    }
+
+    private static String formatLatency(LatencySnapshot snapshot) {
+        return String.format(Locale.ROOT, "p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                snapshot.p50Nanos / 1e6, snapshot.p99Nanos / 1e6, snapshot.p999Nanos / 1e6, snapshot.maxNanos / 1e6);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.fromArgs(args);
+        System.out.println(settings);
+
+        LoadTestClient client = new LoadTestClient("load_test", settings, new ExecutorSettings());
+        try {
+            new LoadTest(settings, client).run();
+        } finally {
+            client.shutdown();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pro.evanwright.saphira.loadtest;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DatabaseClient} over an in-memory H2 database in MySQL mode, with the pool size, connection timeout
+ * and simulated round trip time of a {@link LoadTestSettings}.
+ */
+public class LoadTestClient extends DatabaseClient {
+    private final HikariDataSource dataSource;
+
+    public LoadTestClient(@NotNull String database, @NotNull LoadTestSettings settings, @NotNull ExecutorSettings executorSettings) {
+        super(executorSettings);
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("Saphira Load Test");
+        hikariConfig.setDataSource(new LatencyInjectingDataSource(h2DataSource,
+                (long) (settings.getRttMillis() * 1_000_000), TimeUnit.NANOSECONDS));
+        hikariConfig.setMaximumPoolSize(settings.getPoolSize());
+        hikariConfig.setConnectionTimeout(settings.getConnectionTimeoutMillis());
+        this.dataSource = new HikariDataSource(hikariConfig);
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdownExecutor();
+        this.dataSource.close();
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return this.dataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * @return The pool's statistics, such as active connections and threads waiting for one
+     */
+    public HikariPoolMXBean getPool() {
+        return this.dataSource.getHikariPoolMXBean();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.dataSource.getConnection();
+    }
+}
@@ -0,0 +1,216 @@
+package pro.evanwright.saphira.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A data container that stores the workload and pool configuration of a {@link LoadTest}.
+ * <p>
+ * Every setting can be given on the command line as {@code --name=value}, for example
+ * {@code --rate=2000 --readRatio=0.9 --rttMillis=1 --poolSize=4}.
+ */
+public class LoadTestSettings {
+    private double rate = 1000;
+    private double readRatio = 0.8;
+    private int threads = 16;
+    private boolean async;
+    private int durationSeconds = 30;
+    private int reportIntervalSeconds = 1;
+    private int rows = 10000;
+    private int poolSize = 10;
+    private long connectionTimeoutMillis = 30000;
+    private double rttMillis;
+
+    /**
+     * @param rate The target number of operations per second, scheduled at fixed intervals whether or not earlier ones finished
+     * @return These settings
+     */
+    public LoadTestSettings setRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * @param readRatio The fraction of operations that are point reads, the rest are single-row updates
+     * @return These settings
+     */
+    public LoadTestSettings setReadRatio(double readRatio) {
+        if (readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("readRatio must be between 0 and 1");
+        }
+        this.readRatio = readRatio;
+        return this;
+    }
+
+    public double getReadRatio() {
+        return this.readRatio;
+    }
+
+    /**
+     * @param threads The number of caller threads running synchronous operations, ignored in asynchronous mode
+     * @return These settings
+     */
+    public LoadTestSettings setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * @param async True to issue operations through {@code queryAsync} and {@code updateAsync}, so they queue
+     *              on the client's executor instead of on caller threads
+     * @return These settings
+     */
+    public LoadTestSettings setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public boolean isAsync() {
+        return this.async;
+    }
+
+    public LoadTestSettings setDurationSeconds(int durationSeconds) {
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("durationSeconds must be positive");
+        }
+        this.durationSeconds = durationSeconds;
+        return this;
+    }
+
+    public int getDurationSeconds() {
+        return this.durationSeconds;
+    }
+
+    public LoadTestSettings setReportIntervalSeconds(int reportIntervalSeconds) {
+        if (reportIntervalSeconds <= 0) {
+            throw new IllegalArgumentException("reportIntervalSeconds must be positive");
+        }
+        this.reportIntervalSeconds = reportIntervalSeconds;
+        return this;
+    }
+
+    public int getReportIntervalSeconds() {
+        return this.reportIntervalSeconds;
+    }
+
+    /**
+     * @param rows The number of rows in the table, keys are picked uniformly from them
+     * @return These settings
+     */
+    public LoadTestSettings setRows(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be positive");
+        }
+        this.rows = rows;
+        return this;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public LoadTestSettings setPoolSize(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive");
+        }
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
+    /**
+     * @param connectionTimeoutMillis How long an operation waits for a pooled connection before failing
+     * @return These settings
+     */
+    public LoadTestSettings setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        return this;
+    }
+
+    public long getConnectionTimeoutMillis() {
+        return this.connectionTimeoutMillis;
+    }
+
+    /**
+     * @param rttMillis The simulated network round trip added to every statement execution and transaction command
+     * @return These settings
+     * @see LatencyInjectingDataSource
+     */
+    public LoadTestSettings setRttMillis(double rttMillis) {
+        if (rttMillis < 0) {
+            throw new IllegalArgumentException("rttMillis must not be negative");
+        }
+        this.rttMillis = rttMillis;
+        return this;
+    }
+
+    public double getRttMillis() {
+        return this.rttMillis;
+    }
+
+    /**
+     * Parses settings from {@code --name=value} arguments.
+     *
+     * @param args The command line arguments
+     * @return The settings
+     * @throws IllegalArgumentException If an argument is malformed or unknown
+     */
+    public static LoadTestSettings fromArgs(@NotNull String... args) {
+        LoadTestSettings settings = new LoadTestSettings();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "rate": settings.setRate(Double.parseDouble(value)); break;
+                case "readRatio": settings.setReadRatio(Double.parseDouble(value)); break;
+                case "threads": settings.setThreads(Integer.parseInt(value)); break;
+                case "async": settings.setAsync(Boolean.parseBoolean(value)); break;
+                case "durationSeconds": settings.setDurationSeconds(Integer.parseInt(value)); break;
+                case "reportIntervalSeconds": settings.setReportIntervalSeconds(Integer.parseInt(value)); break;
+                case "rows": settings.setRows(Integer.parseInt(value)); break;
+                case "poolSize": settings.setPoolSize(Integer.parseInt(value)); break;
+                case "connectionTimeoutMillis": settings.setConnectionTimeoutMillis(Long.parseLong(value)); break;
+                case "rttMillis": settings.setRttMillis(Double.parseDouble(value)); break;
+                default: throw new IllegalArgumentException("Unknown setting " + name);
+            }
+        }
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadTestSettings{" +
+                "rate=" + rate +
+                ", readRatio=" + readRatio +
+                ", threads=" + threads +
+                ", async=" + async +
+                ", durationSeconds=" + durationSeconds +
+                ", reportIntervalSeconds=" + reportIntervalSeconds +
+                ", rows=" + rows +
+                ", poolSize=" + poolSize +
+                ", connectionTimeoutMillis=" + connectionTimeoutMillis +
+                ", rttMillis=" + rttMillis +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Links an asynchronous operation's future to the statement the operation is executing, so cancelling the future
+ * cancels the statement on the database instead of leaving it to run while it holds a connection.
+ */
+final class Cancellation {
+    static final String SQL_STATE_CANCELLED = "57014";
+
+    private Statement executing;
+    private boolean cancelled;
+
+    /**
+     * Registers the statement about to execute.
+     *
+     * @throws SQLException If the operation has been cancelled
+     */
+    synchronized void executing(@NotNull Statement statement) throws SQLException {
+        if (this.cancelled) {
+            throw new SQLException("The operation was cancelled.", SQL_STATE_CANCELLED);
+        }
+        this.executing = statement;
+    }
+
+    /**
+     * Clears the statement registered with {@link #executing(Statement)} once it is no longer running.
+     */
+    synchronized void finished() {
+        this.executing = null;
+    }
+
+    /**
+     * Marks the operation cancelled and cancels the statement it is executing, if any.
+     */
+    synchronized void cancel() {
+        this.cancelled = true;
+        if (this.executing != null) {
+            try {
+                this.executing.cancel();
+            } catch (SQLException ignored) {} // The statement finished or its connection broke, either way it is not running
+        }
+    }
+}
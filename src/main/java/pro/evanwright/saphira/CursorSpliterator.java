@@ -0,0 +1,140 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.metrics.OperationType;
+import pro.evanwright.saphira.query.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Maps the rows of a live, forward-only cursor as a stream pulls them.  The query runs when the first row is
+ * pulled, and the cursor, statement and connection are released after the last row, on the first error, or when
+ * the stream is closed.
+ *
+ * @see DatabaseClient#stream(String, int, SQLConsumer, RowMapper)
+ */
+final class CursorSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+    private final DatabaseClient client;
+    private final String sqlStatement;
+    private final int fetchSize;
+    private final SQLConsumer<PreparedStatement> psPreparer;
+    private final RowMapper<T> rowMapper;
+
+    private OperationTimer timer;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private long rows;
+    private boolean done;
+
+    CursorSpliterator(@NotNull DatabaseClient client, @NotNull String sqlStatement, int fetchSize,
+                      @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull RowMapper<T> rowMapper) {
+        super(Long.MAX_VALUE, ORDERED);
+        this.client = client;
+        this.sqlStatement = sqlStatement;
+        this.fetchSize = fetchSize;
+        this.psPreparer = psPreparer;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.done) {
+            return false;
+        }
+
+        T row;
+        try {
+            if (this.resultSet == null) {
+                this.open();
+            }
+            if (!this.resultSet.next()) {
+                this.close();
+                return false;
+            }
+            row = this.rowMapper.map(this.resultSet);
+            this.rows++;
+        } catch (SQLException exception) {
+            this.fail(exception);
+            throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            this.fail(exception);
+            throw exception;
+        }
+        action.accept(row);
+        return true;
+    }
+
+    /**
+     * Releases the cursor, statement and connection.  Closing a closed spliterator does nothing.
+     */
+    @Override
+    public void close() {
+        if (this.done) {
+            return;
+        }
+        this.done = true;
+        this.release();
+        if (this.timer != null) {
+            this.timer.finish(this.rows);
+        }
+    }
+
+    private void open() throws SQLException {
+        this.timer = this.client.startTimer(OperationType.QUERY_STREAMING, this.sqlStatement, this.psPreparer);
+        Deadline deadline = this.client.operationDeadline();
+        this.connection = this.client.getReadConnection(this.sqlStatement);
+        DatabaseClient.checkAcquired(deadline);
+        this.timer.acquired();
+
+        this.statement = this.connection.prepareStatement(this.sqlStatement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        this.client.configureStreamingStatement(this.statement, this.fetchSize);
+        if (this.psPreparer != null) {
+            this.psPreparer.accept(this.statement);
+        }
+        this.timer.prepared();
+
+        if (deadline != null) {
+            deadline.apply(this.statement);
+        }
+        this.resultSet = this.statement.executeQuery();
+        this.timer.executed();
+    }
+
+    private void fail(@NotNull Throwable error) {
+        this.done = true;
+        this.release();
+        if (this.timer != null) {
+            this.timer.fail(error);
+        }
+    }
+
+    private void release() {
+        if (this.resultSet != null) {
+            try {
+                this.resultSet.close();
+            } catch (SQLException ignored) {}
+            this.resultSet = null;
+        }
+        if (this.statement != null) {
+            try {
+                this.statement.close();
+            } catch (SQLException ignored) {}
+            this.statement = null;
+        }
+        if (this.connection != null) {
+            try {
+                this.connection.close();
+            } catch (SQLException ignored) {}
+            this.connection = null;
+        }
+    }
+}
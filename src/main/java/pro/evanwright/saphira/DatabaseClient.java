@@ -1,34 +1,97 @@
 package pro.evanwright.saphira;
 
+import pro.evanwright.saphira.batch.GroupCommitter;
 import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.executor.DatabaseExecutor;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.metrics.DatabaseListener;
+import pro.evanwright.saphira.metrics.OperationType;
+import pro.evanwright.saphira.query.ColumnLabels;
+import pro.evanwright.saphira.query.ColumnarQueryResult;
+import pro.evanwright.saphira.query.QueryCache;
 import pro.evanwright.saphira.query.QueryResult;
+import pro.evanwright.saphira.query.RowMapper;
+import pro.evanwright.saphira.query.SQLStatements;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
 
 import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
 import javax.sql.rowset.RowSetProvider;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract database client implementation.
  * See {@link pro.evanwright.saphira.client.MySQLClient} for a concrete implementation.
  */
 public abstract class DatabaseClient {
+    /**
+     * The fetch size used by the streaming query overloads that do not specify one.
+     */
+    public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+    private static final int MAX_CACHED_COLUMN_LABELS = 1024;
+
+    private static volatile RowSetFactory rowSetFactory;
+
+    private static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
 
-    private final ExecutorService threadPool;
+    private final ExecutorSettings executorSettings;
+    private final Object executorLock;
+    private volatile DatabaseExecutor executor;
+    private volatile boolean executorShutdown;
+    private volatile GroupCommitter groupCommitter;
     private final ThreadLocal<Connection> transactionConnection;
+    private final ThreadLocal<Set<String>> transactionWrites;
+    private final ThreadLocal<Deadline> deadline;
+    private final ThreadLocal<Cancellation> cancellation;
+    private final Map<String, ColumnLabels> columnLabelCache;
+    private volatile boolean columnarResults;
+    private volatile QueryCache queryCache;
+    private volatile StatementCache statementCache;
+    private volatile DatabaseListener databaseListener;
+    private volatile long defaultTimeoutNanos;
+    private volatile RetryPolicy retryPolicy;
 
     protected DatabaseClient() {
-        this.threadPool = Executors.newCachedThreadPool();
+        this(new ExecutorSettings());
+    }
+
+    /**
+     * @param executorSettings The settings of the executor asynchronous operations run on
+     */
+    protected DatabaseClient(@NotNull ExecutorSettings executorSettings) {
+        this.executorSettings = executorSettings;
+        this.executorLock = new Object();
         this.transactionConnection = new ThreadLocal<>();
+        this.transactionWrites = new ThreadLocal<>();
+        this.deadline = new ThreadLocal<>();
+        this.cancellation = new ThreadLocal<>();
+        this.columnLabelCache = new ConcurrentHashMap<>();
     }
 
     /**
@@ -46,6 +109,7 @@ public abstract class DatabaseClient {
 
     /**
      * Queries the database for results and returns a {@link QueryResult} instance.
+     * When a {@link QueryCache} is set, read-only statements outside of transactions are answered from it.
      *
      * @param sqlStatement The SQL statement to execute
      * @param params The parameters for the statement
@@ -53,13 +117,14 @@ public abstract class DatabaseClient {
      * @throws UncheckedSQLException If a {@link SQLException} occurs
      *
      * @see QueryResult
+     * @see DatabaseClient#setQueryCache(QueryCache)
      */
     public QueryResult query(@NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
-        return query(sqlStatement, preparedStatement -> {
-            for (int i = 0; i < params.length; i++) {
-                preparedStatement.setObject(i + 1, params[i]);
-            }
-        });
+        QueryCache queryCache = this.queryCache;
+        if (queryCache != null && this.transactionConnection.get() == null && SQLStatements.isReadOnly(sqlStatement)) {
+            return queryCache.getOrLoad(sqlStatement, params, () -> this.query(sqlStatement, parameterPreparer(params)));
+        }
+        return query(sqlStatement, parameterPreparer(params));
     }
 
     /**
@@ -73,50 +138,417 @@ public abstract class DatabaseClient {
      * @see QueryResult
      */
     public QueryResult query(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, psPreparer, 0, resultSet -> this.materialize(sqlStatement, resultSet), DatabaseClient::rowCount);
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#query(String)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#query(String)
+     */
+    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement) {
+        return this.supplyAsync(() -> this.query(sqlStatement));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#query(String, Object...)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#query(String, Object...)
+     */
+    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement, @NotNull Object... params) {
+        return this.supplyAsync(() -> this.query(sqlStatement, params));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#query(String, SQLConsumer)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#query(String, SQLConsumer)
+     */
+    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        return this.supplyAsync(() -> this.query(sqlStatement, psPreparer));
+    }
+
+    /**
+     * Queries the database and maps every row straight off the live {@link ResultSet}
+     * without copying the result into a {@link QueryResult} first.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts each row
+     * @param params       The parameters for the statement
+     * @param <T>          The type each row is mapped to
+     * @return The mapped rows, in result order
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public <T> List<T> queryList(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) throws UncheckedSQLException {
+        return queryList(sqlStatement, rowMapper, parameterPreparer(params));
+    }
+
+    /**
+     * Queries the database and maps every row straight off the live {@link ResultSet}
+     * without copying the result into a {@link QueryResult} first.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts each row
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param <T>          The type each row is mapped to
+     * @return The mapped rows, in result order
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public <T> List<T> queryList(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, psPreparer, 0, resultSet -> {
+            List<T> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(rowMapper.map(resultSet));
+            }
+            return rows;
+        }, List::size);
+    }
+
+    /**
+     * Queries the database and maps the first row, if any, straight off the live {@link ResultSet}.
+     * The driver is asked for a single row only.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts the row
+     * @param params       The parameters for the statement
+     * @param <T>          The type the row is mapped to
+     * @return The mapped first row, or an empty Optional if there were no rows or the mapper returned null
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public <T> Optional<T> queryFirst(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) throws UncheckedSQLException {
+        return queryFirst(sqlStatement, rowMapper, parameterPreparer(params));
+    }
+
+    /**
+     * Queries the database and maps the first row, if any, straight off the live {@link ResultSet}.
+     * The driver is asked for a single row only.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts the row
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param <T>          The type the row is mapped to
+     * @return The mapped first row, or an empty Optional if there were no rows or the mapper returned null
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public <T> Optional<T> queryFirst(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, psPreparer, 1, resultSet -> resultSet.next() ? Optional.ofNullable(rowMapper.map(resultSet)) : Optional.empty(),
+                result -> result.isPresent() ? 1 : 0);
+    }
+
+    /**
+     * Queries the database for exactly one row and maps it straight off the live {@link ResultSet}.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts the row
+     * @param params       The parameters for the statement
+     * @param <T>          The type the row is mapped to
+     * @return The mapped row
+     * @throws UncheckedSQLException If a {@link SQLException} occurs or the query did not return exactly one row
+     */
+    public <T> T querySingle(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) throws UncheckedSQLException {
+        return querySingle(sqlStatement, rowMapper, parameterPreparer(params));
+    }
+
+    /**
+     * Queries the database for exactly one row and maps it straight off the live {@link ResultSet}.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that converts the row
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param <T>          The type the row is mapped to
+     * @return The mapped row
+     * @throws UncheckedSQLException If a {@link SQLException} occurs or the query did not return exactly one row
+     */
+    public <T> T querySingle(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, psPreparer, 2, resultSet -> {
+            if (!resultSet.next()) {
+                throw new UncheckedSQLException("Expected exactly one row but the query returned none.");
+            }
+            T value = rowMapper.map(resultSet);
+            if (resultSet.next()) {
+                throw new UncheckedSQLException("Expected exactly one row but the query returned more.");
+            }
+            return value;
+        }, value -> 1);
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#queryList(String, RowMapper, Object...)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#queryList(String, RowMapper, Object...)
+     */
+    public <T> CompletableFuture<List<T>> queryListAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return this.supplyAsync(() -> this.queryList(sqlStatement, rowMapper, params));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#queryList(String, RowMapper, SQLConsumer)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#queryList(String, RowMapper, SQLConsumer)
+     */
+    public <T> CompletableFuture<List<T>> queryListAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        return this.supplyAsync(() -> this.queryList(sqlStatement, rowMapper, psPreparer));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#queryFirst(String, RowMapper, Object...)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#queryFirst(String, RowMapper, Object...)
+     */
+    public <T> CompletableFuture<Optional<T>> queryFirstAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return this.supplyAsync(() -> this.queryFirst(sqlStatement, rowMapper, params));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#queryFirst(String, RowMapper, SQLConsumer)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#queryFirst(String, RowMapper, SQLConsumer)
+     */
+    public <T> CompletableFuture<Optional<T>> queryFirstAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        return this.supplyAsync(() -> this.queryFirst(sqlStatement, rowMapper, psPreparer));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#querySingle(String, RowMapper, Object...)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#querySingle(String, RowMapper, Object...)
+     */
+    public <T> CompletableFuture<T> querySingleAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return this.supplyAsync(() -> this.querySingle(sqlStatement, rowMapper, params));
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#querySingle(String, RowMapper, SQLConsumer)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#querySingle(String, RowMapper, SQLConsumer)
+     */
+    public <T> CompletableFuture<T> querySingleAsync(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        return this.supplyAsync(() -> this.querySingle(sqlStatement, rowMapper, psPreparer));
+    }
+
+    /**
+     * Queries the database and hands every row to the consumer as it is read from a forward-only,
+     * read-only cursor, without materializing the whole result in memory.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowConsumer  The consumer invoked once per row
+     * @return The number of rows consumed
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     *
+     * @see DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)
+     */
+    public long queryStreaming(@NotNull String sqlStatement, @NotNull Consumer<QueryResult> rowConsumer) throws UncheckedSQLException {
+        return queryStreaming(sqlStatement, DEFAULT_STREAMING_FETCH_SIZE, null, rowConsumer);
+    }
+
+    /**
+     * Queries the database and hands every row to the consumer as it is read from a forward-only,
+     * read-only cursor, without materializing the whole result in memory.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowConsumer  The consumer invoked once per row
+     * @param params       The parameters for the statement
+     * @return The number of rows consumed
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     *
+     * @see DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)
+     */
+    public long queryStreaming(@NotNull String sqlStatement, @NotNull Consumer<QueryResult> rowConsumer, @NotNull Object... params) throws UncheckedSQLException {
+        return queryStreaming(sqlStatement, DEFAULT_STREAMING_FETCH_SIZE, parameterPreparer(params), rowConsumer);
+    }
+
+    /**
+     * Queries the database and hands every row to the consumer as it is read from a forward-only,
+     * read-only cursor, without materializing the whole result in memory.
+     * <p>
+     * The connection stays checked out until the last row has been consumed, or until the consumer
+     * throws, after which it is released back to the pool.  The {@link QueryResult} passed to the consumer
+     * is positioned on the current row and must not be retained or moved; it is only valid during the callback.
+     * A fetch size of zero or less asks the driver for its row-by-row streaming mode where one exists
+     * (see {@link DatabaseClient#configureStreamingStatement(PreparedStatement, int)}).
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param fetchSize    The number of rows the driver should fetch per round trip
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param rowConsumer  The consumer invoked once per row
+     * @return The number of rows consumed
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public long queryStreaming(@NotNull String sqlStatement, int fetchSize, @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull Consumer<QueryResult> rowConsumer) throws UncheckedSQLException {
+        OperationTimer timer = this.startTimer(OperationType.QUERY_STREAMING, sqlStatement, psPreparer);
+        Deadline deadline = this.operationDeadline();
         Connection connection = null;
         try {
-            connection = this.getConnectionInternal();
+            connection = this.getReadConnectionInternal(sqlStatement);
+            checkAcquired(deadline);
+            timer.acquired();
 
-            try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
+            try (PreparedStatement statement = connection.prepareStatement(sqlStatement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                this.configureStreamingStatement(statement, fetchSize);
                 if (psPreparer != null) {
                     psPreparer.accept(statement);
                 }
+                timer.prepared();
 
+                this.beforeExecute(statement, deadline);
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    CachedRowSet cachedRowSet = RowSetProvider.newFactory().createCachedRowSet();
-                    cachedRowSet.populate(resultSet);
-                    return new QueryResult(cachedRowSet);
+                    timer.executed();
+                    QueryResult row = new QueryResult(resultSet, this.getColumnLabels(sqlStatement, resultSet));
+                    long rows = 0;
+                    while (resultSet.next()) {
+                        rowConsumer.accept(row);
+                        rows++;
+                    }
+                    timer.finish(rows);
+                    return rows;
+                } finally {
+                    this.afterExecute();
                 }
             }
         } catch (SQLException exception) {
+            timer.fail(exception);
             throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            timer.fail(exception);
+            throw exception;
         } finally {
-            if (connection != null && this.transactionConnection.get() == null) { // If we aren't in a transaction, close the connection
-                try {
-                    connection.close();
-                } catch (SQLException ignored) {}
-            }
+            this.releaseConnection(connection);
         }
     }
 
     /**
-     * Does the same thing as {@link DatabaseClient#query(String)} except
+     * Does the same thing as {@link DatabaseClient#queryStreaming(String, Consumer)} except
      * does everything asynchronously and returns a {@link CompletableFuture}.
      *
-     * @see DatabaseClient#query(String)
+     * @see DatabaseClient#queryStreaming(String, Consumer)
      */
-    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement) {
-        return queryAsync(sqlStatement, null);
+    public CompletableFuture<Long> queryStreamingAsync(@NotNull String sqlStatement, @NotNull Consumer<QueryResult> rowConsumer) {
+        return queryStreamingAsync(sqlStatement, DEFAULT_STREAMING_FETCH_SIZE, null, rowConsumer);
     }
 
     /**
-     * Does the same thing as {@link DatabaseClient#query(String, SQLConsumer)} except
-     * does everything asynchronously and returns a {@link CompletableFuture}.
+     * Does the same thing as {@link DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.  The consumer is invoked on the
+     * thread that reads the cursor.
      *
-     * @see DatabaseClient#query(String, SQLConsumer)
+     * @see DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)
      */
-    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
-        return CompletableFuture.supplyAsync(() -> this.query(sqlStatement, psPreparer), this.threadPool);
+    public CompletableFuture<Long> queryStreamingAsync(@NotNull String sqlStatement, int fetchSize, @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull Consumer<QueryResult> rowConsumer) {
+        return this.supplyAsync(() -> this.queryStreaming(sqlStatement, fetchSize, psPreparer, rowConsumer));
+    }
+
+    /**
+     * Walks the result of a query page by page, ordered by a single key column.
+     *
+     * @see DatabaseClient#queryPages(String, List, int, RowMapper, Object...)
+     */
+    public <T> KeysetIterator<T> queryPages(@NotNull String sqlStatement, @NotNull String keyColumn, int pageSize,
+                                            @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return new KeysetIterator<>(this, sqlStatement, Collections.singletonList(keyColumn), pageSize, rowMapper, params);
+    }
+
+    /**
+     * Walks the result of a query page by page with keyset pagination: every page seeks past the keys of the last
+     * row of the previous page instead of skipping an offset, and the next page is prefetched on the executor while
+     * the current one is processed.
+     *
+     * @param sqlStatement The plain {@code SELECT ... FROM ... [WHERE ...]} statement to page through
+     * @param keyColumns   The columns that together uniquely identify a row, in sort order, as the statement's WHERE clause names them
+     * @param pageSize     The maximum number of rows per page
+     * @param rowMapper    The mapper that maps every row
+     * @param params       The parameters for the statement
+     * @return The iterator over the pages
+     * @throws IllegalArgumentException If the keyset condition cannot be merged into the statement
+     *
+     * @see KeysetIterator
+     */
+    public <T> KeysetIterator<T> queryPages(@NotNull String sqlStatement, @NotNull List<String> keyColumns, int pageSize,
+                                            @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return new KeysetIterator<>(this, sqlStatement, keyColumns, pageSize, rowMapper, params);
+    }
+
+    /**
+     * Creates a lazy {@link Stream} of the mapped rows of a query.  The stream must be closed, for example with
+     * try-with-resources, unless it is consumed to the end.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that maps every row
+     * @param params       The parameters for the statement
+     * @return The stream
+     *
+     * @see DatabaseClient#stream(String, int, SQLConsumer, RowMapper)
+     */
+    public <T> Stream<T> stream(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return stream(sqlStatement, DEFAULT_STREAMING_FETCH_SIZE, parameterPreparer(params), rowMapper);
+    }
+
+    /**
+     * Creates a lazy {@link Stream} of the mapped rows of a query, backed by a live forward-only cursor.
+     * <p>
+     * The query runs when the terminal operation pulls the first row, on the thread that runs it, and the connection
+     * stays checked out until the last row has been read, the stream throws, or {@link Stream#close()} is called.
+     * A stream that is abandoned early must be closed, so prefer try-with-resources.  Short-circuiting operations
+     * such as {@code findFirst} or {@code limit} do not close it by themselves.  Streams never join a transaction
+     * of the calling thread.  To process a result in parallel, query it with {@link #query(String, SQLConsumer)}
+     * and use {@link QueryResult#stream(java.util.function.Function)} instead.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param fetchSize    The number of rows the driver should fetch per round trip
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param rowMapper    The mapper that maps every row
+     * @return The stream
+     *
+     * @see DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)
+     */
+    public <T> Stream<T> stream(@NotNull String sqlStatement, int fetchSize, @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull RowMapper<T> rowMapper) {
+        CursorSpliterator<T> spliterator = new CursorSpliterator<>(this, sqlStatement, fetchSize, psPreparer, rowMapper);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Creates a Reactive Streams {@link Publisher} of the mapped rows of a query.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param rowMapper    The mapper that maps every row
+     * @param params       The parameters for the statement
+     * @return The publisher, which runs the query once per subscription
+     *
+     * @see DatabaseClient#queryPublisher(String, int, SQLConsumer, RowMapper)
+     */
+    public <T> Publisher<T> queryPublisher(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) {
+        return queryPublisher(sqlStatement, DEFAULT_STREAMING_FETCH_SIZE, parameterPreparer(params), rowMapper);
+    }
+
+    /**
+     * Creates a Reactive Streams {@link Publisher} of the mapped rows of a query.  Nothing runs until a subscriber
+     * requests rows; each subscription then checks out a connection, executes the query on the client's executor and
+     * reads rows from a forward-only cursor only as fast as they are requested, so a slow subscriber holds back the
+     * fetching instead of buffering the result in memory.
+     * <p>
+     * The connection stays checked out until the last row has been emitted, the subscription is cancelled or an
+     * error occurs.  Cancelling while the query executes cancels the statement too.  Subscriptions never join a
+     * transaction of the subscribing thread.  Use {@code org.reactivestreams.FlowAdapters} to obtain a
+     * {@link java.util.concurrent.Flow.Publisher} on Java 9 and later.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param fetchSize    The number of rows the driver should fetch per round trip
+     * @param psPreparer   The preparer that prepares the SQL statement
+     * @param rowMapper    The mapper that maps every row
+     * @return The publisher, which runs the query once per subscription
+     *
+     * @see DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)
+     */
+    public <T> Publisher<T> queryPublisher(@NotNull String sqlStatement, int fetchSize, @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull RowMapper<T> rowMapper) {
+        return new RowPublisher<>(this, sqlStatement, fetchSize, psPreparer, rowMapper);
     }
 
     /**
@@ -139,11 +571,7 @@ public abstract class DatabaseClient {
      * @throws UncheckedSQLException If a {@link SQLException} occurs
      */
     public int update(@NotNull String sqlStatement, Object... params) throws UncheckedSQLException {
-        return update(sqlStatement, preparedStatement -> {
-            for (int i = 0; i < params.length; i++) {
-                preparedStatement.setObject(i + 1, params[i]);
-            }
-        });
+        return update(sqlStatement, parameterPreparer(params));
     }
 
     /**
@@ -155,24 +583,48 @@ public abstract class DatabaseClient {
      * @throws UncheckedSQLException If a {@link SQLException} occurs
      */
     public int update(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        OperationTimer timer = this.startTimer(OperationType.UPDATE, sqlStatement, psPreparer);
+        Deadline deadline = this.operationDeadline();
         Connection connection = null;
         try {
             connection = this.getConnectionInternal();
+            checkAcquired(deadline);
+            timer.acquired();
 
-            try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
+            StatementCache statementCache = this.statementCache;
+            PreparedStatement statement = this.prepareStatement(statementCache, connection, sqlStatement);
+            boolean executed = false;
+            try {
                 if (psPreparer != null) {
                     psPreparer.accept(statement);
                 }
-                return statement.executeUpdate();
+                timer.prepared();
+                int updated;
+                this.beforeExecute(statement, deadline);
+                try {
+                    updated = statement.executeUpdate();
+                } finally {
+                    this.afterExecute();
+                }
+                executed = true;
+                timer.executed();
+                this.invalidateQueryCache(sqlStatement);
+                if (this.transactionConnection.get() == null) {
+                    this.afterWrite();
+                }
+                timer.finish(updated);
+                return updated;
+            } finally {
+                releaseStatement(statementCache, connection, sqlStatement, statement, executed);
             }
         } catch (SQLException exception) {
+            timer.fail(exception);
             throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            timer.fail(exception);
+            throw exception;
         } finally {
-            if (connection != null && this.transactionConnection.get() == null) { // If we aren't in a transaction, close the connection
-                try {
-                    connection.close();
-                } catch (SQLException ignored) {}
-            }
+            this.releaseConnection(connection);
         }
     }
 
@@ -183,17 +635,64 @@ public abstract class DatabaseClient {
      * @see DatabaseClient#update(String)
      */
     public CompletableFuture<Integer> updateAsync(@NotNull String sqlStatement) throws UncheckedSQLException {
-        return updateAsync(sqlStatement, null);
+        return updateAsync(sqlStatement, new Object[0]);
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#update(String, Object...)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     *
+     * @see DatabaseClient#update(String, Object...)
+     */
+    public CompletableFuture<Integer> updateAsync(@NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        return updateAsync(sqlStatement, parameterPreparer(params));
     }
 
     /**
      * Does the same thing as {@link DatabaseClient#update(String, SQLConsumer)} except
      * does everything asynchronously and returns a {@link CompletableFuture}.
+     * When group commit is enabled, concurrent calls with the same SQL are executed together in one transaction.
      *
      * @see DatabaseClient#update(String, SQLConsumer)
+     * @see DatabaseClient#enableGroupCommit(long, int)
      */
     public CompletableFuture<Integer> updateAsync(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
-        return CompletableFuture.supplyAsync(() -> this.update(sqlStatement, psPreparer), this.threadPool);
+        GroupCommitter groupCommitter = this.groupCommitter;
+        if (groupCommitter != null) {
+            return this.groupCommit(groupCommitter, sqlStatement, psPreparer);
+        }
+        return this.supplyAsync(() -> this.update(sqlStatement, psPreparer));
+    }
+
+    /**
+     * Hands an update to the group committer with the caller's deadline, and lets the caller know its write committed
+     * through {@link #afterWrite()} before its future completes.  Cancelling the future withdraws the update.
+     */
+    private CompletableFuture<Integer> groupCommit(@NotNull GroupCommitter groupCommitter, @NotNull String sqlStatement,
+                                                   @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        Deadline deadline = this.operationDeadline();
+        long timeoutNanos = deadline != null ? deadline.remainingNanos() : 0;
+        if (deadline != null && timeoutNanos <= 0) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            future.completeExceptionally(new UncheckedSQLException(new SQLTimeoutException("The deadline passed before the update was submitted.")));
+            return future;
+        }
+
+        Supplier<Void> afterWrite = this.propagateContext(() -> {
+            this.afterWrite();
+            return null;
+        });
+        CompletableFuture<Integer> update = groupCommitter.submit(sqlStatement, psPreparer, timeoutNanos, TimeUnit.NANOSECONDS);
+        CompletableFuture<Integer> future = new CancellableFuture<>(() -> update.cancel(false));
+        update.whenComplete((updateCount, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                afterWrite.get();
+                future.complete(updateCount);
+            }
+        });
+        return future;
     }
 
     /**
@@ -205,13 +704,52 @@ public abstract class DatabaseClient {
      * @throws UncheckedSQLException If a {@link SQLException} occurs
      */
     public int executeBatch(@NotNull String sqlStatement, @NotNull SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return Arrays.stream(executeBatchUpdateCounts(sqlStatement, psPreparer)).sum();
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseClient#executeBatch(String, SQLConsumer)} except
+     * returns the update count of every statement in the batch, in the order they were added.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param psPreparer   The preparer that prepares and adds every statement of the batch
+     * @return The update counts, as returned by {@link PreparedStatement#executeBatch()}
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public int[] executeBatchUpdateCounts(@NotNull String sqlStatement, @NotNull SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
         return executeTransaction(() -> {
-            try (PreparedStatement statement = this.getConnectionInternal().prepareStatement(sqlStatement)) {
+            OperationTimer timer = this.startTimer(OperationType.BATCH, sqlStatement, null);
+            timer.acquired(); // The transaction already holds the connection
+            StatementCache statementCache = this.statementCache;
+            Connection connection = this.transactionConnection.get();
+            PreparedStatement statement = null;
+            boolean executed = false;
+            try {
+                statement = this.prepareStatement(statementCache, connection, sqlStatement);
                 psPreparer.accept(statement);
-                int[] affectedRecords = statement.executeBatch();
-                return Arrays.stream(affectedRecords).sum();
+                timer.prepared();
+                int[] updateCounts;
+                this.beforeExecute(statement, this.deadline.get()); // The transaction installed the deadline
+                try {
+                    updateCounts = statement.executeBatch();
+                } finally {
+                    this.afterExecute();
+                }
+                executed = true;
+                timer.executed();
+                this.invalidateQueryCache(sqlStatement);
+                timer.finish(Arrays.stream(updateCounts).filter(count -> count > 0).asLongStream().sum());
+                return updateCounts;
             } catch (SQLException exception) {
+                timer.fail(exception);
                 throw new UncheckedSQLException(exception);
+            } catch (RuntimeException exception) {
+                timer.fail(exception);
+                throw exception;
+            } finally {
+                if (statement != null) {
+                    releaseStatement(statementCache, connection, sqlStatement, statement, executed);
+                }
             }
         });
     }
@@ -225,7 +763,7 @@ public abstract class DatabaseClient {
      * @throws UncheckedSQLException If a {@link SQLException} occurs
      */
     public CompletableFuture<Integer> executeBatchAsync(@NotNull String sqlStatement, @NotNull SQLConsumer<PreparedStatement> psPreparer)  {
-        return CompletableFuture.supplyAsync(() -> this.executeBatch(sqlStatement, psPreparer), this.threadPool);
+        return this.supplyAsync(() -> this.executeBatch(sqlStatement, psPreparer));
     }
 
     /**
@@ -233,6 +771,9 @@ public abstract class DatabaseClient {
      * This method manages the entire transaction lifecycle by committing the transaction if the operation
      * succeeds or rolling back if an exception occurs.  Please note that inner transactions are not supported
      * and will result in an {@link IllegalStateException}.
+     * <p>
+     * When a {@link RetryPolicy} is set, a transaction that fails for a transient reason such as a deadlock is rolled
+     * back and the supplier is run again, after a backoff, until it succeeds or the policy gives up.
      *
      * @param <T> The type of the result returned by the operation
      * @param supplier The supplier of the result of the transaction
@@ -243,14 +784,70 @@ public abstract class DatabaseClient {
             throw new IllegalStateException("Starting a transaction inside of another transaction is unsupported.");
         }
 
+        RetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy == null) {
+            return this.executeTransactionOnce(supplier);
+        }
+
+        Deadline previousDeadline = this.deadline.get();
+        Deadline deadline = this.operationDeadline();
+        if (deadline != null) {
+            this.deadline.set(deadline); // Every attempt shares it
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return this.executeTransactionOnce(supplier);
+                } catch (RuntimeException exception) {
+                    if (attempt >= retryPolicy.maxAttempts || !retryPolicy.isRetryable(exception)) {
+                        throw exception;
+                    }
+                    long backoffMillis = retryPolicy.backoffMillis(attempt);
+                    if (deadline != null && TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadline.remainingNanos()) {
+                        throw exception; // The next attempt could not finish in time
+                    }
+
+                    DatabaseListener databaseListener = this.databaseListener;
+                    if (databaseListener != null) {
+                        try {
+                            databaseListener.onRetry(attempt, exception, backoffMillis);
+                        } catch (RuntimeException ignored) {} // A failing listener must not fail the operation
+                    }
+                    try {
+                        Thread.sleep(backoffMillis);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw exception;
+                    }
+                }
+            }
+        } finally {
+            restore(this.deadline, previousDeadline);
+        }
+    }
+
+    private <T> T executeTransactionOnce(Supplier<T> supplier) throws UncheckedSQLException {
+        OperationTimer timer = this.startTimer(OperationType.TRANSACTION, null, null);
+        Deadline previousDeadline = this.deadline.get();
+        Deadline deadline = this.operationDeadline();
+        if (deadline != null) {
+            this.deadline.set(deadline); // Every statement of the transaction shares it
+        }
         Connection connection = null;
         try {
             connection = this.getConnection();
             connection.setAutoCommit(false);
+            checkAcquired(deadline);
+            timer.acquired();
+            timer.prepared();
             this.transactionConnection.set(connection);
+            this.transactionWrites.set(new LinkedHashSet<>());
 
             T result = supplier.get(); // May throw an UncheckedSQLException
             connection.commit();
+            timer.executed();
+            this.afterWrite();
+            timer.finish(-1);
             return result;
         } catch (SQLException exception) {
             if (connection != null) {
@@ -260,6 +857,7 @@ public abstract class DatabaseClient {
                     exception.addSuppressed(rollbackEx);
                 }
             }
+            timer.fail(exception);
             throw new UncheckedSQLException(exception);
         } catch (UncheckedSQLException exception) {
             if (connection != null) {
@@ -269,9 +867,28 @@ public abstract class DatabaseClient {
                     exception.addSuppressed(rollbackEx);
                 }
             }
+            timer.fail(exception);
             throw exception; // rethrow the unchecked exception directly
+        } catch (RuntimeException | Error exception) {
+            // Statements from the statement cache bypass the pool's proxy, so its rollback on close cannot be relied on
+            if (connection != null) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackEx) {
+                    exception.addSuppressed(rollbackEx);
+                }
+            }
+            timer.fail(exception);
+            throw exception;
         } finally {
             transactionConnection.remove();
+            restore(this.deadline, previousDeadline);
+            Set<String> writes = this.transactionWrites.get();
+            this.transactionWrites.remove();
+            QueryCache queryCache = this.queryCache;
+            if (queryCache != null && writes != null) { // Results cached while the transaction was open may predate its commit
+                writes.forEach(queryCache::invalidate);
+            }
             if (connection != null) {
                 try {
                     connection.close();
@@ -287,12 +904,578 @@ public abstract class DatabaseClient {
      * @see DatabaseClient#executeTransactionAsync(Supplier)
      */
     public <T> CompletableFuture<T> executeTransactionAsync(Supplier<T> supplier) throws UncheckedSQLException {
-        return CompletableFuture.supplyAsync(() -> executeTransaction(supplier), this.threadPool);
+        return this.supplyAsync(() -> executeTransaction(supplier));
     }
 
-    public abstract void shutdown();
+    /**
+     * Runs an operation under a deadline.  Every statement the operation executes through this client on the
+     * calling thread, including inside {@link DatabaseClient#executeTransaction(Supplier)} and the asynchronous
+     * operations it starts, must finish before the deadline: the time waited for a connection counts against it,
+     * and statements are given the remaining time as their query timeout.  An enclosing deadline that is earlier
+     * still applies.
+     *
+     * @param timeout  The time the operation may take
+     * @param unit     The unit of the timeout
+     * @param supplier The operation
+     * @return The result of the operation
+     * @throws UncheckedSQLException If a statement fails, wrapping a {@link java.sql.SQLTimeoutException} if the deadline passed
+     * @see DatabaseClient#setDefaultTimeout(long, TimeUnit)
+     */
+    public <T> T withTimeout(long timeout, @NotNull TimeUnit unit, @NotNull Supplier<T> supplier) throws UncheckedSQLException {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
 
-    private Connection getConnectionInternal() throws SQLException {
+        Deadline previous = this.deadline.get();
+        this.deadline.set(Deadline.earliest(previous, Deadline.after(timeout, unit)));
+        try {
+            return supplier.get();
+        } finally {
+            restore(this.deadline, previous);
+        }
+    }
+
+    /**
+     * Compiles a statement into a reusable handle.  Named parameters such as {@code :id} are parsed once, here,
+     * and the handle's typed binders set parameters without boxing or allocating on the calling thread.
+     *
+     * @param sqlStatement The SQL statement, with {@code ?} placeholders, named parameters or both
+     * @return The handle, which is thread-safe
+     * @see StatementHandle
+     */
+    public StatementHandle prepare(@NotNull String sqlStatement) {
+        return new StatementHandle(this, sqlStatement);
+    }
+
+    /**
+     * Opens an autocommit {@link DatabaseSession}.
+     *
+     * @see DatabaseClient#openSession(boolean)
+     */
+    public DatabaseSession openSession() throws UncheckedSQLException {
+        return this.openSession(false);
+    }
+
+    /**
+     * Checks out a connection and opens a {@link DatabaseSession} on it, which runs statements on that
+     * connection until it is closed.  Sessions always use the primary database.
+     *
+     * @param transactional True to run statements in transactions committed by {@link DatabaseSession#commit()},
+     *                      false to autocommit every statement
+     * @return The session, which must be closed
+     * @throws UncheckedSQLException If no connection could be acquired
+     */
+    public DatabaseSession openSession(boolean transactional) throws UncheckedSQLException {
+        Connection connection = null;
+        try {
+            connection = this.getConnection();
+            if (transactional) {
+                connection.setAutoCommit(false);
+            }
+            return new DatabaseSession(this, connection, transactional);
+        } catch (SQLException exception) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException closeEx) {
+                    exception.addSuppressed(closeEx);
+                }
+            }
+            throw new UncheckedSQLException(exception);
+        }
+    }
+
+    /**
+     * Sets whether {@link DatabaseClient#query(String, SQLConsumer)} and its overloads copy results into a
+     * {@link ColumnarQueryResult} instead of a {@link CachedRowSet}.  Columnar results keep the same accessors
+     * and cursor movements but use far less heap for large results; they are not backed by a {@link ResultSet}.
+     *
+     * @param columnarResults True to materialize results column by column
+     */
+    public void setColumnarResults(boolean columnarResults) {
+        this.columnarResults = columnarResults;
+    }
+
+    /**
+     * @return True if query results are materialized as {@link ColumnarQueryResult}s
+     */
+    public boolean isColumnarResults() {
+        return this.columnarResults;
+    }
+
+    /**
+     * Sets the cache that {@link DatabaseClient#query(String, Object...)} answers read-only statements from.
+     * Results are only cached outside of transactions, and writes through {@link DatabaseClient#update(String, SQLConsumer)},
+     * {@link DatabaseClient#executeBatch(String, SQLConsumer)} and {@link DatabaseClient#executeTransaction(Supplier)}
+     * invalidate the results of the tables they write to.  Writes that bypass this client are only picked up once the
+     * cached results expire.
+     *
+     * @param queryCache The cache, or null to disable caching
+     */
+    public void setQueryCache(@Nullable QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * @return The query cache, or null if caching is disabled
+     */
+    @Nullable
+    public QueryCache getQueryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * Sets the cache that keeps prepared statements open on each pooled connection between executions of
+     * {@link DatabaseClient#query(String, SQLConsumer)}, {@link DatabaseClient#update(String, SQLConsumer)},
+     * {@link DatabaseClient#executeBatch(String, SQLConsumer)} and their overloads.  Replacing or removing the
+     * cache does not close the statements of the previous one, call {@link StatementCache#clear()} for that.
+     *
+     * @param statementCache The cache, or null to prepare every statement anew
+     */
+    public void setStatementCache(@Nullable StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * @return The statement cache, or null if statements are not cached
+     */
+    @Nullable
+    public StatementCache getStatementCache() {
+        return this.statementCache;
+    }
+
+    /**
+     * Sets the listener that every query, update, batch and transaction is reported to, with its connection acquire,
+     * prepare, execute and materialization times, row count and error.  Without a listener operations are not timed.
+     *
+     * @param databaseListener The listener, or null to stop reporting
+     * @see pro.evanwright.saphira.metrics.MetricsCollector
+     */
+    public void setDatabaseListener(@Nullable DatabaseListener databaseListener) {
+        this.databaseListener = databaseListener;
+    }
+
+    /**
+     * @return The listener operations are reported to, or null if none is set
+     */
+    @Nullable
+    public DatabaseListener getDatabaseListener() {
+        return this.databaseListener;
+    }
+
+    /**
+     * Sets the time every operation outside of {@link DatabaseClient#withTimeout(long, TimeUnit, Supplier)} may
+     * take, from the moment it starts waiting for a connection.  A transaction shares one timeout among all
+     * of its statements.
+     *
+     * @param timeout The timeout, or zero to let operations run as long as the database does
+     * @param unit    The unit of the timeout
+     */
+    public void setDefaultTimeout(long timeout, @NotNull TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        this.defaultTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * @return The default timeout in milliseconds, or zero if there is none
+     */
+    public long getDefaultTimeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.defaultTimeoutNanos);
+    }
+
+    /**
+     * Sets the policy that {@link DatabaseClient#executeTransaction(Supplier)}, {@link DatabaseClient#executeBatch(String, SQLConsumer)}
+     * and their overloads retry transient failures such as deadlocks and lock wait timeouts with.  Retries are
+     * reported to {@link DatabaseListener#onRetry(int, Throwable, long)}.  Asynchronous transactions back off on the
+     * executor's thread.
+     *
+     * @param retryPolicy The policy, or null to fail on the first error
+     */
+    public void setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @return The retry policy of transactions, or null if they are not retried
+     */
+    @Nullable
+    public RetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * Gets the executor asynchronous operations run on, creating it on first use.  Its size is derived
+     * from {@link DatabaseClient#getMaximumPoolSize()}, and it exposes queue depth and active task metrics.
+     *
+     * @return The executor
+     * @throws RejectedExecutionException If the client has been shut down
+     */
+    public DatabaseExecutor getExecutor() {
+        DatabaseExecutor executor = this.executor;
+        if (executor == null) {
+            synchronized (this.executorLock) {
+                if (this.executorShutdown) {
+                    throw new RejectedExecutionException("The database client has been shut down.");
+                }
+                executor = this.executor;
+                if (executor == null) {
+                    executor = this.executorSettings.createExecutor(this.getMaximumPoolSize(), "Saphira Worker");
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return The settings of the executor asynchronous operations run on
+     */
+    public ExecutorSettings getExecutorSettings() {
+        return this.executorSettings;
+    }
+
+    /**
+     * Enables client-side group commit for {@link DatabaseClient#updateAsync(String, SQLConsumer)}: concurrent
+     * calls with identical SQL arriving within the window are executed on one connection in a single transaction,
+     * and each caller's future completes with its own update count.  Preparers must only set parameters.
+     *
+     * @param windowMillis How long the first call of a group waits for others
+     * @param maxBatchSize The number of calls that makes a group execute before the window ends
+     * @see GroupCommitter
+     */
+    public void enableGroupCommit(long windowMillis, int maxBatchSize) {
+        GroupCommitter previous;
+        synchronized (this.executorLock) {
+            previous = this.groupCommitter;
+            this.groupCommitter = new GroupCommitter(this, windowMillis, maxBatchSize);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Disables group commit, executing any updates that are still waiting for their group.
+     */
+    public void disableGroupCommit() {
+        GroupCommitter previous;
+        synchronized (this.executorLock) {
+            previous = this.groupCommitter;
+            this.groupCommitter = null;
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * @return The active group committer, or null if group commit is disabled
+     */
+    @Nullable
+    public GroupCommitter getGroupCommitter() {
+        return this.groupCommitter;
+    }
+
+    /**
+     * Gets the maximum number of connections the underlying pool can hand out, which the
+     * asynchronous executor is sized against.  Implementations backed by a pool should override this.
+     *
+     * @return The maximum pool size
+     */
+    public int getMaximumPoolSize() {
+        return DEFAULT_MAXIMUM_POOL_SIZE;
+    }
+
+    public abstract void shutdown();
+
+    /**
+     * Executes updates still waiting for group commit, stops accepting asynchronous operations and waits, for up to
+     * {@link ExecutorSettings#shutdownTimeoutMillis}, for the queued and running ones to finish.  Implementations should call this from {@link DatabaseClient#shutdown()}
+     * before closing their connection pool.
+     */
+    protected void shutdownExecutor() {
+        this.disableGroupCommit();
+
+        DatabaseExecutor executor;
+        synchronized (this.executorLock) {
+            this.executorShutdown = true;
+            executor = this.executor;
+        }
+
+        if (executor != null) {
+            try {
+                executor.shutdown(this.executorSettings.shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Configures a statement created by {@link DatabaseClient#queryStreaming(String, int, SQLConsumer, Consumer)}
+     * before it is executed.  Drivers that need a special fetch size to stream rows instead of buffering the
+     * whole result should override this.
+     *
+     * @param statement The forward-only, read-only statement
+     * @param fetchSize The requested fetch size, zero or less meaning the driver's row-by-row mode
+     * @throws SQLException If the driver rejects the fetch size
+     */
+    protected void configureStreamingStatement(@NotNull PreparedStatement statement, int fetchSize) throws SQLException {
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+    }
+
+    /**
+     * Gets a connection for a statement that is executed outside of a transaction and only reads.  Implementations
+     * with read replicas should override this to route read-only statements away from the primary.
+     *
+     * @param sqlStatement The statement that will be executed on the connection
+     * @return The connection
+     * @throws SQLException If no connection could be acquired
+     */
+    protected Connection getReadConnection(@NotNull String sqlStatement) throws SQLException {
+        return this.getConnection();
+    }
+
+    /**
+     * Called on the writing thread after an update outside of a transaction, or a transaction, committed.
+     * Implementations can use this to keep the caller's following reads consistent with its writes.
+     */
+    protected void afterWrite() {
+    }
+
+    /**
+     * Wraps an operation before it is handed to the asynchronous executor, on the calling thread.  Implementations
+     * that keep per-caller state in thread locals should override this to carry it over to the worker.
+     *
+     * @param task The operation
+     * @param <T>  The type of the result of the operation
+     * @return The operation to run on the executor
+     */
+    protected <T> Supplier<T> propagateContext(@NotNull Supplier<T> task) {
+        return task;
+    }
+
+    private <T> T executeQuery(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer, int maxRows,
+                               @NotNull SQLFunction<ResultSet, T> extractor, @NotNull ToLongFunction<T> rowCounter) throws UncheckedSQLException {
+        OperationTimer timer = this.startTimer(OperationType.QUERY, sqlStatement, psPreparer);
+        Deadline deadline = this.operationDeadline();
+        Connection connection = null;
+        try {
+            connection = this.getReadConnectionInternal(sqlStatement);
+            checkAcquired(deadline);
+            timer.acquired();
+
+            StatementCache statementCache = this.statementCache;
+            PreparedStatement statement = this.prepareStatement(statementCache, connection, sqlStatement);
+            boolean executed = false;
+            try {
+                if (maxRows > 0) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (psPreparer != null) {
+                    psPreparer.accept(statement);
+                }
+                timer.prepared();
+
+                this.beforeExecute(statement, deadline);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    timer.executed();
+                    T result = extractor.apply(resultSet);
+                    executed = true;
+                    if (timer != OperationTimer.DISABLED) {
+                        timer.finish(rowCounter.applyAsLong(result));
+                    }
+                    return result;
+                } finally {
+                    this.afterExecute();
+                }
+            } finally {
+                releaseStatement(statementCache, connection, sqlStatement, statement, executed);
+            }
+        } catch (SQLException exception) {
+            timer.fail(exception);
+            throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            timer.fail(exception);
+            throw exception;
+        } finally {
+            this.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Copies a live result into a {@link QueryResult}, column by column if columnar results are enabled.
+     */
+    QueryResult materialize(@NotNull String sqlStatement, @NotNull ResultSet resultSet) throws SQLException {
+        ColumnLabels columnLabels = this.getColumnLabels(sqlStatement, resultSet);
+        if (this.columnarResults) {
+            return ColumnarQueryResult.from(resultSet, columnLabels);
+        }
+
+        CachedRowSet cachedRowSet = getRowSetFactory().createCachedRowSet();
+        cachedRowSet.populate(resultSet);
+        return new QueryResult(cachedRowSet, columnLabels);
+    }
+
+    static long rowCount(@NotNull QueryResult result) {
+        return result instanceof ColumnarQueryResult ? ((ColumnarQueryResult) result).getRowCount() : ((CachedRowSet) result.getResultSet()).size();
+    }
+
+    /**
+     * Resolves the label mapping for a result, reusing the mapping of the previous execution of the
+     * same statement when the result still has the same shape.
+     */
+    private ColumnLabels getColumnLabels(@NotNull String sqlStatement, @NotNull ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        ColumnLabels columnLabels = this.columnLabelCache.get(sqlStatement);
+        if (columnLabels != null && columnLabels.matches(metaData)) {
+            return columnLabels;
+        }
+
+        columnLabels = ColumnLabels.of(metaData);
+        if (this.columnLabelCache.size() < MAX_CACHED_COLUMN_LABELS || this.columnLabelCache.containsKey(sqlStatement)) {
+            this.columnLabelCache.put(sqlStatement, columnLabels);
+        }
+        return columnLabels;
+    }
+
+    /**
+     * Invalidates the cached results of the tables a statement wrote to.  Inside a transaction the statement is
+     * remembered so its tables are invalidated again once the transaction ends.
+     */
+    void invalidateQueryCache(@NotNull String sqlStatement) {
+        QueryCache queryCache = this.queryCache;
+        if (queryCache != null) {
+            queryCache.invalidate(sqlStatement);
+            Set<String> writes = this.transactionWrites.get();
+            if (writes != null) {
+                writes.add(sqlStatement);
+            }
+        }
+    }
+
+    private static RowSetFactory getRowSetFactory() throws SQLException {
+        RowSetFactory factory = rowSetFactory;
+        if (factory == null) { // Looked up once, RowSetProvider goes through the ServiceLoader on every call
+            factory = RowSetProvider.newFactory();
+            rowSetFactory = factory;
+        }
+        return factory;
+    }
+
+    static SQLConsumer<PreparedStatement> parameterPreparer(@NotNull Object... params) {
+        return new ParameterPreparer(params);
+    }
+
+    /**
+     * Runs an operation on the executor.  The operation keeps the caller's deadline, so time spent queued counts
+     * against it, and cancelling the returned future cancels the statement the operation is executing.
+     */
+    <T> CompletableFuture<T> supplyAsync(@NotNull Supplier<T> supplier) {
+        Cancellation cancellation = new Cancellation();
+        CompletableFuture<T> future = new CancellableFuture<>(cancellation::cancel);
+        Deadline deadline = this.deadline.get();
+        Supplier<T> task = this.propagateContext(supplier);
+        try {
+            this.getExecutor().execute(() -> {
+                if (future.isDone()) {
+                    return; // Cancelled while queued
+                }
+
+                Deadline previousDeadline = this.deadline.get();
+                Cancellation previousCancellation = this.cancellation.get();
+                // A caller-runs rejection policy runs the operation on the submitting thread, whose transaction it must not join
+                Connection previousTransaction = this.transactionConnection.get();
+                Set<String> previousWrites = this.transactionWrites.get();
+                restore(this.deadline, deadline);
+                this.cancellation.set(cancellation);
+                this.transactionConnection.remove();
+                this.transactionWrites.remove();
+                try {
+                    future.complete(task.get());
+                } catch (Throwable throwable) { // Wrapped the way CompletableFuture.supplyAsync does
+                    future.completeExceptionally(throwable instanceof CompletionException ? throwable : new CompletionException(throwable));
+                } finally {
+                    restore(this.deadline, previousDeadline);
+                    restore(this.cancellation, previousCancellation);
+                    restore(this.transactionConnection, previousTransaction);
+                    restore(this.transactionWrites, previousWrites);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            future.completeExceptionally(exception);
+        }
+        return future;
+    }
+
+    /**
+     * @return The deadline of the calling thread, or a new one from the default timeout, or null if there is neither
+     */
+    @Nullable
+    Deadline operationDeadline() {
+        Deadline deadline = this.deadline.get();
+        long defaultTimeoutNanos = this.defaultTimeoutNanos;
+        if (deadline == null && defaultTimeoutNanos > 0) {
+            deadline = Deadline.after(defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return deadline;
+    }
+
+    /**
+     * Limits a statement about to execute to the deadline, and lets the future of the asynchronous operation running
+     * on this thread cancel it.  Must be followed by {@link #afterExecute()} once the statement's results have been read.
+     */
+    void beforeExecute(@NotNull Statement statement, @Nullable Deadline deadline) throws SQLException {
+        if (deadline != null) {
+            deadline.apply(statement);
+        }
+        Cancellation cancellation = this.cancellation.get();
+        if (cancellation != null) {
+            cancellation.executing(statement);
+        }
+    }
+
+    void afterExecute() {
+        Cancellation cancellation = this.cancellation.get();
+        if (cancellation != null) {
+            cancellation.finished();
+        }
+    }
+
+    static void checkAcquired(@Nullable Deadline deadline) throws SQLTimeoutException {
+        if (deadline != null) {
+            deadline.check("waiting for a connection");
+        }
+    }
+
+    private static <T> void restore(@NotNull ThreadLocal<T> threadLocal, @Nullable T previous) {
+        if (previous != null) {
+            threadLocal.set(previous);
+        } else {
+            threadLocal.remove();
+        }
+    }
+
+    private PreparedStatement prepareStatement(@Nullable StatementCache statementCache, @NotNull Connection connection, @NotNull String sqlStatement) throws SQLException {
+        return statementCache != null ? statementCache.acquire(connection, sqlStatement) : connection.prepareStatement(sqlStatement);
+    }
+
+    private static void releaseStatement(@Nullable StatementCache statementCache, @NotNull Connection connection, @NotNull String sqlStatement,
+                                         @NotNull PreparedStatement statement, boolean reusable) {
+        if (statementCache != null) {
+            statementCache.release(connection, sqlStatement, statement, reusable);
+        } else {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    private Connection getConnectionInternal() throws SQLException {
         Connection connection = transactionConnection.get();  // If we are in a transaction, use the cached connection
         if (connection == null) {
             return this.getConnection();
@@ -301,5 +1484,70 @@ public abstract class DatabaseClient {
         return connection;
     }
 
+    OperationTimer startTimer(@NotNull OperationType type, @Nullable String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        DatabaseListener databaseListener = this.databaseListener;
+        if (databaseListener == null) {
+            return OperationTimer.DISABLED;
+        }
+        Object[] params = psPreparer instanceof ParameterPreparer ? ((ParameterPreparer) psPreparer).params : null;
+        return OperationTimer.start(databaseListener, type, sqlStatement, params);
+    }
+
+    private Connection getReadConnectionInternal(@NotNull String sqlStatement) throws SQLException {
+        Connection connection = transactionConnection.get(); // Reads inside a transaction must see its writes
+        if (connection == null) {
+            return this.getReadConnection(sqlStatement);
+        }
+
+        return connection;
+    }
+
+    private void releaseConnection(@Nullable Connection connection) {
+        if (connection != null && this.transactionConnection.get() == null) { // If we aren't in a transaction, close the connection
+            try {
+                connection.close();
+            } catch (SQLException ignored) {}
+        }
+    }
+
     public abstract Connection getConnection() throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * A future that cancels the work behind it, such as the statement of its operation, when it is cancelled.
+     * Stages derived from it do not: cancelling those only completes them.
+     */
+    private static final class CancellableFuture<T> extends CompletableFuture<T> {
+        private final Runnable onCancel;
+
+        CancellableFuture(@NotNull Runnable onCancel) {
+            this.onCancel = onCancel;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                this.onCancel.run();
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * Binds positional parameters.  A named class so listeners can be told the parameters of an operation.
+     */
+    private static final class ParameterPreparer implements SQLConsumer<PreparedStatement> {
+        private final Object[] params;
+
+        ParameterPreparer(Object[] params) {
+            this.params = params;
+        }
+
+        @Override
+        public void accept(@NotNull PreparedStatement preparedStatement) throws SQLException {
+            for (int i = 0; i < this.params.length; i++) {
+                preparedStatement.setObject(i + 1, this.params[i]);
+            }
+        }
+    }
+}
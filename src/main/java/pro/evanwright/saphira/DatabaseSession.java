@@ -0,0 +1,369 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.metrics.OperationType;
+import pro.evanwright.saphira.query.QueryCache;
+import pro.evanwright.saphira.query.QueryResult;
+import pro.evanwright.saphira.query.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToLongFunction;
+
+/**
+ * Holds one pooled connection for a block of work, so a sequence of statements pays for a single pool checkout.
+ * <p>
+ * A session either runs every statement in autocommit mode, or, when transactional, keeps one transaction open
+ * until {@link #commit()} or {@link #rollback()}, after which the next statement starts a new one.  Prepared
+ * statements are kept open and reused for the lifetime of the session.  Closing the session rolls back uncommitted
+ * work, closes its statements and returns the connection to the pool.
+ * <p>
+ * Unlike {@link DatabaseClient#executeTransaction(java.util.function.Supplier)}, a session does not depend on the
+ * calling thread: it can be handed from one {@link CompletableFuture} stage to the next.  Operations are serialized,
+ * so it must still not be used by several threads at once to do unrelated work.
+ * Sessions bypass the {@link QueryCache}, but their writes invalidate it.
+ *
+ * @see DatabaseClient#openSession(boolean)
+ */
+public class DatabaseSession implements AutoCloseable {
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    private final DatabaseClient client;
+    private final Connection connection;
+    private final boolean transactional;
+    private final Map<String, PreparedStatement> statements;
+    private final Set<String> writes;
+    private boolean closed;
+
+    DatabaseSession(@NotNull DatabaseClient client, @NotNull Connection connection, boolean transactional) {
+        this.client = client;
+        this.connection = connection;
+        this.transactional = transactional;
+        this.writes = new LinkedHashSet<>();
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (this.size() > MAX_CACHED_STATEMENTS) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @see DatabaseClient#query(String, Object...)
+     */
+    public QueryResult query(@NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        return this.query(sqlStatement, DatabaseClient.parameterPreparer(params));
+    }
+
+    /**
+     * @see DatabaseClient#query(String, SQLConsumer)
+     */
+    public QueryResult query(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, psPreparer, 0, resultSet -> this.client.materialize(sqlStatement, resultSet), DatabaseClient::rowCount);
+    }
+
+    /**
+     * @see DatabaseClient#queryList(String, RowMapper, Object...)
+     */
+    public <T> List<T> queryList(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, DatabaseClient.parameterPreparer(params), 0, resultSet -> {
+            List<T> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(rowMapper.map(resultSet));
+            }
+            return rows;
+        }, List::size);
+    }
+
+    /**
+     * @see DatabaseClient#queryFirst(String, RowMapper, Object...)
+     */
+    public <T> Optional<T> queryFirst(@NotNull String sqlStatement, @NotNull RowMapper<T> rowMapper, @NotNull Object... params) throws UncheckedSQLException {
+        return this.executeQuery(sqlStatement, DatabaseClient.parameterPreparer(params), 1,
+                resultSet -> resultSet.next() ? Optional.ofNullable(rowMapper.map(resultSet)) : Optional.empty(),
+                result -> result.isPresent() ? 1 : 0);
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseSession#query(String, Object...)} except
+     * runs on the client's executor and returns a {@link CompletableFuture}.
+     */
+    public CompletableFuture<QueryResult> queryAsync(@NotNull String sqlStatement, @NotNull Object... params) {
+        return this.client.supplyAsync(() -> this.query(sqlStatement, params));
+    }
+
+    /**
+     * @see DatabaseClient#update(String, Object...)
+     */
+    public int update(@NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        return this.update(sqlStatement, DatabaseClient.parameterPreparer(params));
+    }
+
+    /**
+     * @see DatabaseClient#update(String, SQLConsumer)
+     */
+    public synchronized int update(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        OperationTimer timer = this.client.startTimer(OperationType.UPDATE, sqlStatement, psPreparer);
+        timer.acquired(); // The session already holds the connection
+        try {
+            PreparedStatement statement = this.prepare(sqlStatement);
+            if (psPreparer != null) {
+                psPreparer.accept(statement);
+            }
+            timer.prepared();
+            int updated;
+            this.client.beforeExecute(statement, this.client.operationDeadline());
+            try {
+                updated = statement.executeUpdate();
+            } finally {
+                this.client.afterExecute();
+            }
+            timer.executed();
+            this.wrote(sqlStatement);
+            timer.finish(updated);
+            return updated;
+        } catch (SQLException exception) {
+            timer.fail(exception);
+            throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            timer.fail(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Does the same thing as {@link DatabaseSession#update(String, Object...)} except
+     * runs on the client's executor and returns a {@link CompletableFuture}.
+     */
+    public CompletableFuture<Integer> updateAsync(@NotNull String sqlStatement, @NotNull Object... params) {
+        return this.client.supplyAsync(() -> this.update(sqlStatement, params));
+    }
+
+    /**
+     * Submits a batch of commands.  You must include all {@link PreparedStatement#addBatch} calls inside the preparer.
+     * In autocommit mode every statement of the batch commits on its own.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param psPreparer   The preparer that prepares and adds every statement of the batch
+     * @return The sum of the update counts
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public synchronized int executeBatch(@NotNull String sqlStatement, @NotNull SQLConsumer<PreparedStatement> psPreparer) throws UncheckedSQLException {
+        OperationTimer timer = this.client.startTimer(OperationType.BATCH, sqlStatement, null);
+        timer.acquired();
+        PreparedStatement statement = null;
+        try {
+            statement = this.prepare(sqlStatement);
+            psPreparer.accept(statement);
+            timer.prepared();
+            int[] updateCounts;
+            this.client.beforeExecute(statement, this.client.operationDeadline());
+            try {
+                updateCounts = statement.executeBatch();
+            } finally {
+                this.client.afterExecute();
+            }
+            timer.executed();
+            this.wrote(sqlStatement);
+            int updated = Arrays.stream(updateCounts).sum();
+            timer.finish(updated);
+            return updated;
+        } catch (SQLException exception) {
+            clearBatchQuietly(statement);
+            timer.fail(exception);
+            throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            clearBatchQuietly(statement);
+            timer.fail(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Commits the open transaction of a transactional session.  The next statement starts a new transaction.
+     *
+     * @throws UncheckedSQLException If the commit fails
+     * @throws IllegalStateException If the session is not transactional or closed
+     */
+    public synchronized void commit() throws UncheckedSQLException {
+        this.ensureTransactional();
+        try {
+            this.connection.commit();
+        } catch (SQLException exception) {
+            throw new UncheckedSQLException(exception);
+        } finally {
+            this.endTransaction();
+        }
+        this.client.afterWrite();
+    }
+
+    /**
+     * Rolls back the open transaction of a transactional session.  The next statement starts a new transaction.
+     *
+     * @throws UncheckedSQLException If the rollback fails
+     * @throws IllegalStateException If the session is not transactional or closed
+     */
+    public synchronized void rollback() throws UncheckedSQLException {
+        this.ensureTransactional();
+        try {
+            this.connection.rollback();
+        } catch (SQLException exception) {
+            throw new UncheckedSQLException(exception);
+        } finally {
+            this.endTransaction();
+        }
+    }
+
+    /**
+     * @return True if statements run in a transaction that must be committed, false if every statement autocommits
+     */
+    public boolean isTransactional() {
+        return this.transactional;
+    }
+
+    public synchronized boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Rolls back uncommitted work, closes the session's statements and returns the connection to the pool.
+     * Closing a closed session does nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        for (PreparedStatement statement : this.statements.values()) {
+            closeQuietly(statement);
+        }
+        this.statements.clear();
+
+        try {
+            if (this.transactional) {
+                try {
+                    this.connection.rollback();
+                    this.connection.setAutoCommit(true);
+                } catch (SQLException ignored) {} // The pool resets or discards the connection
+                this.endTransaction();
+            }
+        } finally {
+            try {
+                this.connection.close();
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    private synchronized <T> T executeQuery(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer, int maxRows,
+                                            @NotNull SQLFunction<ResultSet, T> extractor, @NotNull ToLongFunction<T> rowCounter) throws UncheckedSQLException {
+        OperationTimer timer = this.client.startTimer(OperationType.QUERY, sqlStatement, psPreparer);
+        timer.acquired();
+        try {
+            PreparedStatement statement = this.prepare(sqlStatement);
+            statement.setMaxRows(maxRows); // Statements are shared by overloads with different limits
+            if (psPreparer != null) {
+                psPreparer.accept(statement);
+            }
+            timer.prepared();
+
+            this.client.beforeExecute(statement, this.client.operationDeadline());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                timer.executed();
+                T result = extractor.apply(resultSet);
+                if (timer != OperationTimer.DISABLED) {
+                    timer.finish(rowCounter.applyAsLong(result));
+                }
+                return result;
+            } finally {
+                this.client.afterExecute();
+            }
+        } catch (SQLException exception) {
+            timer.fail(exception);
+            throw new UncheckedSQLException(exception);
+        } catch (RuntimeException exception) {
+            timer.fail(exception);
+            throw exception;
+        }
+    }
+
+    private PreparedStatement prepare(@NotNull String sqlStatement) throws SQLException {
+        if (this.closed) {
+            throw new IllegalStateException("The session has been closed.");
+        }
+
+        PreparedStatement statement = this.statements.get(sqlStatement);
+        if (statement != null) {
+            statement.clearParameters();
+            if (statement.getQueryTimeout() != 0) {
+                statement.setQueryTimeout(0);
+            }
+            return statement;
+        }
+
+        statement = this.connection.prepareStatement(sqlStatement);
+        this.statements.put(sqlStatement, statement);
+        return statement;
+    }
+
+    private void wrote(@NotNull String sqlStatement) {
+        this.client.invalidateQueryCache(sqlStatement);
+        if (!this.transactional) {
+            this.client.afterWrite();
+        } else if (this.client.getQueryCache() != null) {
+            this.writes.add(sqlStatement);
+        }
+    }
+
+    /**
+     * Invalidates the tables written by the transaction again, results cached while it was open may predate its commit.
+     */
+    private void endTransaction() {
+        QueryCache queryCache = this.client.getQueryCache();
+        if (queryCache != null) {
+            this.writes.forEach(queryCache::invalidate);
+        }
+        this.writes.clear();
+    }
+
+    private void ensureTransactional() {
+        if (!this.transactional) {
+            throw new IllegalStateException("The session is not transactional.");
+        }
+        if (this.closed) {
+            throw new IllegalStateException("The session has been closed.");
+        }
+    }
+
+    private static void clearBatchQuietly(@Nullable PreparedStatement statement) {
+        if (statement != null) {
+            try {
+                statement.clearBatch();
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    private static void closeQuietly(@NotNull PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {}
+    }
+}
@@ -2,15 +2,25 @@ package pro.evanwright.saphira;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * A data container that stores remote databases credentials to be passed to a {@link DatabaseClient} instance.
  */
 public class DatabaseSettings {
     private static final String DEFAULT_POOL_NAME = "Saphira Connection Pool";
     private static final String DEFAULT_PORT = "3306";
+    private static final long DEFAULT_REPLICA_HEALTH_CHECK_MILLIS = 5000;
 
     public final String poolName, host, database, username, password, port;
     public final boolean optimizeHikari;
+    private boolean allowLocalInfile;
+    private final List<String> replicaHosts = new ArrayList<>();
+    private ReplicaBalancing replicaBalancing = ReplicaBalancing.ROUND_ROBIN;
+    private long readYourWritesMillis;
+    private long replicaHealthCheckMillis = DEFAULT_REPLICA_HEALTH_CHECK_MILLIS;
 
     public DatabaseSettings(@NotNull String host, @NotNull String database, @NotNull String username, @NotNull String password) {
         this(DEFAULT_POOL_NAME, host, database, username, password, DEFAULT_PORT, true);
@@ -38,6 +48,96 @@ public class DatabaseSettings {
         this.optimizeHikari = optimizeHikari;
     }
 
+    /**
+     * Allows {@code LOAD DATA LOCAL INFILE}, which {@link pro.evanwright.saphira.client.MySQLClient#loadData}
+     * needs.  Off by default: a malicious server could otherwise request local files from the client.
+     *
+     * @param allowLocalInfile True to enable the driver's local infile support
+     * @return These settings
+     */
+    public DatabaseSettings setAllowLocalInfile(boolean allowLocalInfile) {
+        this.allowLocalInfile = allowLocalInfile;
+        return this;
+    }
+
+    public boolean isAllowLocalInfile() {
+        return this.allowLocalInfile;
+    }
+
+    /**
+     * Adds a read replica on the same port as the primary.  Read-only queries outside of transactions are sent to
+     * replicas, everything else to the primary {@link #host}.  Every replica gets its own connection pool.
+     *
+     * @param host The host of the replica
+     * @return These settings
+     */
+    public DatabaseSettings addReplica(@NotNull String host) {
+        return addReplica(host, this.port);
+    }
+
+    /**
+     * Adds a read replica.
+     *
+     * @param host The host of the replica
+     * @param port The port of the replica
+     * @return These settings
+     * @see #addReplica(String)
+     */
+    public DatabaseSettings addReplica(@NotNull String host, @NotNull String port) {
+        this.replicaHosts.add(host + ":" + port);
+        return this;
+    }
+
+    /**
+     * @return The replicas, as {@code host:port}
+     */
+    public List<String> getReplicaHosts() {
+        return Collections.unmodifiableList(this.replicaHosts);
+    }
+
+    /**
+     * @param replicaBalancing How read-only queries are spread over the replicas
+     * @return These settings
+     */
+    public DatabaseSettings setReplicaBalancing(@NotNull ReplicaBalancing replicaBalancing) {
+        this.replicaBalancing = replicaBalancing;
+        return this;
+    }
+
+    public ReplicaBalancing getReplicaBalancing() {
+        return this.replicaBalancing;
+    }
+
+    /**
+     * Sends the reads of a caller to the primary for a while after it writes, so it does not read stale data from
+     * a lagging replica.  The caller is the writing thread, or the thread that started an asynchronous write.
+     *
+     * @param readYourWritesMillis How long reads stay on the primary after a write, zero to disable
+     * @return These settings
+     */
+    public DatabaseSettings setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+        return this;
+    }
+
+    public long getReadYourWritesMillis() {
+        return this.readYourWritesMillis;
+    }
+
+    /**
+     * @param replicaHealthCheckMillis How often replicas are checked; unhealthy replicas get no reads until they recover.
+     *                                 Zero or less disables the check, and a replica that fails is then retried after a backoff
+     * @return These settings
+     */
+    public DatabaseSettings setReplicaHealthCheckMillis(long replicaHealthCheckMillis) {
+        this.replicaHealthCheckMillis = replicaHealthCheckMillis;
+        return this;
+    }
+
+    public long getReplicaHealthCheckMillis() {
+        return this.replicaHealthCheckMillis;
+    }
+
     @Override
     public String toString() {
         return "DatabaseCredentials{" +
@@ -45,6 +145,7 @@ public class DatabaseSettings {
                 ", database='" + database + '\'' +
                 ", username='" + username + '\'' +
                 ", port='" + port + '\'' +
+                ", replicas=" + replicaHosts +
                 '}';
     }
 }
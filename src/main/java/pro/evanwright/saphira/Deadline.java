@@ -0,0 +1,60 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which an operation, including waiting for a connection, must have finished.
+ */
+final class Deadline {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long deadline; // In System.nanoTime() terms
+
+    private Deadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    static Deadline after(long timeout, @NotNull TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return The earlier of the two deadlines
+     */
+    static Deadline earliest(@Nullable Deadline first, @NotNull Deadline second) {
+        return first != null && first.deadline - second.deadline < 0 ? first : second;
+    }
+
+    long remainingNanos() {
+        return this.deadline - System.nanoTime();
+    }
+
+    /**
+     * @param phase What the operation was doing, for the exception message
+     * @throws SQLTimeoutException If the deadline has passed
+     */
+    void check(@NotNull String phase) throws SQLTimeoutException {
+        if (this.remainingNanos() <= 0) {
+            throw new SQLTimeoutException("The deadline passed while " + phase + ".");
+        }
+    }
+
+    /**
+     * Limits the statement's execution to the remaining time, rounded up to whole seconds as JDBC requires.
+     *
+     * @throws SQLTimeoutException If the deadline has already passed
+     */
+    void apply(@NotNull Statement statement) throws SQLException {
+        long remaining = this.remainingNanos();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("The deadline passed before the statement was executed.");
+        }
+        statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, (remaining + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+    }
+}
@@ -0,0 +1,302 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.query.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Walks the result of a query in pages using keyset pagination, so every page costs the same index seek no matter
+ * how deep into the result it is, unlike {@code LIMIT ... OFFSET}.
+ * <p>
+ * The seek condition {@code (keys) > (last keys)}, spelled out so any database can use an index on the keys, is added
+ * to the query's own {@code WHERE} clause with {@code AND}, or as a new one, followed by {@code ORDER BY keys LIMIT pageSize}.
+ * Keeping the condition in the query itself lets the database seek on the table instead of filtering a derived table.
+ * The key columns must be columns the query's {@code WHERE} clause can reference, optionally qualified like {@code u.id},
+ * whose unqualified names are columns of the result; together they must be unique and never null.
+ * <p>
+ * Only a plain {@code SELECT ... FROM ... [WHERE ...]} can be merged with the seek condition.  Queries with
+ * {@code DISTINCT}, {@code GROUP BY}, {@code HAVING}, set operations such as {@code UNION}, or their own
+ * {@code ORDER BY}, {@code LIMIT}, {@code OFFSET}, {@code FETCH}, {@code WINDOW} or {@code FOR} clauses are rejected;
+ * use them as a subquery or view instead.  Subqueries, string literals and comments are not inspected, and line
+ * comments are dropped from the query.
+ * <p>
+ * As soon as a full page is handed out, the next one is fetched on the client's executor, so the database works
+ * while the caller processes the current page.  At most two pages are held at any time.  Each page runs as its own
+ * query, so rows changed while the iterator walks the result may or may not be seen.
+ * Iterators are not thread-safe.
+ *
+ * @see DatabaseClient#queryPages(String, List, int, RowMapper, Object...)
+ */
+public class KeysetIterator<T> implements Iterator<List<T>>, AutoCloseable {
+    private static final Set<String> UNMERGEABLE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "GROUP", "HAVING", "UNION", "INTERSECT", "EXCEPT", "MINUS", "ORDER", "LIMIT", "OFFSET", "FETCH", "WINDOW", "FOR"));
+
+    private final DatabaseClient client;
+    private final String firstPageStatement;
+    private final String nextPageStatement;
+    private final List<String> keyColumns;
+    private final int[] keyBindings; // The key each placeholder of the seek condition is bound to, in order
+    private final String[] resultColumns; // The unqualified key columns, as they are read from the result
+    private final int pageSize;
+    private final RowMapper<T> rowMapper;
+    private final Object[] params;
+
+    private CompletableFuture<Page<T>> nextPage;
+    private boolean exhausted;
+    private long pageCount;
+
+    KeysetIterator(@NotNull DatabaseClient client, @NotNull String sqlStatement, @NotNull List<String> keyColumns, int pageSize,
+                   @NotNull RowMapper<T> rowMapper, @NotNull Object[] params) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("At least one key column is required.");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        this.client = client;
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+        this.pageSize = pageSize;
+        this.rowMapper = rowMapper;
+        this.params = params.clone();
+
+        MergeableQuery mergeable = new MergeableQuery(sqlStatement);
+        String orderBy = " ORDER BY " + String.join(", ", keyColumns) + " LIMIT " + pageSize;
+
+        // (a, b) > (?, ?) becomes a > ? OR (a = ? AND b > ?)
+        StringBuilder seek = new StringBuilder();
+        List<Integer> keyBindings = new ArrayList<>();
+        for (int key = 0; key < keyColumns.size(); key++) {
+            if (key > 0) {
+                seek.append(" OR ");
+            }
+            seek.append('(');
+            for (int equal = 0; equal < key; equal++) {
+                seek.append(keyColumns.get(equal)).append(" = ? AND ");
+                keyBindings.add(equal);
+            }
+            seek.append(keyColumns.get(key)).append(" > ?)");
+            keyBindings.add(key);
+        }
+
+        if (mergeable.whereEnd < 0) {
+            this.firstPageStatement = mergeable.sql + orderBy;
+            this.nextPageStatement = mergeable.sql + " WHERE " + seek + orderBy;
+        } else {
+            // Parenthesized so an OR in the query's own condition cannot swallow the seek condition
+            String select = mergeable.sql.substring(0, mergeable.whereEnd) + " (" + mergeable.sql.substring(mergeable.whereEnd).trim() + ")";
+            this.firstPageStatement = select + orderBy;
+            this.nextPageStatement = select + " AND (" + seek + ")" + orderBy;
+        }
+        this.resultColumns = keyColumns.stream().map(key -> key.substring(key.lastIndexOf('.') + 1)).toArray(String[]::new);
+        this.keyBindings = keyBindings.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return True if another page follows, waiting for it to be fetched if necessary
+     * @throws UncheckedSQLException If fetching the page failed
+     */
+    @Override
+    public boolean hasNext() throws UncheckedSQLException {
+        if (this.exhausted) {
+            return false;
+        }
+        if (this.nextPage == null) {
+            this.nextPage = this.fetch(null);
+        }
+        if (this.await(this.nextPage).rows.isEmpty()) {
+            this.exhausted = true;
+            this.nextPage = null;
+        }
+        return !this.exhausted;
+    }
+
+    /**
+     * Hands out the next page and starts fetching the one after it.
+     *
+     * @return The rows of the page, never empty
+     * @throws UncheckedSQLException  If fetching the page failed
+     * @throws NoSuchElementException If there are no more pages
+     */
+    @Override
+    public List<T> next() throws UncheckedSQLException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Page<T> page = this.await(this.nextPage);
+        this.pageCount++;
+        if (page.rows.size() < this.pageSize) { // A short page is the last one
+            this.exhausted = true;
+            this.nextPage = null;
+        } else {
+            this.nextPage = this.fetch(page.lastKeys);
+        }
+        return page.rows;
+    }
+
+    /**
+     * @return The number of pages handed out so far
+     */
+    public long getPageCount() {
+        return this.pageCount;
+    }
+
+    /**
+     * @return The key columns, in sort order
+     */
+    public List<String> getKeyColumns() {
+        return this.keyColumns;
+    }
+
+    /**
+     * Stops the iteration and discards a page being prefetched.  A query already running finishes on the executor.
+     */
+    @Override
+    public void close() {
+        this.exhausted = true;
+        if (this.nextPage != null) {
+            this.nextPage.cancel(false);
+            this.nextPage = null;
+        }
+    }
+
+    /**
+     * @param afterKeys The keys of the last row of the previous page, or null for the first page
+     */
+    private CompletableFuture<Page<T>> fetch(@Nullable Object[] afterKeys) {
+        String sqlStatement = afterKeys != null ? this.nextPageStatement : this.firstPageStatement;
+        Object[] params = this.params;
+        if (afterKeys != null) {
+            params = new Object[this.params.length + this.keyBindings.length];
+            System.arraycopy(this.params, 0, params, 0, this.params.length);
+            for (int i = 0; i < this.keyBindings.length; i++) {
+                params[this.params.length + i] = afterKeys[this.keyBindings[i]];
+            }
+        }
+
+        SQLConsumer<PreparedStatement> psPreparer = DatabaseClient.parameterPreparer(params);
+        return this.client.supplyAsync(() -> {
+            Object[] lastKeys = new Object[this.keyColumns.size()];
+            List<T> rows = this.client.queryList(sqlStatement, resultSet -> {
+                T row = this.rowMapper.map(resultSet);
+                for (int key = 0; key < lastKeys.length; key++) {
+                    lastKeys[key] = resultSet.getObject(this.resultColumns[key]);
+                }
+                return row;
+            }, psPreparer);
+            return new Page<>(rows, lastKeys);
+        });
+    }
+
+    private Page<T> await(@NotNull CompletableFuture<Page<T>> page) {
+        try {
+            return page.join();
+        } catch (CompletionException exception) {
+            this.close();
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    private static final class Page<T> {
+        private final List<T> rows;
+        private final Object[] lastKeys;
+
+        private Page(@NotNull List<T> rows, @NotNull Object[] lastKeys) {
+            this.rows = rows;
+            this.lastKeys = lastKeys;
+        }
+    }
+
+    /**
+     * A query the seek condition can be merged into, found by looking only at its top level.
+     */
+    private static final class MergeableQuery {
+        private final String sql; // The query without line comments, so text appended to it cannot be commented out
+        private final int whereEnd; // The index just past the WHERE keyword, or -1 if the query has none
+
+        /**
+         * @param query The query
+         * @throws IllegalArgumentException If the query has a clause the seek condition cannot be merged with
+         */
+        private MergeableQuery(String query) {
+            StringBuilder sql = new StringBuilder(query.length());
+            int whereEnd = -1;
+            String previousWord = null;
+            int depth = 0;
+            for (int i = 0; i < query.length(); ) {
+                char c = query.charAt(i);
+                int end = i + 1;
+                if (c == '\'' || c == '"' || c == '`') { // Literals and quoted identifiers
+                    while (end < query.length()) {
+                        char quoted = query.charAt(end);
+                        if (quoted == '\\' && c != '`') { // A backslash escape
+                            end += 2;
+                        } else if (quoted == c && end + 1 < query.length() && query.charAt(end + 1) == c) { // A doubled quote
+                            end += 2;
+                        } else if (quoted == c) {
+                            end++;
+                            break;
+                        } else {
+                            end++;
+                        }
+                    }
+                } else if (query.startsWith("--", i) || c == '#') {
+                    int lineEnd = query.indexOf('\n', i);
+                    i = lineEnd < 0 ? query.length() : lineEnd;
+                    sql.append(' ');
+                    continue;
+                } else if (query.startsWith("/*", i)) { // Block comments stay, they may be optimizer hints
+                    int commentEnd = query.indexOf("*/", i + 2);
+                    end = commentEnd < 0 ? query.length() : commentEnd + 2;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (Character.isLetter(c) || c == '_') {
+                    while (end < query.length() && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_' || query.charAt(end) == '$')) {
+                        end++;
+                    }
+                    if (depth == 0) {
+                        String word = query.substring(i, end).toUpperCase(Locale.ROOT);
+                        if (UNMERGEABLE_KEYWORDS.contains(word) || (word.equals("DISTINCT") && "SELECT".equals(previousWord))) {
+                            throw new IllegalArgumentException("Keyset pagination cannot be merged into a query with " + word
+                                    + ", use it as a subquery instead: " + query);
+                        }
+                        if (word.equals("WHERE")) {
+                            whereEnd = sql.length() + end - i;
+                        }
+                        previousWord = word;
+                    }
+                }
+                end = Math.min(end, query.length());
+                sql.append(query, i, end);
+                i = end;
+            }
+
+            int length = sql.length(); // Trimmed from the end only, so whereEnd stays valid
+            while (length > 0 && (Character.isWhitespace(sql.charAt(length - 1)) || sql.charAt(length - 1) == ';')) {
+                length--;
+            }
+            this.sql = sql.substring(0, length);
+            this.whereEnd = whereEnd;
+        }
+    }
+}
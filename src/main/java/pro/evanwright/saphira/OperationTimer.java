@@ -0,0 +1,80 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.metrics.DatabaseListener;
+import pro.evanwright.saphira.metrics.OperationEvent;
+import pro.evanwright.saphira.metrics.OperationType;
+
+/**
+ * Measures the phases of one {@link DatabaseClient} operation and reports them to a {@link DatabaseListener}.
+ * When no listener is set the shared {@link #DISABLED} timer is used, which neither reads the clock nor allocates.
+ */
+class OperationTimer {
+    static final OperationTimer DISABLED = new OperationTimer(null, OperationType.QUERY, null, null);
+
+    private final DatabaseListener listener;
+    private final OperationType type;
+    private final String sqlStatement;
+    private final Object[] params;
+    private final long started;
+    private long acquired, prepared, executed;
+
+    private OperationTimer(@Nullable DatabaseListener listener, @NotNull OperationType type, @Nullable String sqlStatement, @Nullable Object[] params) {
+        this.listener = listener;
+        this.type = type;
+        this.sqlStatement = sqlStatement;
+        this.params = params;
+        this.started = listener != null ? System.nanoTime() : 0;
+    }
+
+    static OperationTimer start(@Nullable DatabaseListener listener, @NotNull OperationType type, @Nullable String sqlStatement, @Nullable Object[] params) {
+        return listener != null ? new OperationTimer(listener, type, sqlStatement, params) : DISABLED;
+    }
+
+    void acquired() {
+        if (this.listener != null) {
+            this.acquired = System.nanoTime();
+        }
+    }
+
+    void prepared() {
+        if (this.listener != null) {
+            this.prepared = System.nanoTime();
+        }
+    }
+
+    void executed() {
+        if (this.listener != null) {
+            this.executed = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param rows The rows returned or affected, or -1 if unknown
+     */
+    void finish(long rows) {
+        if (this.listener != null) {
+            this.report(rows, null);
+        }
+    }
+
+    void fail(@NotNull Throwable error) {
+        if (this.listener != null) {
+            this.report(-1, error);
+        }
+    }
+
+    private void report(long rows, @Nullable Throwable error) {
+        long finished = System.nanoTime();
+        // A failed operation spends its remaining time in the phase it failed in, later phases take no time
+        long acquired = this.acquired != 0 ? this.acquired : finished;
+        long prepared = this.prepared != 0 ? this.prepared : finished;
+        long executed = this.executed != 0 ? this.executed : finished;
+
+        try {
+            this.listener.onOperation(new OperationEvent(this.type, this.sqlStatement, acquired - this.started,
+                    prepared - acquired, executed - prepared, finished - executed, rows, error, this.params));
+        } catch (RuntimeException ignored) {} // A failing listener must not fail the operation
+    }
+}
@@ -0,0 +1,24 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+
+/**
+ * Binds the parameters of a {@link StatementHandle} from an argument.  Binders that capture nothing, such as
+ * {@code (parameters, user) -> parameters.setLong("id", user.getId())}, are allocated once, so executing a
+ * handle with one allocates nothing on the calling side.
+ *
+ * @param <A> The type of the argument
+ */
+@FunctionalInterface
+public interface ParameterBinder<A> {
+    /**
+     * Sets the parameters of the statement.
+     *
+     * @param parameters The parameters of the statement about to be executed
+     * @param arg        The argument passed with the execution
+     * @throws SQLException If one occurs
+     */
+    void bind(@NotNull StatementParameters parameters, A arg) throws SQLException;
+}
@@ -0,0 +1,15 @@
+package pro.evanwright.saphira;
+
+/**
+ * How read-only queries are spread over the replicas configured in {@link DatabaseSettings}.
+ */
+public enum ReplicaBalancing {
+    /**
+     * Healthy replicas take turns.
+     */
+    ROUND_ROBIN,
+    /**
+     * The healthy replica with the fewest connections in use is chosen.
+     */
+    LEAST_LOADED
+}
@@ -0,0 +1,131 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A data container that describes how {@link DatabaseClient#executeTransaction(java.util.function.Supplier)}, and
+ * the batches that run through it, retry transactions that failed for a transient reason such as a deadlock.
+ * <p>
+ * A failed transaction is rolled back and its supplier is run again from the start on a new connection, so the
+ * supplier must not have side effects outside of the database.  Between attempts the thread sleeps for a random
+ * time up to an exponentially growing limit, which spreads out transactions that collided on the same rows.
+ *
+ * @see DatabaseClient#setRetryPolicy(RetryPolicy)
+ */
+public class RetryPolicy {
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final String SQL_STATE_SERIALIZATION_FAILURE = "40001";
+    private static final String SQL_STATE_DEADLOCK = "40P01";
+
+    /**
+     * The maximum number of times a transaction runs, including the first attempt.
+     */
+    public final int maxAttempts;
+
+    /**
+     * The backoff limit before the first retry, doubled for every following retry.
+     */
+    public final long baseBackoffMillis;
+
+    /**
+     * The highest backoff limit.
+     */
+    public final long maxBackoffMillis;
+
+    public RetryPolicy() {
+        this(3, 10, 1000);
+    }
+
+    public RetryPolicy(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        if (baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis) {
+            throw new IllegalArgumentException("baseBackoffMillis must not be negative or larger than maxBackoffMillis");
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Decides whether a failed transaction is worth running again.  Deadlocks, lock wait timeouts, serialization
+     * failures and other {@link SQLTransientException}s are, anywhere in the cause or next-exception chain.  Query
+     * timeouts and connection failures are not, since running again under the same load would fail the same way.
+     * Override this to retry other errors.
+     *
+     * @param error The error the transaction failed with
+     * @return True if the transaction should be retried
+     */
+    public boolean isRetryable(@NotNull Throwable error) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Throwable> pending = new ArrayDeque<>();
+        pending.add(error);
+        while (!pending.isEmpty()) {
+            Throwable cause = pending.poll();
+            if (!seen.add(cause)) {
+                continue;
+            }
+            if (cause.getCause() != null) {
+                pending.add(cause.getCause());
+            }
+            if (cause instanceof SQLException) {
+                SQLException exception = (SQLException) cause;
+                if (isTransient(exception)) {
+                    return true;
+                }
+                if (exception.getNextException() != null) {
+                    pending.add(exception.getNextException());
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param attempt The attempt that failed, starting at 1
+     * @return The time to wait before the next attempt, chosen at random up to the attempt's backoff limit
+     */
+    public long backoffMillis(int attempt) {
+        long limit = this.baseBackoffMillis << Math.min(attempt - 1, 30);
+        if (limit <= 0 || limit > this.maxBackoffMillis) {
+            limit = this.maxBackoffMillis;
+        }
+        return limit > 0 ? ThreadLocalRandom.current().nextLong(limit + 1) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseBackoffMillis=" + baseBackoffMillis +
+                ", maxBackoffMillis=" + maxBackoffMillis +
+                '}';
+    }
+
+    private static boolean isTransient(@NotNull SQLException exception) {
+        String sqlState = exception.getSQLState();
+        if (SQL_STATE_SERIALIZATION_FAILURE.equals(sqlState) || SQL_STATE_DEADLOCK.equals(sqlState)
+                || exception.getErrorCode() == MYSQL_DEADLOCK || exception.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT) {
+            return true; // Drivers report lock wait timeouts as timeouts too
+        }
+        if (exception instanceof SQLTimeoutException || exception instanceof SQLTransientConnectionException) {
+            return false;
+        }
+        return exception instanceof SQLTransactionRollbackException || exception instanceof SQLTransientException;
+    }
+}
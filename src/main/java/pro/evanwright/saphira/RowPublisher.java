@@ -0,0 +1,275 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.metrics.OperationType;
+import pro.evanwright.saphira.query.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A cold {@link Publisher} of the mapped rows of a query.  Every subscription runs the query on its own connection,
+ * opened on the first request, and reads rows from a forward-only cursor only as they are requested.
+ * <p>
+ * All work, including the calls to the subscriber, runs on the client's executor, one task at a time per
+ * subscription.  The connection stays checked out while the subscriber holds unfulfilled demand or is slow to request
+ * more, and is released after the last row, an error or cancellation.  Cancelling while the query executes
+ * also cancels the statement.
+ *
+ * @see DatabaseClient#queryPublisher(String, int, SQLConsumer, RowMapper)
+ */
+final class RowPublisher<T> implements Publisher<T> {
+    private final DatabaseClient client;
+    private final String sqlStatement;
+    private final int fetchSize;
+    private final SQLConsumer<PreparedStatement> psPreparer;
+    private final RowMapper<T> rowMapper;
+
+    RowPublisher(@NotNull DatabaseClient client, @NotNull String sqlStatement, int fetchSize,
+                 @Nullable SQLConsumer<PreparedStatement> psPreparer, @NotNull RowMapper<T> rowMapper) {
+        this.client = client;
+        this.sqlStatement = sqlStatement;
+        this.fetchSize = fetchSize;
+        this.psPreparer = psPreparer;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        new RowSubscription(subscriber).start();
+    }
+
+    private final class RowSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private final Runnable drainTask;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private volatile PreparedStatement executingStatement;
+
+        // Only touched by the drain, which runs on one thread at a time
+        private OperationTimer timer;
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private long rows;
+        private boolean done;
+
+        RowSubscription(@NotNull Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            Supplier<Void> drain = client.propagateContext(() -> { // Captured on the subscribing thread
+                this.drain();
+                return null;
+            });
+            this.drainTask = drain::get;
+        }
+
+        void start() {
+            this.pendingDrains.incrementAndGet(); // Keeps requests made inside onSubscribe from draining before it returns
+            try {
+                this.subscriber.onSubscribe(this);
+            } finally {
+                this.finishDrainPass(1);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.invalidRequest = new IllegalArgumentException("Requested " + n + " rows, the request must be positive (rule 3.9).");
+            } else {
+                long current;
+                do {
+                    current = this.requested.get();
+                } while (current != Long.MAX_VALUE && !this.requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            PreparedStatement executing = this.executingStatement;
+            if (executing != null) {
+                try {
+                    executing.cancel();
+                } catch (SQLException ignored) {} // The drain closes it regardless
+            }
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.pendingDrains.getAndIncrement() == 0) {
+                this.submit();
+            }
+        }
+
+        private void submit() {
+            try {
+                client.getExecutor().execute(this.drainTask);
+            } catch (RejectedExecutionException exception) {
+                this.drain(exception); // Nothing else is draining, this thread owns the subscription
+            }
+        }
+
+        private void drain() {
+            this.drain(null);
+        }
+
+        private void drain(@Nullable RejectedExecutionException rejection) {
+            int missed = 1;
+            do {
+                if (rejection != null) {
+                    this.fail(rejection);
+                } else {
+                    this.drainOnce();
+                }
+                missed = this.pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void finishDrainPass(int passes) {
+            if (this.pendingDrains.addAndGet(-passes) != 0) {
+                this.submit();
+            }
+        }
+
+        private void drainOnce() {
+            long requested = this.requested.get();
+            if (this.terminateIfRequested() || requested == 0) {
+                return;
+            }
+
+            try {
+                if (this.resultSet == null) {
+                    this.open();
+                }
+
+                long emitted = 0;
+                while (emitted != requested) {
+                    if (this.terminateIfRequested()) {
+                        return;
+                    }
+                    if (!this.resultSet.next()) {
+                        this.close();
+                        this.done = true;
+                        this.timer.finish(this.rows);
+                        this.subscriber.onComplete();
+                        return;
+                    }
+
+                    T row = rowMapper.map(this.resultSet);
+                    this.rows++;
+                    this.subscriber.onNext(row);
+                    emitted++;
+                }
+
+                if (requested != Long.MAX_VALUE) {
+                    this.requested.addAndGet(-emitted); // Demand that arrived meanwhile scheduled another pass
+                }
+            } catch (SQLException exception) {
+                this.fail(new UncheckedSQLException(exception));
+            } catch (RuntimeException exception) {
+                this.fail(exception);
+            }
+        }
+
+        /**
+         * @return True if the subscription is over, after releasing its resources if it was cancelled or misused
+         */
+        private boolean terminateIfRequested() {
+            if (this.done) {
+                return true;
+            }
+            if (this.cancelled) {
+                this.close();
+                if (this.timer != null) {
+                    this.timer.finish(this.rows);
+                }
+                this.done = true;
+                return true;
+            }
+            if (this.invalidRequest != null) {
+                this.fail(this.invalidRequest);
+                return true;
+            }
+            return false;
+        }
+
+        private void open() throws SQLException {
+            this.timer = client.startTimer(OperationType.QUERY_STREAMING, sqlStatement, psPreparer);
+            Deadline deadline = client.operationDeadline();
+            this.connection = client.getReadConnection(sqlStatement);
+            DatabaseClient.checkAcquired(deadline);
+            this.timer.acquired();
+
+            this.statement = this.connection.prepareStatement(sqlStatement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            client.configureStreamingStatement(this.statement, fetchSize);
+            if (psPreparer != null) {
+                psPreparer.accept(this.statement);
+            }
+            this.timer.prepared();
+
+            if (deadline != null) {
+                deadline.apply(this.statement);
+            }
+            this.executingStatement = this.statement;
+            try {
+                this.resultSet = this.statement.executeQuery();
+            } finally {
+                this.executingStatement = null;
+            }
+            this.timer.executed();
+        }
+
+        private void fail(@NotNull Throwable error) {
+            if (this.done) {
+                return;
+            }
+            this.close();
+            this.done = true;
+            if (this.timer != null) {
+                this.timer.fail(error);
+            }
+            if (!this.cancelled) {
+                this.subscriber.onError(error);
+            }
+        }
+
+        private void close() {
+            if (this.resultSet != null) {
+                try {
+                    this.resultSet.close();
+                } catch (SQLException ignored) {}
+                this.resultSet = null;
+            }
+            if (this.statement != null) {
+                try {
+                    this.statement.close();
+                } catch (SQLException ignored) {}
+                this.statement = null;
+            }
+            if (this.connection != null) {
+                try {
+                    this.connection.close();
+                } catch (SQLException ignored) {}
+                this.connection = null;
+            }
+        }
+    }
+}
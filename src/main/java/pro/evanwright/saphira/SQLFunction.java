@@ -0,0 +1,20 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+
+/**
+ * A {@link java.util.function.Function} that may throw a {@link SQLException}.
+ */
+@FunctionalInterface
+public interface SQLFunction<T, R> {
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param t The input argument
+     * @return The function result
+     * @throws SQLException If one occurs
+     */
+    R apply(@NotNull T t) throws SQLException;
+}
@@ -0,0 +1,272 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A driver-agnostic cache of {@link PreparedStatement}s, kept per physical connection and keyed by SQL text.
+ * <p>
+ * Statements are prepared on the connection underneath the pool's proxy, which would otherwise close them when the
+ * connection is returned, and each connection keeps at most a fixed number of them, closing the least recently used
+ * first.  A statement is taken out of the cache while it executes, so nested executions of the same SQL on one
+ * connection each get their own.  When the pool retires a connection the driver closes its statements, and the
+ * connection's entry is dropped the next time a new connection is seen.
+ * <p>
+ * Only use this for drivers without a statement cache of their own, such as H2; for MySQL the driver's
+ * {@code cachePrepStmts} setting, which {@link pro.evanwright.saphira.client.MySQLClient} enables, does the same.
+ *
+ * @see DatabaseClient#setStatementCache(StatementCache)
+ */
+public class StatementCache {
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, ConnectionStatements> connections;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxStatementsPerConnection The maximum number of statements cached for each connection
+     */
+    public StatementCache(int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection < 1) {
+            throw new IllegalArgumentException("maxStatementsPerConnection must be positive");
+        }
+
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+        this.connections = new IdentityHashMap<>();
+    }
+
+    /**
+     * Takes a cached statement for the SQL out of the cache, or prepares a new one.
+     *
+     * @param connection   The pooled connection the statement must run on
+     * @param sqlStatement The SQL statement
+     * @return The statement, with no parameters set, to be handed back to {@link #release}
+     * @throws SQLException If the statement could not be prepared
+     */
+    PreparedStatement acquire(@NotNull Connection connection, @NotNull String sqlStatement) throws SQLException {
+        Connection physical = unwrap(connection);
+        if (physical == null) {
+            this.missCount.incrementAndGet();
+            return connection.prepareStatement(sqlStatement);
+        }
+
+        ConnectionStatements statements = this.statementsOf(physical, false);
+        PreparedStatement statement = statements != null ? statements.take(sqlStatement) : null;
+        if (statement != null) {
+            this.hitCount.incrementAndGet();
+            return statement;
+        }
+
+        this.missCount.incrementAndGet();
+        return physical.prepareStatement(sqlStatement);
+    }
+
+    /**
+     * Returns a statement taken with {@link #acquire} to the cache, or closes it.
+     *
+     * @param connection   The pooled connection the statement was acquired for
+     * @param sqlStatement The SQL statement
+     * @param statement    The statement, which may have an open batch but no open result set
+     * @param reusable     False if the execution failed and the statement's state is unknown, which closes it
+     */
+    void release(@NotNull Connection connection, @NotNull String sqlStatement, @NotNull PreparedStatement statement, boolean reusable) {
+        Connection physical = reusable ? unwrap(connection) : null;
+        if (physical == null) {
+            closeQuietly(statement);
+            return;
+        }
+
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            if (statement.getMaxRows() != 0) {
+                statement.setMaxRows(0);
+            }
+            if (statement.getQueryTimeout() != 0) {
+                statement.setQueryTimeout(0);
+            }
+        } catch (SQLException exception) {
+            closeQuietly(statement);
+            return;
+        }
+        this.statementsOf(physical, true).put(sqlStatement, statement);
+    }
+
+    /**
+     * Closes every cached statement.  Statements executing while this is called are cached again when they finish.
+     */
+    public void clear() {
+        List<ConnectionStatements> statements;
+        synchronized (this.connections) {
+            statements = new ArrayList<>(this.connections.values());
+            this.connections.clear();
+        }
+        for (ConnectionStatements connectionStatements : statements) {
+            connectionStatements.closeAll();
+        }
+    }
+
+    /**
+     * @return The number of executions that reused a cached statement
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * @return The number of executions that prepared a new statement
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * @return The number of statements closed to make room for others
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return The fraction of executions that reused a cached statement, or zero before the first execution
+     */
+    public double getHitRate() {
+        long hits = this.hitCount.get();
+        long total = hits + this.missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return The number of statements currently cached over all connections
+     */
+    public int size() {
+        List<ConnectionStatements> statements;
+        synchronized (this.connections) {
+            statements = new ArrayList<>(this.connections.values());
+        }
+        int size = 0;
+        for (ConnectionStatements connectionStatements : statements) {
+            size += connectionStatements.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCache{" +
+                "maxStatementsPerConnection=" + maxStatementsPerConnection +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+
+    private ConnectionStatements statementsOf(@NotNull Connection physical, boolean create) {
+        synchronized (this.connections) {
+            ConnectionStatements statements = this.connections.get(physical);
+            if (statements == null && create) {
+                // Connections only change when the pool retires old ones, whose statements the driver already closed
+                this.connections.keySet().removeIf(StatementCache::isClosed);
+                statements = new ConnectionStatements();
+                this.connections.put(physical, statements);
+            }
+            return statements;
+        }
+    }
+
+    /**
+     * @return The driver's connection underneath any pool proxy, or null if it cannot be reached
+     */
+    @Nullable
+    private static Connection unwrap(@NotNull Connection connection) {
+        try {
+            return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : null;
+        } catch (SQLException exception) {
+            return null;
+        }
+    }
+
+    private static boolean isClosed(@NotNull Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException exception) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(@NotNull PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {}
+    }
+
+    /**
+     * The idle statements of one connection.  Only the thread holding the connection uses them, apart from
+     * {@link StatementCache#clear()} and {@link StatementCache#size()}, so the lock is uncontended.
+     */
+    private final class ConnectionStatements {
+        private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75F, true);
+
+        synchronized PreparedStatement take(@NotNull String sqlStatement) {
+            PreparedStatement statement = this.statements.remove(sqlStatement);
+            try {
+                return statement != null && !statement.isClosed() ? statement : null;
+            } catch (SQLException exception) {
+                return null;
+            }
+        }
+
+        void put(@NotNull String sqlStatement, @NotNull PreparedStatement statement) {
+            List<PreparedStatement> evicted = Collections.emptyList();
+            synchronized (this) {
+                PreparedStatement previous = this.statements.put(sqlStatement, statement);
+                if (previous != null && previous != statement) { // A nested execution of the same SQL finished first
+                    evicted = new ArrayList<>(1);
+                    evicted.add(previous);
+                }
+                Iterator<PreparedStatement> eldest = this.statements.values().iterator();
+                while (this.statements.size() > maxStatementsPerConnection) {
+                    if (evicted.isEmpty()) {
+                        evicted = new ArrayList<>(1);
+                    }
+                    evicted.add(eldest.next());
+                    eldest.remove();
+                }
+            }
+
+            evictionCount.addAndGet(evicted.size());
+            for (PreparedStatement evictedStatement : evicted) {
+                closeQuietly(evictedStatement);
+            }
+        }
+
+        synchronized int size() {
+            return this.statements.size();
+        }
+
+        void closeAll() {
+            List<PreparedStatement> statements;
+            synchronized (this) {
+                statements = new ArrayList<>(this.statements.values());
+                this.statements.clear();
+            }
+            for (PreparedStatement statement : statements) {
+                closeQuietly(statement);
+            }
+        }
+    }
+}
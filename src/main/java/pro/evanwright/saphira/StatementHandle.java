@@ -0,0 +1,318 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.query.QueryResult;
+import pro.evanwright.saphira.query.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A SQL statement compiled once for repeated execution through a {@link DatabaseClient}.
+ * <p>
+ * Named parameters such as {@code :id} are parsed when the handle is created and replaced by {@code ?}
+ * placeholders; {@code ?} placeholders can be used too.  Parameters are bound either positionally from an array, or
+ * through a {@link ParameterBinder} with the typed setters of {@link StatementParameters}, which neither boxes
+ * primitives nor allocates on the calling thread.
+ * <p>
+ * Handles are thread-safe and meant to be kept, for example in a static field.  The JDBC statement itself is
+ * prepared per execution; set a {@link StatementCache} on the client to reuse those too.
+ *
+ * @see DatabaseClient#prepare(String)
+ */
+public class StatementHandle {
+    private final DatabaseClient client;
+    private final String sqlStatement;
+    private final String parsedSqlStatement;
+    private final int[][] positions; // The placeholder positions of each parameter, in order of first appearance
+    private final Map<String, int[]> namedPositions;
+    private final int placeholderCount;
+    private final ThreadLocal<StatementParameters> parameters;
+
+    StatementHandle(@NotNull DatabaseClient client, @NotNull String sqlStatement) {
+        this.client = client;
+        this.sqlStatement = sqlStatement;
+
+        StringBuilder parsed = new StringBuilder(sqlStatement.length());
+        List<List<Integer>> positions = new ArrayList<>();
+        Map<String, List<Integer>> namedPositions = new LinkedHashMap<>();
+        int placeholder = 0;
+        int length = sqlStatement.length();
+        for (int i = 0; i < length; ) {
+            char c = sqlStatement.charAt(i);
+            int end = skipLiteralOrComment(sqlStatement, i);
+            if (end > i) {
+                parsed.append(sqlStatement, i, end);
+                i = end;
+            } else if (c == '?') {
+                positions.add(new ArrayList<>(Collections.singletonList(++placeholder)));
+                parsed.append('?');
+                i++;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(sqlStatement.charAt(i + 1))
+                    && (i == 0 || sqlStatement.charAt(i - 1) != ':')) {
+                int nameEnd = i + 2;
+                while (nameEnd < length && Character.isJavaIdentifierPart(sqlStatement.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String name = sqlStatement.substring(i + 1, nameEnd);
+                List<Integer> occurrences = namedPositions.get(name);
+                if (occurrences == null) {
+                    occurrences = new ArrayList<>();
+                    namedPositions.put(name, occurrences);
+                    positions.add(occurrences);
+                }
+                occurrences.add(++placeholder);
+                parsed.append('?');
+                i = nameEnd;
+            } else {
+                parsed.append(c);
+                i++;
+            }
+        }
+
+        this.parsedSqlStatement = parsed.toString();
+        this.placeholderCount = placeholder;
+        this.positions = new int[positions.size()][];
+        for (int i = 0; i < this.positions.length; i++) {
+            this.positions[i] = toArray(positions.get(i));
+        }
+        this.namedPositions = new LinkedHashMap<>();
+        namedPositions.forEach((name, occurrences) -> this.namedPositions.put(name, toArray(occurrences)));
+        this.parameters = ThreadLocal.withInitial(() -> new StatementParameters(this));
+    }
+
+    /**
+     * @param params The value of every parameter, in order of first appearance
+     * @see DatabaseClient#query(String, Object...)
+     */
+    public QueryResult query(@NotNull Object... params) throws UncheckedSQLException {
+        return this.client.query(this.parsedSqlStatement, this.expand(params));
+    }
+
+    /**
+     * @param arg    The argument passed to the binder
+     * @param binder The binder that sets the parameters
+     * @see DatabaseClient#query(String, SQLConsumer)
+     */
+    public <A> QueryResult query(A arg, @NotNull ParameterBinder<? super A> binder) throws UncheckedSQLException {
+        StatementParameters parameters = this.beginParameters(arg, binder);
+        try {
+            return this.client.query(this.parsedSqlStatement, parameters.preparer);
+        } finally {
+            parameters.end();
+        }
+    }
+
+    /**
+     * @see DatabaseClient#queryList(String, RowMapper, SQLConsumer)
+     */
+    public <A, T> List<T> queryList(A arg, @NotNull ParameterBinder<? super A> binder, @NotNull RowMapper<T> rowMapper) throws UncheckedSQLException {
+        StatementParameters parameters = this.beginParameters(arg, binder);
+        try {
+            return this.client.queryList(this.parsedSqlStatement, rowMapper, parameters.preparer);
+        } finally {
+            parameters.end();
+        }
+    }
+
+    /**
+     * @see DatabaseClient#queryFirst(String, RowMapper, SQLConsumer)
+     */
+    public <A, T> Optional<T> queryFirst(A arg, @NotNull ParameterBinder<? super A> binder, @NotNull RowMapper<T> rowMapper) throws UncheckedSQLException {
+        StatementParameters parameters = this.beginParameters(arg, binder);
+        try {
+            return this.client.queryFirst(this.parsedSqlStatement, rowMapper, parameters.preparer);
+        } finally {
+            parameters.end();
+        }
+    }
+
+    /**
+     * Does the same thing as {@link StatementHandle#query(Object, ParameterBinder)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     */
+    public <A> CompletableFuture<QueryResult> queryAsync(A arg, @NotNull ParameterBinder<? super A> binder) {
+        return this.client.supplyAsync(() -> this.query(arg, binder));
+    }
+
+    /**
+     * @param params The value of every parameter, in order of first appearance
+     * @see DatabaseClient#update(String, Object...)
+     */
+    public int update(@NotNull Object... params) throws UncheckedSQLException {
+        return this.client.update(this.parsedSqlStatement, this.expand(params));
+    }
+
+    /**
+     * @param arg    The argument passed to the binder
+     * @param binder The binder that sets the parameters
+     * @see DatabaseClient#update(String, SQLConsumer)
+     */
+    public <A> int update(A arg, @NotNull ParameterBinder<? super A> binder) throws UncheckedSQLException {
+        StatementParameters parameters = this.beginParameters(arg, binder);
+        try {
+            return this.client.update(this.parsedSqlStatement, parameters.preparer);
+        } finally {
+            parameters.end();
+        }
+    }
+
+    /**
+     * Does the same thing as {@link StatementHandle#update(Object, ParameterBinder)} except
+     * does everything asynchronously and returns a {@link CompletableFuture}.
+     */
+    public <A> CompletableFuture<Integer> updateAsync(A arg, @NotNull ParameterBinder<? super A> binder) {
+        return this.client.supplyAsync(() -> this.update(arg, binder));
+    }
+
+    /**
+     * Executes the statement once for every argument as one batch.
+     *
+     * @param args   The arguments, one batch entry each
+     * @param binder The binder that sets the parameters of one entry
+     * @see DatabaseClient#executeBatch(String, SQLConsumer)
+     */
+    public <A> int executeBatch(@NotNull Iterable<? extends A> args, @NotNull ParameterBinder<? super A> binder) throws UncheckedSQLException {
+        StatementParameters parameters = new StatementParameters(this);
+        return this.client.executeBatch(this.parsedSqlStatement, preparedStatement -> {
+            for (A arg : args) {
+                parameters.begin(arg, binder);
+                try {
+                    parameters.preparer.accept(preparedStatement);
+                } finally {
+                    parameters.end();
+                }
+                preparedStatement.addBatch();
+            }
+        });
+    }
+
+    /**
+     * @return The statement as written, with named parameters
+     */
+    public String getSqlStatement() {
+        return this.sqlStatement;
+    }
+
+    /**
+     * @return The statement as sent to the driver, with every parameter replaced by {@code ?}
+     */
+    public String getParsedSqlStatement() {
+        return this.parsedSqlStatement;
+    }
+
+    /**
+     * @return The number of parameters, a named parameter counting once
+     */
+    public int getParameterCount() {
+        return this.positions.length;
+    }
+
+    /**
+     * @return The names of the named parameters, in order of first appearance
+     */
+    public Set<String> getParameterNames() {
+        return Collections.unmodifiableSet(this.namedPositions.keySet());
+    }
+
+    int[] positionsOf(int index) {
+        if (index < 1 || index > this.positions.length) {
+            throw new IllegalArgumentException("Parameter index " + index + " is out of range for " + this.positions.length + " parameters.");
+        }
+        return this.positions[index - 1];
+    }
+
+    int[] positionsOf(@NotNull String name) {
+        int[] positions = this.namedPositions.get(name);
+        if (positions == null) {
+            throw new IllegalArgumentException("Unknown parameter :" + name + " in " + this.sqlStatement);
+        }
+        return positions;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementHandle{" +
+                "sqlStatement='" + sqlStatement + '\'' +
+                ", parameterCount=" + positions.length +
+                '}';
+    }
+
+    private <A> StatementParameters beginParameters(A arg, @NotNull ParameterBinder<? super A> binder) {
+        StatementParameters parameters = this.parameters.get();
+        if (!parameters.begin(arg, binder)) { // Executed again from a binder or row mapper of this handle
+            parameters = new StatementParameters(this);
+            parameters.begin(arg, binder);
+        }
+        return parameters;
+    }
+
+    /**
+     * Spreads the values of the parameters over their placeholder positions.
+     */
+    private Object[] expand(@NotNull Object[] params) {
+        if (params.length != this.positions.length) {
+            throw new IllegalArgumentException("Expected " + this.positions.length + " parameters but got " + params.length + ".");
+        }
+        if (this.placeholderCount == params.length) { // Every parameter appears once, in order
+            return params;
+        }
+
+        Object[] expanded = new Object[this.placeholderCount];
+        for (int i = 0; i < params.length; i++) {
+            for (int position : this.positions[i]) {
+                expanded[position - 1] = params[i];
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * @return The index after the string literal, quoted identifier or comment starting at the index, or the index itself
+     */
+    private static int skipLiteralOrComment(@NotNull String sqlStatement, int start) {
+        int length = sqlStatement.length();
+        char c = sqlStatement.charAt(start);
+        char next = start + 1 < length ? sqlStatement.charAt(start + 1) : 0;
+
+        if (c == '\'' || c == '"' || c == '`') {
+            for (int i = start + 1; i < length; i++) {
+                char current = sqlStatement.charAt(i);
+                if (current == '\\' && c != '`') {
+                    i++;
+                } else if (current == c) {
+                    if (i + 1 < length && sqlStatement.charAt(i + 1) == c) { // A doubled quote is an escaped quote
+                        i++;
+                    } else {
+                        return i + 1;
+                    }
+                }
+            }
+            return length;
+        }
+        if ((c == '-' && next == '-') || c == '#') {
+            int end = sqlStatement.indexOf('\n', start);
+            return end < 0 ? length : end;
+        }
+        if (c == '/' && next == '*') {
+            int end = sqlStatement.indexOf("*/", start + 2);
+            return end < 0 ? length : end + 2;
+        }
+        return start;
+    }
+
+    private static int[] toArray(@NotNull List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,168 @@
+package pro.evanwright.saphira;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Typed setters for the parameters of a {@link StatementHandle}, by index or by name.
+ * <p>
+ * Indexes are 1-based and count parameters in order of first appearance, a named parameter counting once however
+ * often it appears; for statements with only {@code ?} placeholders they are the usual JDBC indexes.  Setting a named
+ * parameter sets every occurrence of it.  Instances are reused between executions on the same thread and are only
+ * valid inside {@link ParameterBinder#bind}.
+ */
+public final class StatementParameters {
+    private final StatementHandle handle;
+    final SQLConsumer<PreparedStatement> preparer = this::bind; // Created once, so executions do not allocate one
+    private PreparedStatement statement;
+    private Object arg;
+    private ParameterBinder<Object> binder;
+
+    StatementParameters(@NotNull StatementHandle handle) {
+        this.handle = handle;
+    }
+
+    public StatementParameters setInt(int index, int value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setInt(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setInt(@NotNull String name, int value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setInt(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setLong(int index, long value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setLong(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setLong(@NotNull String name, long value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setLong(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setDouble(int index, double value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setDouble(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setDouble(@NotNull String name, double value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setDouble(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setBoolean(int index, boolean value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setBoolean(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setBoolean(@NotNull String name, boolean value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setBoolean(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setString(int index, @Nullable String value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setString(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setString(@NotNull String name, @Nullable String value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setString(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setObject(int index, @Nullable Object value) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setObject(position, value);
+        }
+        return this;
+    }
+
+    public StatementParameters setObject(@NotNull String name, @Nullable Object value) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setObject(position, value);
+        }
+        return this;
+    }
+
+    /**
+     * @param sqlType The type of the parameter, from {@link java.sql.Types}
+     */
+    public StatementParameters setNull(int index, int sqlType) throws SQLException {
+        for (int position : this.handle.positionsOf(index)) {
+            this.statement.setNull(position, sqlType);
+        }
+        return this;
+    }
+
+    /**
+     * @param sqlType The type of the parameter, from {@link java.sql.Types}
+     */
+    public StatementParameters setNull(@NotNull String name, int sqlType) throws SQLException {
+        for (int position : this.handle.positionsOf(name)) {
+            this.statement.setNull(position, sqlType);
+        }
+        return this;
+    }
+
+    /**
+     * @return The statement being bound, for setters not offered here.  Its indexes are placeholder positions.
+     */
+    public PreparedStatement getStatement() {
+        return this.statement;
+    }
+
+    /**
+     * Binds the argument and binder set by {@link #begin} to the statement.
+     */
+    private void bind(@NotNull PreparedStatement preparedStatement) throws SQLException {
+        this.statement = preparedStatement;
+        try {
+            this.binder.bind(this, this.arg);
+        } finally {
+            this.statement = null;
+        }
+    }
+
+    /**
+     * @return False if these parameters are already in use by an execution on this thread
+     */
+    @SuppressWarnings("unchecked")
+    <A> boolean begin(A arg, @NotNull ParameterBinder<? super A> binder) {
+        if (this.binder != null) {
+            return false;
+        }
+        this.arg = arg;
+        this.binder = (ParameterBinder<Object>) binder;
+        return true;
+    }
+
+    void end() {
+        this.arg = null;
+        this.binder = null;
+    }
+}
@@ -0,0 +1,13 @@
+package pro.evanwright.saphira.batch;
+
+/**
+ * Receives progress updates from a {@link BulkWriter} after every committed transaction.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+    /**
+     * @param rowsWritten  The number of rows written and committed so far
+     * @param rowsAffected The number of rows the database reported as affected so far
+     */
+    void onProgress(long rowsWritten, long rowsAffected);
+}
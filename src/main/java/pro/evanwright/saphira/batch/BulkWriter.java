@@ -0,0 +1,249 @@
+package pro.evanwright.saphira.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes large numbers of rows with multi-row {@code INSERT ... VALUES (...), (...)} statements.
+ * <p>
+ * Rows are grouped into statements of up to {@link #setRowsPerStatement(int) rowsPerStatement} rows (and never more
+ * than MySQL's 65,535 placeholders), cut short
+ * whenever the estimated statement size would exceed {@link #setMaxStatementBytes(int) maxStatementBytes} so it
+ * stays below the server's {@code max_allowed_packet}.  Statements are committed in transactions of up to
+ * {@link #setRowsPerTransaction(int) rowsPerTransaction} rows, so loading millions of rows neither needs one
+ * giant transaction nor a round trip per row.
+ * <pre>{@code
+ * new BulkWriter("PlayerData", "uuid", "coins")
+ *         .setUpsertClause("ON DUPLICATE KEY UPDATE coins = coins + VALUES(coins)")
+ *         .setProgressListener((written, affected) -> log("Wrote " + written + " rows"))
+ *         .write(client, rows);
+ * }</pre>
+ * Note that a failure rolls back only the transaction that failed; earlier transactions stay committed.
+ */
+public class BulkWriter {
+    private static final int DEFAULT_ROWS_PER_STATEMENT = 1000;
+    private static final int DEFAULT_ROWS_PER_TRANSACTION = 10000;
+    private static final int DEFAULT_MAX_STATEMENT_BYTES = 4 * 1024 * 1024; // The MySQL 5.7 max_allowed_packet default
+    private static final int ESTIMATED_VALUE_BYTES = 32;
+    private static final int MAX_PLACEHOLDERS = 65535; // MySQL's limit per prepared statement
+
+    private final String table;
+    private final String[] columns;
+    private String upsertClause;
+    private int rowsPerStatement;
+    private int rowsPerTransaction;
+    private int maxStatementBytes;
+    private BulkProgressListener progressListener;
+
+    /**
+     * @param table   The table to write to
+     * @param columns The columns every row provides values for, in order
+     */
+    public BulkWriter(@NotNull String table, @NotNull String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+
+        this.table = table;
+        this.columns = columns.clone();
+        this.rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+        this.rowsPerTransaction = DEFAULT_ROWS_PER_TRANSACTION;
+        this.maxStatementBytes = DEFAULT_MAX_STATEMENT_BYTES;
+    }
+
+    /**
+     * Turns the inserts into upserts, e.g. {@code ON DUPLICATE KEY UPDATE coins = VALUES(coins)}.
+     *
+     * @param upsertClause The clause appended after the {@code VALUES} list, or null for plain inserts
+     * @return This writer
+     */
+    public BulkWriter setUpsertClause(@Nullable String upsertClause) {
+        this.upsertClause = upsertClause;
+        return this;
+    }
+
+    /**
+     * @param rowsPerStatement The maximum number of rows in one multi-row statement
+     * @return This writer
+     */
+    public BulkWriter setRowsPerStatement(int rowsPerStatement) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("rowsPerStatement must be positive");
+        }
+        this.rowsPerStatement = rowsPerStatement;
+        return this;
+    }
+
+    /**
+     * @param rowsPerTransaction The maximum number of rows committed in one transaction
+     * @return This writer
+     */
+    public BulkWriter setRowsPerTransaction(int rowsPerTransaction) {
+        if (rowsPerTransaction < 1) {
+            throw new IllegalArgumentException("rowsPerTransaction must be positive");
+        }
+        this.rowsPerTransaction = rowsPerTransaction;
+        return this;
+    }
+
+    /**
+     * @param maxStatementBytes The estimated size a statement and its parameters must stay below,
+     *                          normally the server's {@code max_allowed_packet} minus some headroom
+     * @return This writer
+     */
+    public BulkWriter setMaxStatementBytes(int maxStatementBytes) {
+        if (maxStatementBytes < 1) {
+            throw new IllegalArgumentException("maxStatementBytes must be positive");
+        }
+        this.maxStatementBytes = maxStatementBytes;
+        return this;
+    }
+
+    /**
+     * @param progressListener The listener notified after every committed transaction, or null
+     * @return This writer
+     */
+    public BulkWriter setProgressListener(@Nullable BulkProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Writes every row.  This manages its own transactions, so it must not be called inside
+     * {@link DatabaseClient#executeTransaction}.
+     *
+     * @param client The client to write through
+     * @param rows   The rows, each holding one value per column
+     * @return The number of rows the database reported as affected
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public long write(@NotNull DatabaseClient client, @NotNull Iterable<? extends Object[]> rows) throws UncheckedSQLException {
+        return write(client, rows.iterator());
+    }
+
+    /**
+     * Writes every row the iterator returns.  Rows are pulled lazily, so at most one transaction's
+     * worth of rows is held in memory.
+     *
+     * @param client The client to write through
+     * @param rows   The rows, each holding one value per column
+     * @return The number of rows the database reported as affected
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public long write(@NotNull DatabaseClient client, @NotNull Iterator<? extends Object[]> rows) throws UncheckedSQLException {
+        int maxStatementRows = Math.min(this.rowsPerStatement, MAX_PLACEHOLDERS / this.columns.length);
+        String fullStatement = this.buildStatement(maxStatementRows);
+        int baseStatementBytes = this.buildStatement(0).length();
+        long rowsWritten = 0;
+        long rowsAffected = 0;
+
+        while (rows.hasNext()) {
+            List<List<Object[]>> transaction = this.nextTransaction(rows, maxStatementRows, baseStatementBytes);
+            int transactionRows = transaction.stream().mapToInt(List::size).sum();
+
+            rowsAffected += client.executeTransaction(() -> {
+                long affected = 0;
+                for (List<Object[]> statementRows : transaction) {
+                    String sqlStatement = statementRows.size() == maxStatementRows ? fullStatement : this.buildStatement(statementRows.size());
+                    affected += client.update(sqlStatement, preparedStatement -> this.bind(preparedStatement, statementRows));
+                }
+                return affected;
+            });
+            rowsWritten += transactionRows;
+
+            if (this.progressListener != null) {
+                this.progressListener.onProgress(rowsWritten, rowsAffected);
+            }
+        }
+        return rowsAffected;
+    }
+
+    private List<List<Object[]>> nextTransaction(Iterator<? extends Object[]> rows, int maxStatementRows, int baseStatementBytes) {
+        List<List<Object[]>> statements = new ArrayList<>();
+        List<Object[]> statementRows = new ArrayList<>();
+        int transactionRows = 0;
+        int statementBytes = baseStatementBytes;
+
+        while (rows.hasNext() && transactionRows < this.rowsPerTransaction) {
+            Object[] row = rows.next();
+            if (row.length != this.columns.length) {
+                throw new IllegalArgumentException("Expected " + this.columns.length + " values per row but got " + row.length + ": " + Arrays.toString(row));
+            }
+
+            int rowBytes = estimateBytes(row);
+            if (!statementRows.isEmpty() && (statementRows.size() == maxStatementRows || statementBytes + rowBytes > this.maxStatementBytes)) {
+                statements.add(statementRows);
+                statementRows = new ArrayList<>();
+                statementBytes = baseStatementBytes;
+            }
+
+            statementRows.add(row);
+            statementBytes += rowBytes;
+            transactionRows++;
+        }
+
+        if (!statementRows.isEmpty()) {
+            statements.add(statementRows);
+        }
+        return statements;
+    }
+
+    private void bind(PreparedStatement preparedStatement, List<Object[]> rows) throws SQLException {
+        int index = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                preparedStatement.setObject(index++, value);
+            }
+        }
+    }
+
+    private String buildStatement(int rowCount) {
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(this.table).append(" (");
+        builder.append(String.join(", ", this.columns)).append(") VALUES ");
+
+        StringBuilder placeholders = new StringBuilder("(");
+        for (int i = 0; i < this.columns.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        placeholders.append(')');
+
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(placeholders);
+        }
+
+        if (this.upsertClause != null) {
+            builder.append(' ').append(this.upsertClause);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Estimates the size of a row once its placeholders are sent to the server, erring on the large side.
+     */
+    private static int estimateBytes(Object[] row) {
+        int bytes = 4; // "(", ")", ", "
+        for (Object value : row) {
+            bytes += 3; // "?, "
+            if (value instanceof CharSequence) {
+                bytes += ((CharSequence) value).length() * 4; // Worst case for utf8mb4
+            } else if (value instanceof byte[]) {
+                bytes += ((byte[]) value).length * 2;
+            } else if (value != null) {
+                bytes += ESTIMATED_VALUE_BYTES;
+            }
+        }
+        return bytes;
+    }
+}
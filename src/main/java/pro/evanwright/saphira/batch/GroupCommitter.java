@@ -0,0 +1,305 @@
+package pro.evanwright.saphira.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.SQLConsumer;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Client-side group commit: concurrent updates with identical SQL are collected for a short window
+ * and executed on one connection in a single transaction, so the whole group shares one commit.
+ * <p>
+ * A group is written once it holds {@code maxBatchSize} statements or {@code windowMillis} after its first
+ * statement arrived, whichever comes first.  The statements are executed one after another rather than as a
+ * JDBC batch, because drivers that rewrite batches report {@link java.sql.Statement#SUCCESS_NO_INFO} instead of
+ * update counts; this way every caller gets its own update count back.  If the group fails every statement in
+ * it fails with the same error, since the transaction is rolled back as a whole.
+ * <p>
+ * A batch runs under the shortest timeout of its updates, and updates whose timeout passed before their batch
+ * started fail on their own.  Cancelling an update's future before its batch started leaves the update out of the
+ * batch; once the batch runs, its statements are only cancelled when every update in it has been cancelled.
+ *
+ * @see DatabaseClient#enableGroupCommit(long, int)
+ */
+public class GroupCommitter implements AutoCloseable {
+    private final DatabaseClient client;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    private final Object lock;
+    private final Map<String, List<PendingUpdate>> groups;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong statementCount;
+    private final AtomicLong batchCount;
+
+    /**
+     * @param client       The client the batches are executed through
+     * @param windowMillis How long a group waits for more statements
+     * @param maxBatchSize The number of statements that makes a group execute immediately
+     */
+    public GroupCommitter(@NotNull DatabaseClient client, long windowMillis, int maxBatchSize) {
+        if (windowMillis < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("windowMillis must not be negative and maxBatchSize must be positive");
+        }
+
+        this.client = client;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.lock = new Object();
+        this.groups = new HashMap<>();
+        this.statementCount = new AtomicLong();
+        this.batchCount = new AtomicLong();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Saphira Group Commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds an update to the group for its SQL statement.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param psPreparer   The preparer that sets the statement parameters; it must only set parameters
+     * @return A future that completes with the update count of this statement
+     */
+    public CompletableFuture<Integer> submit(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer) {
+        return this.submit(sqlStatement, psPreparer, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds an update that must be written within the timeout to the group for its SQL statement.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param psPreparer   The preparer that sets the statement parameters; it must only set parameters
+     * @param timeout      The time the update may take, including the wait for its group, or 0 for no limit
+     * @param unit         The unit of the timeout
+     * @return A future that completes with the update count of this statement
+     */
+    public CompletableFuture<Integer> submit(@NotNull String sqlStatement, @Nullable SQLConsumer<PreparedStatement> psPreparer,
+                                             long timeout, @NotNull TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        PendingUpdate update = new PendingUpdate(psPreparer, unit.toNanos(timeout));
+        List<PendingUpdate> readyGroup = null;
+
+        synchronized (this.lock) {
+            if (this.scheduler.isShutdown()) {
+                update.future.completeExceptionally(new RejectedExecutionException("The group committer has been closed."));
+                return update.future;
+            }
+
+            List<PendingUpdate> group = this.groups.get(sqlStatement);
+            if (group == null) {
+                group = new ArrayList<>();
+                this.groups.put(sqlStatement, group);
+                List<PendingUpdate> scheduledGroup = group;
+                this.scheduler.schedule(() -> this.flushIfPending(sqlStatement, scheduledGroup), this.windowMillis, TimeUnit.MILLISECONDS);
+            }
+
+            group.add(update);
+            if (group.size() >= this.maxBatchSize) {
+                this.groups.remove(sqlStatement);
+                readyGroup = group;
+            }
+        }
+
+        if (readyGroup != null) {
+            this.dispatch(sqlStatement, readyGroup);
+        }
+        return update.future;
+    }
+
+    /**
+     * Executes every pending group and stops accepting updates.
+     */
+    @Override
+    public void close() {
+        Map<String, List<PendingUpdate>> remaining;
+        synchronized (this.lock) {
+            this.scheduler.shutdownNow();
+            remaining = new HashMap<>(this.groups);
+            this.groups.clear();
+        }
+        remaining.forEach((sqlStatement, group) -> { // The client executor may already be draining, so run on this thread
+            Batch batch = this.start(group);
+            if (batch != null) {
+                try {
+                    batch.finish(this.runWithTimeout(batch, () -> this.client.executeTransaction(batch.writer(this.client, sqlStatement))), null);
+                } catch (RuntimeException exception) {
+                    batch.finish(null, exception);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The number of statements submitted
+     */
+    public long getStatementCount() {
+        return this.statementCount.get();
+    }
+
+    /**
+     * @return The number of batches executed
+     */
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    private void flushIfPending(String sqlStatement, List<PendingUpdate> group) {
+        synchronized (this.lock) {
+            if (this.groups.get(sqlStatement) != group) { // Already executed because it filled up
+                return;
+            }
+            this.groups.remove(sqlStatement);
+        }
+        this.dispatch(sqlStatement, group);
+    }
+
+    private void dispatch(String sqlStatement, List<PendingUpdate> group) {
+        Batch batch = this.start(group);
+        if (batch != null) {
+            batch.running = this.runWithTimeout(batch, () -> this.client.executeTransactionAsync(batch.writer(this.client, sqlStatement)));
+            batch.running.whenComplete(batch::finish);
+            batch.cancelIfAbandoned(); // Every update may have been cancelled before the batch was running
+        }
+    }
+
+    /**
+     * Leaves out the updates that were cancelled or ran out of time while they waited for the group.
+     *
+     * @return The batch of the remaining updates, or null if none remain
+     */
+    @Nullable
+    private Batch start(List<PendingUpdate> group) {
+        List<PendingUpdate> updates = new ArrayList<>(group.size());
+        long timeoutNanos = Long.MAX_VALUE;
+        for (PendingUpdate update : group) {
+            long remainingNanos = update.remainingNanos();
+            if (remainingNanos <= 0) {
+                update.future.completeExceptionally(new UncheckedSQLException(new SQLTimeoutException("The deadline passed while waiting for the group.")));
+            }
+            if (!update.future.isDone()) {
+                updates.add(update);
+                timeoutNanos = Math.min(timeoutNanos, remainingNanos);
+            }
+        }
+        if (updates.isEmpty()) {
+            return null;
+        }
+
+        this.statementCount.addAndGet(updates.size());
+        this.batchCount.incrementAndGet();
+        Batch batch = new Batch(updates, timeoutNanos);
+        updates.forEach(update -> update.future.batch = batch);
+        return batch;
+    }
+
+    private <T> T runWithTimeout(Batch batch, Supplier<T> operation) {
+        return batch.timeoutNanos == Long.MAX_VALUE ? operation.get() : this.client.withTimeout(batch.timeoutNanos, TimeUnit.NANOSECONDS, operation);
+    }
+
+    /**
+     * The updates of a group that are executed together.
+     */
+    private static final class Batch {
+        private final List<PendingUpdate> updates;
+        private final long timeoutNanos;
+        private volatile CompletableFuture<int[]> running;
+
+        private Batch(List<PendingUpdate> updates, long timeoutNanos) {
+            this.updates = updates;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        /**
+         * @return The transaction that executes every update and collects its update count
+         */
+        private Supplier<int[]> writer(DatabaseClient client, String sqlStatement) {
+            return () -> {
+                int[] updateCounts = new int[this.updates.size()];
+                for (int i = 0; i < updateCounts.length; i++) {
+                    updateCounts[i] = client.update(sqlStatement, this.updates.get(i).psPreparer);
+                }
+                return updateCounts;
+            };
+        }
+
+        private void finish(int[] updateCounts, Throwable error) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            for (int i = 0; i < this.updates.size(); i++) {
+                if (error != null) {
+                    this.updates.get(i).future.completeExceptionally(error);
+                } else {
+                    this.updates.get(i).future.complete(updateCounts[i]);
+                }
+            }
+        }
+
+        /**
+         * Cancels the batch's statement once nobody waits for its result.
+         */
+        private void cancelIfAbandoned() {
+            CompletableFuture<int[]> running = this.running;
+            if (running != null && this.updates.stream().allMatch(update -> update.future.isCancelled())) {
+                running.cancel(true);
+            }
+        }
+    }
+
+    private static final class PendingUpdate {
+        private final SQLConsumer<PreparedStatement> psPreparer;
+        private final long submitted;
+        private final long timeoutNanos;
+        private final UpdateFuture future;
+
+        private PendingUpdate(SQLConsumer<PreparedStatement> psPreparer, long timeoutNanos) {
+            this.psPreparer = psPreparer;
+            this.submitted = System.nanoTime();
+            this.timeoutNanos = timeoutNanos;
+            this.future = new UpdateFuture();
+        }
+
+        /**
+         * @return The time left before the update's timeout, or {@link Long#MAX_VALUE} if it has none
+         */
+        private long remainingNanos() {
+            return this.timeoutNanos == 0 ? Long.MAX_VALUE : this.timeoutNanos - (System.nanoTime() - this.submitted);
+        }
+    }
+
+    private static final class UpdateFuture extends CompletableFuture<Integer> {
+        private volatile Batch batch;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Batch batch = this.batch;
+            if (cancelled && batch != null) {
+                batch.cancelIfAbandoned();
+            }
+            return cancelled;
+        }
+    }
+}
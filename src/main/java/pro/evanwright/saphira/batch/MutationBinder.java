@@ -0,0 +1,26 @@
+package pro.evanwright.saphira.batch;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds a merged key and value to the parameters of a batched statement.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+@FunctionalInterface
+public interface MutationBinder<K, V> {
+    /**
+     * Sets the statement parameters for one key.  Do not call {@link PreparedStatement#addBatch()};
+     * the caller adds the batch entry.
+     *
+     * @param preparedStatement The statement to bind
+     * @param key               The key of the mutation
+     * @param value             The merged value of every pending mutation for the key
+     * @throws SQLException If one occurs
+     */
+    void bind(@NotNull PreparedStatement preparedStatement, @NotNull K key, V value) throws SQLException;
+}
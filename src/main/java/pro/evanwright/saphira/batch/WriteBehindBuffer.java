@@ -0,0 +1,233 @@
+package pro.evanwright.saphira.batch;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.DatabaseClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+
+/**
+ * A write-behind buffer that coalesces mutations to hot keys and writes them in batches.
+ * <p>
+ * Every submitted mutation is merged with the pending mutation for the same key using the merge function,
+ * for example {@code Integer::sum} to add up deltas or {@code (previous, next) -> next} to keep the last write.
+ * The buffer is flushed through {@link DatabaseClient#executeBatch} in a single transaction once
+ * {@code flushSize} keys are pending or every {@code flushIntervalMillis}, whichever comes first.
+ * <pre>{@code
+ * WriteBehindBuffer<UUID, Integer> coins = new WriteBehindBuffer<>(client,
+ *         "INSERT INTO PlayerData (uuid, coins) VALUES (?, ?) ON DUPLICATE KEY UPDATE coins = coins + VALUES(coins)",
+ *         (ps, uuid, delta) -> { ps.setString(1, uuid.toString()); ps.setInt(2, delta); },
+ *         Integer::sum, 500, 10000, 1000);
+ * coins.submit(uuid, 100);
+ * }</pre>
+ * The future returned for a mutation completes once the batch containing it has been committed, or
+ * exceptionally if that batch failed, in which case the mutation is not retried.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class WriteBehindBuffer<K, V> implements AutoCloseable {
+    private final DatabaseClient client;
+    private final String sqlStatement;
+    private final MutationBinder<K, V> binder;
+    private final BinaryOperator<V> merger;
+    private final int flushSize;
+    private final int maxPendingKeys;
+
+    private final Object lock;
+    private final Object flushLock;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong submittedCount;
+    private final AtomicLong writtenCount;
+    private Map<K, PendingMutation<V>> pending;
+    private boolean flushScheduled;
+    private volatile boolean closed;
+
+    /**
+     * @param client              The client to write through
+     * @param sqlStatement        The statement executed once per pending key
+     * @param binder              The binder that sets the statement parameters for a key
+     * @param merger              The function that merges a new value into the pending value of a key
+     * @param flushSize           The number of pending keys that triggers a flush; above maxPendingKeys, only the interval
+     *                            and a full buffer trigger one
+     * @param maxPendingKeys      The maximum number of pending keys; submitters wait for a flush when it is reached
+     * @param flushIntervalMillis The maximum time between flushes
+     */
+    public WriteBehindBuffer(@NotNull DatabaseClient client, @NotNull String sqlStatement, @NotNull MutationBinder<K, V> binder,
+                             @NotNull BinaryOperator<V> merger, int flushSize, int maxPendingKeys, long flushIntervalMillis) {
+        if (flushSize < 1 || maxPendingKeys < 1) {
+            throw new IllegalArgumentException("flushSize and maxPendingKeys must be positive");
+        }
+
+        this.client = client;
+        this.sqlStatement = sqlStatement;
+        this.binder = binder;
+        this.merger = merger;
+        this.flushSize = flushSize;
+        this.maxPendingKeys = maxPendingKeys;
+
+        this.lock = new Object();
+        this.flushLock = new Object();
+        this.submittedCount = new AtomicLong();
+        this.writtenCount = new AtomicLong();
+        this.pending = new LinkedHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Saphira Write-Behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Merges a mutation into the buffer.
+     *
+     * @param key   The key the mutation applies to
+     * @param value The value of the mutation
+     * @return A future that completes once the mutation has been committed
+     */
+    public CompletableFuture<Void> submit(@NotNull K key, V value) {
+        PendingMutation<V> mutation;
+        synchronized (this.lock) {
+            while (true) {
+                if (this.closed) {
+                    return failed(new IllegalStateException("The write-behind buffer has been closed."));
+                }
+
+                mutation = this.pending.get(key);
+                if (mutation != null) {
+                    mutation.value = this.merger.apply(mutation.value, value);
+                    break;
+                }
+                if (this.pending.size() < this.maxPendingKeys) {
+                    mutation = new PendingMutation<>(value);
+                    this.pending.put(key, mutation);
+                    if (this.pending.size() >= this.flushSize) {
+                        this.scheduleFlush();
+                    }
+                    break;
+                }
+
+                // The buffer is full, so wait for the scheduler to write it.  Flushing here instead would fail if the
+                // submitter is inside a transaction, taking every other caller's mutations down with it.
+                this.scheduleFlush();
+                try {
+                    this.lock.wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return failed(exception);
+                }
+            }
+        }
+
+        this.submittedCount.incrementAndGet();
+        return mutation.future.thenApply(ignored -> null); // Callers must not be able to complete the shared future
+    }
+
+    /**
+     * Writes every pending mutation and waits for the batch to be committed.  Failures complete the
+     * futures of the affected mutations exceptionally instead of being thrown.
+     */
+    public void flush() {
+        synchronized (this.flushLock) { // Flushes run one at a time so writes to a key stay in order
+            Map<K, PendingMutation<V>> batch;
+            synchronized (this.lock) {
+                this.flushScheduled = false;
+                if (this.pending.isEmpty()) {
+                    return;
+                }
+                batch = this.pending;
+                this.pending = new LinkedHashMap<>();
+            }
+
+            try {
+                this.client.executeBatch(this.sqlStatement, preparedStatement -> {
+                    for (Map.Entry<K, PendingMutation<V>> entry : batch.entrySet()) {
+                        this.binder.bind(preparedStatement, entry.getKey(), entry.getValue().value);
+                        preparedStatement.addBatch();
+                    }
+                });
+                this.writtenCount.addAndGet(batch.size());
+                batch.values().forEach(mutation -> mutation.future.complete(null));
+            } catch (RuntimeException exception) {
+                batch.values().forEach(mutation -> mutation.future.completeExceptionally(exception));
+            }
+            synchronized (this.lock) {
+                this.lock.notifyAll(); // Wakes submitters waiting for room
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes every pending mutation.  Mutations submitted afterwards are rejected.
+     */
+    @Override
+    public void close() {
+        synchronized (this.lock) {
+            this.closed = true;
+            this.lock.notifyAll();
+        }
+        this.scheduler.shutdown();
+        try {
+            this.scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    /**
+     * @return The number of keys waiting to be written
+     */
+    public int getPendingCount() {
+        synchronized (this.lock) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * @return The number of mutations submitted to this buffer
+     */
+    public long getSubmittedCount() {
+        return this.submittedCount.get();
+    }
+
+    /**
+     * @return The number of statements written after coalescing
+     */
+    public long getWrittenCount() {
+        return this.writtenCount.get();
+    }
+
+    /**
+     * Hands a flush to the scheduler unless one is already waiting to run.  Must hold the lock.
+     */
+    private void scheduleFlush() {
+        if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            this.scheduler.execute(this::flush);
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static final class PendingMutation<V> {
+        private final CompletableFuture<Void> future;
+        private V value;
+
+        private PendingMutation(V value) {
+            this.future = new CompletableFuture<>();
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package pro.evanwright.saphira.client;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * An {@link InputStream} that encodes rows into the delimited text format read by {@code LOAD DATA}
+ * as the driver reads it, so no temporary file or full in-memory copy is needed.
+ * <p>
+ * Values are written with {@link Object#toString()} (booleans as {@code 1}/{@code 0}) in UTF-8, byte arrays as
+ * their raw bytes, nulls as {@code \N}, and the escape character, terminators and control characters are escaped.
+ * The statement must read the data as {@code CHARACTER SET binary}, so binary values are not decoded as text.
+ */
+final class DelimitedRowInputStream extends InputStream {
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Iterator<? extends Object[]> rows;
+    private final LoadDataFormat format;
+    private final int maxRows;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int rowCount;
+
+    /**
+     * @param rows    The rows to encode; only as many as needed are pulled
+     * @param format  The encoding
+     * @param maxRows The number of rows after which the stream ends even if more rows are available
+     */
+    DelimitedRowInputStream(Iterator<? extends Object[]> rows, LoadDataFormat format, int maxRows) {
+        this.rows = rows;
+        this.format = format;
+        this.maxRows = maxRows;
+        this.buffer = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    /**
+     * @return The number of rows encoded so far
+     */
+    int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int read() {
+        if (!this.fill()) {
+            return -1;
+        }
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.fill()) {
+            return -1;
+        }
+
+        int count = Math.min(length, this.limit - this.position);
+        System.arraycopy(this.buffer, this.position, bytes, offset, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.limit - this.position;
+    }
+
+    /**
+     * Encodes the next row into the buffer once the previous one has been read.
+     *
+     * @return False once every row has been read
+     */
+    private boolean fill() {
+        while (this.position == this.limit) {
+            if (this.rowCount >= this.maxRows || !this.rows.hasNext()) {
+                return false;
+            }
+
+            this.encode(this.rows.next());
+            this.rowCount++;
+        }
+        return true;
+    }
+
+    private void encode(Object[] row) {
+        this.position = 0;
+        this.limit = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                this.write((byte) this.format.fieldTerminator);
+            }
+
+            Object value = row[i];
+            if (value == null) {
+                this.write((byte) this.format.escapeCharacter);
+                this.write((byte) 'N');
+            } else if (value instanceof Boolean) {
+                this.write((byte) ((Boolean) value ? '1' : '0'));
+            } else if (value instanceof byte[]) {
+                this.escape((byte[]) value);
+            } else {
+                this.escape(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        this.write((byte) this.format.lineTerminator);
+    }
+
+    /**
+     * Writes the bytes of a value, escaping the special characters.  Those are all ASCII, and UTF-8 never uses
+     * ASCII bytes inside a multi-byte character, so text can be escaped byte by byte like binary values.
+     */
+    private void escape(byte[] value) {
+        for (byte b : value) {
+            if (b == this.format.escapeCharacter || b == this.format.fieldTerminator || b == this.format.lineTerminator
+                    || b == '\0' || b == '\n' || b == '\r' || b == '\t') {
+                this.write((byte) this.format.escapeCharacter);
+                this.write((byte) escapeSequence((char) b));
+            } else {
+                this.write(b);
+            }
+        }
+    }
+
+    private void write(byte b) {
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        this.buffer[this.limit++] = b;
+    }
+
+    /**
+     * @return The character that follows the escape character to represent the given character
+     */
+    private static char escapeSequence(char character) {
+        switch (character) {
+            case '\0':
+                return '0';
+            case '\n':
+                return 'n';
+            case '\r':
+                return 'r';
+            case '\t':
+                return 't';
+            default:
+                return character;
+        }
+    }
+}
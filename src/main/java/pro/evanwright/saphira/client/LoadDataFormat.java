@@ -0,0 +1,78 @@
+package pro.evanwright.saphira.client;
+
+/**
+ * A data container that describes how rows are encoded for {@link MySQLClient#loadData}.
+ * The defaults match MySQL's own defaults for {@code LOAD DATA}: tab separated fields, newline
+ * terminated lines and backslash escapes.  All three must be ASCII characters.
+ */
+public class LoadDataFormat {
+    private static final int DEFAULT_ROWS_PER_STATEMENT = 100000;
+
+    public final char fieldTerminator, lineTerminator, escapeCharacter;
+
+    /**
+     * The number of rows sent with one {@code LOAD DATA} statement.  Every statement commits on its own,
+     * which keeps the server's undo log bounded for very large imports.
+     */
+    public final int rowsPerStatement;
+
+    public LoadDataFormat() {
+        this('\t', '\n', '\\', DEFAULT_ROWS_PER_STATEMENT);
+    }
+
+    public LoadDataFormat(int rowsPerStatement) {
+        this('\t', '\n', '\\', rowsPerStatement);
+    }
+
+    public LoadDataFormat(char fieldTerminator, char lineTerminator, char escapeCharacter, int rowsPerStatement) {
+        if (fieldTerminator == lineTerminator || fieldTerminator == escapeCharacter || lineTerminator == escapeCharacter) {
+            throw new IllegalArgumentException("The field terminator, line terminator and escape character must differ");
+        }
+        if (fieldTerminator > 0x7F || lineTerminator > 0x7F || escapeCharacter > 0x7F) {
+            throw new IllegalArgumentException("The field terminator, line terminator and escape character must be ASCII");
+        }
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("rowsPerStatement must be positive");
+        }
+
+        this.fieldTerminator = fieldTerminator;
+        this.lineTerminator = lineTerminator;
+        this.escapeCharacter = escapeCharacter;
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    /**
+     * @return The {@code FIELDS ... LINES ...} clause of a {@code LOAD DATA} statement for this format
+     */
+    String toClause() {
+        return "FIELDS TERMINATED BY '" + quote(this.fieldTerminator) + "' ESCAPED BY '" + quote(this.escapeCharacter) +
+                "' LINES TERMINATED BY '" + quote(this.lineTerminator) + "'";
+    }
+
+    private static String quote(char character) {
+        switch (character) {
+            case '\t':
+                return "\\t";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\\':
+                return "\\\\";
+            case '\'':
+                return "\\'";
+            default:
+                return String.valueOf(character);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LoadDataFormat{" +
+                "fieldTerminator=" + (int) fieldTerminator +
+                ", lineTerminator=" + (int) lineTerminator +
+                ", escapeCharacter=" + (int) escapeCharacter +
+                ", rowsPerStatement=" + rowsPerStatement +
+                '}';
+    }
+}
@@ -2,40 +2,275 @@ package pro.evanwright.saphira.client;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import pro.evanwright.saphira.DatabaseClient;
 import org.jetbrains.annotations.NotNull;
 import pro.evanwright.saphira.DatabaseSettings;
+import pro.evanwright.saphira.ReplicaBalancing;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.query.SQLStatements;
 
+import java.io.InputStream;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * A {@link DatabaseClient} for accessing a MySQL or MariaDB database.
+ * <p>
+ * When {@link DatabaseSettings#addReplica(String) replicas} are configured, read-only statements outside of
+ * transactions are balanced over them, while writes and transactions always use the primary.
   */
 public class MySQLClient extends DatabaseClient {
     private static final String NEW_MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
     private static final String LEGACY_MYSQL_DRIVER = "com.mysql.jdbc.Driver";
+    private static final String[] LOCAL_INFILE_STATEMENT_CLASSES = {
+            "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement", "org.mariadb.jdbc.Statement", "org.mariadb.jdbc.MariaDbStatement"
+    };
+    private static final long REPLICA_CONNECTION_TIMEOUT_MILLIS = 5000;
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+    private static final long REPLICA_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
 
     private final HikariDataSource hikariDataSource;
+    private final boolean mariaDb;
+    private final boolean allowLocalInfile;
+    private final Replica[] replicas;
+    private final ReplicaBalancing replicaBalancing;
+    private final long readYourWritesNanos;
+    private final ThreadLocal<AtomicLong> primaryPin; // Per caller: until when reads go to the primary, in System.nanoTime()
+    private final AtomicInteger nextReplica;
+    private final ScheduledExecutorService healthChecker;
 
     /**
      * Creates a new MySQLClient instance.
      * @param databaseSettings  The settings required to set up the database instance
      */
     public MySQLClient(@NotNull DatabaseSettings databaseSettings) {
-        HikariConfig hikariConfig = new HikariConfig();
+        this(databaseSettings, new ExecutorSettings());
+    }
+
+    /**
+     * Creates a new MySQLClient instance.
+     * @param databaseSettings  The settings required to set up the database instance
+     * @param executorSettings  The settings of the executor asynchronous operations run on
+     */
+    public MySQLClient(@NotNull DatabaseSettings databaseSettings, @NotNull ExecutorSettings executorSettings) {
+        super(executorSettings);
         boolean foundMaria = false;
         try {
             Class.forName("org.mariadb.jdbc.Driver");
-            hikariConfig.setJdbcUrl(String.format("jdbc:mariadb://%s:%s/%s", databaseSettings.host, databaseSettings.port, databaseSettings.database));
             foundMaria = true;
-        } catch (ClassNotFoundException e) {
-            hikariConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%s/%s", databaseSettings.host, databaseSettings.port, databaseSettings.database));
+        } catch (ClassNotFoundException ignored) {}
+
+        this.mariaDb = foundMaria;
+        this.allowLocalInfile = databaseSettings.isAllowLocalInfile();
+        this.hikariDataSource = new HikariDataSource(this.createHikariConfig(databaseSettings,
+                databaseSettings.host + ":" + databaseSettings.port, databaseSettings.poolName));
+
+        List<String> replicaHosts = databaseSettings.getReplicaHosts();
+        this.replicas = new Replica[replicaHosts.size()];
+        for (int i = 0; i < this.replicas.length; i++) {
+            HikariConfig hikariConfig = this.createHikariConfig(databaseSettings, replicaHosts.get(i), databaseSettings.poolName + " Replica " + (i + 1));
+            hikariConfig.setReadOnly(true);
+            hikariConfig.setInitializationFailTimeout(-1); // Start even if the replica is down, the health check takes it out of rotation
+            hikariConfig.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MILLIS);
+            this.replicas[i] = new Replica(new HikariDataSource(hikariConfig));
+        }
+        this.replicaBalancing = databaseSettings.getReplicaBalancing();
+        this.readYourWritesNanos = this.replicas.length > 0 ? TimeUnit.MILLISECONDS.toNanos(databaseSettings.getReadYourWritesMillis()) : 0;
+        this.primaryPin = ThreadLocal.withInitial(() -> new AtomicLong(System.nanoTime()));
+        this.nextReplica = new AtomicInteger();
+
+        if (this.replicas.length > 0 && databaseSettings.getReplicaHealthCheckMillis() > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Saphira Replica Health Check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, databaseSettings.getReplicaHealthCheckMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    /**
+     * Drains the asynchronous executor and shuts down the internal {@link com.zaxxer.hikari.pool.HikariPool}.
+     * This should be called when the instance is no longer needed.
+     */
+    @Override
+    public void shutdown() {
+        this.shutdownExecutor();
+        if (this.healthChecker != null) {
+            this.healthChecker.shutdownNow();
+        }
+        for (Replica replica : this.replicas) {
+            replica.dataSource.close();
+        }
+        this.hikariDataSource.close();
+    }
+
+    /**
+     * @return The number of replicas currently in rotation
+     */
+    public int getHealthyReplicaCount() {
+        int healthy = 0;
+        for (Replica replica : this.replicas) {
+            if (replica.isAvailable()) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return this.hikariDataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * Imports rows with {@code LOAD DATA LOCAL INFILE}, which is much faster than batched inserts for very large
+     * imports.  Rows are encoded into tab separated text as the driver reads them and handed to the driver's
+     * local infile input stream hook, so nothing is written to disk.
+     *
+     * @param table   The table to import into
+     * @param columns The columns every row provides values for, in order
+     * @param rows    The rows to import
+     * @return The number of rows the server reported as imported
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     * @see MySQLClient#loadData(String, String[], Iterator, LoadDataFormat)
+     */
+    public long loadData(@NotNull String table, @NotNull String[] columns, @NotNull Iterator<? extends Object[]> rows) throws UncheckedSQLException {
+        return loadData(table, columns, rows, new LoadDataFormat());
+    }
+
+    /**
+     * Imports rows with {@code LOAD DATA LOCAL INFILE}, which is much faster than batched inserts for very large
+     * imports.  Rows are encoded as the driver reads them and handed to the driver's local infile input stream
+     * hook, so nothing is written to disk.  Text is sent as UTF-8 and byte arrays as their raw bytes, which the
+     * server stores without conversion.
+     * <p>
+     * Every {@link LoadDataFormat#rowsPerStatement} rows are sent as a separate statement on a pooled connection
+     * and commit on their own; this does not take part in {@link #executeTransaction}.  Requires
+     * {@link DatabaseSettings#setAllowLocalInfile(boolean)} and {@code local_infile} enabled on the server.
+     *
+     * @param table   The table to import into
+     * @param columns The columns every row provides values for, in order
+     * @param rows    The rows to import
+     * @param format  The encoding and chunking of the rows
+     * @return The number of rows the server reported as imported
+     * @throws UncheckedSQLException If a {@link SQLException} occurs
+     */
+    public long loadData(@NotNull String table, @NotNull String[] columns, @NotNull Iterator<? extends Object[]> rows, @NotNull LoadDataFormat format) throws UncheckedSQLException {
+        if (!this.allowLocalInfile) {
+            throw new IllegalStateException("LOAD DATA LOCAL INFILE is disabled, see DatabaseSettings#setAllowLocalInfile.");
         }
+
+        String sqlStatement = "LOAD DATA LOCAL INFILE 'saphira-stream' INTO TABLE " + table + " CHARACTER SET binary " +
+                format.toClause() + " (" + String.join(", ", columns) + ")";
+        long imported = 0;
+        while (rows.hasNext()) {
+            try (Connection connection = this.getConnection(); Statement statement = connection.createStatement()) {
+                DelimitedRowInputStream inputStream = new DelimitedRowInputStream(rows, format, format.rowsPerStatement);
+                setLocalInfileInputStream(statement, inputStream);
+                imported += statement.executeUpdate(sqlStatement);
+            } catch (SQLException exception) {
+                throw new UncheckedSQLException(exception);
+            } finally {
+                if (this.getQueryCache() != null) {
+                    this.getQueryCache().invalidate(sqlStatement);
+                }
+            }
+        }
+        this.afterWrite();
+        return imported;
+    }
+
+    /**
+     * Sends read-only statements to a healthy replica, unless the caller is pinned to the primary by a recent write.
+     * If the replica cannot hand out a connection it is taken out of rotation until its next health check passes,
+     * or for a backoff period when health checks are disabled.
+     */
+    @Override
+    protected Connection getReadConnection(@NotNull String sqlStatement) throws SQLException {
+        if (this.replicas.length == 0 || this.isPinnedToPrimary() || !SQLStatements.isReadOnly(sqlStatement)) {
+            return this.getConnection();
+        }
+
+        Replica replica = this.chooseReplica();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException exception) {
+                if (this.healthChecker != null) {
+                    replica.healthy = false;
+                } else { // No health check would ever restore it, so try it again after a while
+                    replica.retryAt = System.nanoTime() + REPLICA_RETRY_BACKOFF_NANOS;
+                }
+            }
+        }
+        return this.getConnection();
+    }
+
+    @Override
+    protected void afterWrite() {
+        if (this.readYourWritesNanos > 0) {
+            this.primaryPin.get().set(System.nanoTime() + this.readYourWritesNanos);
+        }
+    }
+
+    /**
+     * Shares the caller's primary pin with the worker, so asynchronous writes pin the caller and asynchronous reads
+     * respect the caller's pin.
+     */
+    @Override
+    protected <T> Supplier<T> propagateContext(@NotNull Supplier<T> task) {
+        if (this.readYourWritesNanos <= 0) {
+            return task;
+        }
+
+        AtomicLong callerPin = this.primaryPin.get();
+        return () -> {
+            AtomicLong workerPin = this.primaryPin.get();
+            this.primaryPin.set(callerPin);
+            try {
+                return task.get();
+            } finally {
+                this.primaryPin.set(workerPin);
+            }
+        };
+    }
+
+    /**
+     * Puts the driver into its row streaming mode.  MySQL Connector/J only streams when the fetch size is
+     * {@link Integer#MIN_VALUE} (positive fetch sizes are ignored without {@code useCursorFetch}), while the
+     * MariaDB driver streams natively in chunks of the requested size.
+     */
+    @Override
+    protected void configureStreamingStatement(@NotNull PreparedStatement statement, int fetchSize) throws SQLException {
+        if (this.mariaDb) {
+            statement.setFetchSize(Math.max(fetchSize, 1));
+        } else {
+            statement.setFetchSize(Integer.MIN_VALUE);
+        }
+    }
+
+    private HikariConfig createHikariConfig(DatabaseSettings databaseSettings, String hostAndPort, String poolName) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(String.format(this.mariaDb ? "jdbc:mariadb://%s/%s" : "jdbc:mysql://%s/%s", hostAndPort, databaseSettings.database));
         hikariConfig.setUsername(databaseSettings.username);
         hikariConfig.setPassword(databaseSettings.password);
 
-        hikariConfig.setPoolName(databaseSettings.poolName);
+        hikariConfig.setPoolName(poolName);
 
         hikariConfig.addDataSourceProperty("useUnicode", "true");
         hikariConfig.addDataSourceProperty("characterEncoding", "utf8");
@@ -57,7 +292,11 @@ public class MySQLClient extends DatabaseClient {
             hikariConfig.addDataSourceProperty("alwaysSendSetIsolation", false);
         }
 
-        if (!foundMaria) {
+        if (databaseSettings.isAllowLocalInfile()) {
+            hikariConfig.addDataSourceProperty(this.mariaDb ? "allowLocalInfile" : "allowLoadLocalInfile", true);
+        }
+
+        if (!this.mariaDb) {
             try {
                 Class.forName(NEW_MYSQL_DRIVER);
             } catch (ClassNotFoundException exception) {
@@ -69,17 +308,86 @@ public class MySQLClient extends DatabaseClient {
                 }
             }
         }
+        return hikariConfig;
+    }
 
-        this.hikariDataSource = new HikariDataSource(hikariConfig);
+    private boolean isPinnedToPrimary() {
+        return this.readYourWritesNanos > 0 && System.nanoTime() - this.primaryPin.get().get() < 0;
     }
 
-    /**
-     * Shuts down the internal {@link com.zaxxer.hikari.pool.HikariPool}.
-     * This should be called when the instance is no longer needed.
-     */
-    @Override
-    public void shutdown() {
-        this.hikariDataSource.close();
+    private Replica chooseReplica() {
+        if (this.replicaBalancing == ReplicaBalancing.LEAST_LOADED) {
+            Replica leastLoaded = null;
+            int leastActive = Integer.MAX_VALUE;
+            for (Replica replica : this.replicas) {
+                int active = replica.getActiveConnections();
+                if (replica.isAvailable() && active < leastActive) {
+                    leastLoaded = replica;
+                    leastActive = active;
+                }
+            }
+            return leastLoaded;
+        }
+
+        int start = Math.floorMod(this.nextReplica.getAndIncrement(), this.replicas.length);
+        for (int i = 0; i < this.replicas.length; i++) {
+            Replica replica = this.replicas[(start + i) % this.replicas.length];
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : this.replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.healthy = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException exception) { // Never let an exception cancel the scheduled check
+                replica.healthy = false;
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile long retryAt = System.nanoTime(); // Without health checks: until when a failed replica is skipped
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        boolean isAvailable() {
+            return this.healthy && System.nanoTime() - this.retryAt >= 0;
+        }
+
+        int getActiveConnections() {
+            HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+    }
+
+    private static void setLocalInfileInputStream(Statement statement, InputStream inputStream) throws SQLException {
+        for (String className : LOCAL_INFILE_STATEMENT_CLASSES) {
+            Class<?> statementClass;
+            try {
+                statementClass = Class.forName(className);
+            } catch (ClassNotFoundException exception) {
+                continue;
+            }
+
+            if (statement.isWrapperFor(statementClass)) {
+                Object driverStatement = statement.unwrap(statementClass);
+                try {
+                    statementClass.getMethod("setLocalInfileInputStream", InputStream.class).invoke(driverStatement, inputStream);
+                    return;
+                } catch (ReflectiveOperationException exception) {
+                    throw new SQLException("Failed to set the local infile input stream on " + className, exception);
+                }
+            }
+        }
+        throw new SQLException("The JDBC driver does not support local infile input streams.");
     }
 
     /**
@@ -0,0 +1,115 @@
+package pro.evanwright.saphira.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DatabaseExecutor} with a fixed number of workers and a bounded queue.
+ * Idle workers time out, so an unused client holds no threads.
+ */
+public class BoundedDatabaseExecutor implements DatabaseExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor threadPool;
+    private final AtomicLong rejectedCount;
+
+    public BoundedDatabaseExecutor(@NotNull String name, int threads, int queueCapacity, @NotNull RejectionPolicy rejectionPolicy, long awaitTimeoutMillis) {
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> new Thread(runnable, name + " #" + threadCount.incrementAndGet());
+
+        this.rejectedCount = new AtomicLong();
+        this.threadPool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, threadFactory,
+                this.createRejectionHandler(rejectionPolicy, awaitTimeoutMillis));
+        this.threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        this.threadPool.execute(command);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return this.threadPool.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.threadPool.getActiveCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * @return The number of worker threads currently alive
+     */
+    public int getPoolSize() {
+        return this.threadPool.getPoolSize();
+    }
+
+    /**
+     * @return The maximum number of worker threads
+     */
+    public int getMaximumPoolSize() {
+        return this.threadPool.getMaximumPoolSize();
+    }
+
+    /**
+     * @return The approximate number of tasks that have finished
+     */
+    public long getCompletedTaskCount() {
+        return this.threadPool.getCompletedTaskCount();
+    }
+
+    @Override
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        this.threadPool.shutdown();
+        return this.threadPool.awaitTermination(timeout, unit);
+    }
+
+    private RejectedExecutionHandler createRejectionHandler(RejectionPolicy rejectionPolicy, long awaitTimeoutMillis) {
+        switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                return (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw this.reject("the executor has been shut down");
+                    }
+                    runnable.run();
+                };
+            case AWAIT:
+                return (runnable, executor) -> {
+                    try {
+                        if (executor.isShutdown() || !executor.getQueue().offer(runnable, awaitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            throw this.reject(executor.isShutdown() ? "the executor has been shut down" : "timed out waiting for queue space");
+                        }
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw this.reject("interrupted while waiting for queue space");
+                    }
+                };
+            default:
+                return (runnable, executor) -> {
+                    throw this.reject(executor.isShutdown() ? "the executor has been shut down" : "the queue is full");
+                };
+        }
+    }
+
+    private RejectedExecutionException reject(String reason) {
+        this.rejectedCount.incrementAndGet();
+        return new RejectedExecutionException("Database task rejected: " + reason + ".");
+    }
+}
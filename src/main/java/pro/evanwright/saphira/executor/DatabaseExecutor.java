@@ -0,0 +1,34 @@
+package pro.evanwright.saphira.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link Executor} a {@link pro.evanwright.saphira.DatabaseClient} runs its asynchronous operations on.
+ */
+public interface DatabaseExecutor extends Executor {
+    /**
+     * @return The number of tasks waiting to run
+     */
+    int getQueueDepth();
+
+    /**
+     * @return The number of tasks currently running
+     */
+    int getActiveCount();
+
+    /**
+     * @return The number of tasks that were rejected
+     */
+    long getRejectedCount();
+
+    /**
+     * Stops accepting new tasks and waits for queued and running tasks to finish.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return True if every task finished before the timeout
+     * @throws InterruptedException If interrupted while waiting
+     */
+    boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException;
+}
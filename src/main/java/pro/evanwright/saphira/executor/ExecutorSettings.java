@@ -0,0 +1,112 @@
+package pro.evanwright.saphira.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A data container that describes the executor a {@link pro.evanwright.saphira.DatabaseClient} runs its
+ * asynchronous operations on.
+ */
+public class ExecutorSettings {
+    private static final double DEFAULT_THREADS_PER_CONNECTION = 1.0;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final long DEFAULT_AWAIT_TIMEOUT_MILLIS = 30000;
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * The number of worker threads per connection in the pool.  There is little point in more
+     * workers than connections since every extra worker just blocks waiting for one.
+     */
+    public final double threadsPerConnection;
+
+    /**
+     * The maximum number of tasks waiting for a worker.
+     */
+    public final int queueCapacity;
+
+    public final RejectionPolicy rejectionPolicy;
+
+    /**
+     * How long {@link RejectionPolicy#AWAIT} blocks a submitter before rejecting the task.
+     */
+    public final long awaitTimeoutMillis;
+
+    /**
+     * How long shutting down the client waits for queued and running tasks to finish.
+     */
+    public final long shutdownTimeoutMillis;
+
+    /**
+     * Whether tasks run on virtual threads instead of a bounded pool of platform threads.
+     * The queue settings and rejection policy do not apply to virtual threads.
+     *
+     * @see VirtualThreadDatabaseExecutor
+     */
+    public final boolean virtualThreads;
+
+    public ExecutorSettings() {
+        this(DEFAULT_THREADS_PER_CONNECTION, DEFAULT_QUEUE_CAPACITY, RejectionPolicy.AWAIT);
+    }
+
+    public ExecutorSettings(double threadsPerConnection, int queueCapacity, @NotNull RejectionPolicy rejectionPolicy) {
+        this(threadsPerConnection, queueCapacity, rejectionPolicy, DEFAULT_AWAIT_TIMEOUT_MILLIS, DEFAULT_SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    public ExecutorSettings(double threadsPerConnection, int queueCapacity, @NotNull RejectionPolicy rejectionPolicy, long awaitTimeoutMillis, long shutdownTimeoutMillis) {
+        this(threadsPerConnection, queueCapacity, rejectionPolicy, awaitTimeoutMillis, shutdownTimeoutMillis, false);
+    }
+
+    private ExecutorSettings(double threadsPerConnection, int queueCapacity, @NotNull RejectionPolicy rejectionPolicy, long awaitTimeoutMillis, long shutdownTimeoutMillis, boolean virtualThreads) {
+        if (threadsPerConnection <= 0) {
+            throw new IllegalArgumentException("threadsPerConnection must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+
+        this.threadsPerConnection = threadsPerConnection;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Settings that run asynchronous operations on virtual threads, with at most
+     * {@code threadsPerConnection} operations per pooled connection in flight at once.
+     * Requires Java 21 or newer at runtime.
+     *
+     * @param threadsPerConnection The number of concurrent operations per pooled connection
+     * @return The settings
+     */
+    public static ExecutorSettings virtualThreads(double threadsPerConnection) {
+        return new ExecutorSettings(threadsPerConnection, 0, RejectionPolicy.AWAIT, DEFAULT_AWAIT_TIMEOUT_MILLIS, DEFAULT_SHUTDOWN_TIMEOUT_MILLIS, true);
+    }
+
+    /**
+     * Creates the executor described by these settings.
+     *
+     * @param maximumPoolSize The maximum size of the connection pool the executor feeds
+     * @param name            The name used for worker threads
+     * @return A new executor
+     */
+    public DatabaseExecutor createExecutor(int maximumPoolSize, @NotNull String name) {
+        int threads = Math.max(1, (int) Math.ceil(maximumPoolSize * this.threadsPerConnection));
+        if (this.virtualThreads) {
+            return new VirtualThreadDatabaseExecutor(name, threads);
+        }
+        return new BoundedDatabaseExecutor(name, threads, this.queueCapacity, this.rejectionPolicy, this.awaitTimeoutMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorSettings{" +
+                "threadsPerConnection=" + threadsPerConnection +
+                ", queueCapacity=" + queueCapacity +
+                ", rejectionPolicy=" + rejectionPolicy +
+                ", awaitTimeoutMillis=" + awaitTimeoutMillis +
+                ", shutdownTimeoutMillis=" + shutdownTimeoutMillis +
+                ", virtualThreads=" + virtualThreads +
+                '}';
+    }
+}
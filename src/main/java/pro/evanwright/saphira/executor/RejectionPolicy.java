@@ -0,0 +1,24 @@
+package pro.evanwright.saphira.executor;
+
+/**
+ * What a {@link BoundedDatabaseExecutor} does with a task when every worker is busy and its queue is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * Rejects the task immediately.  The returned future completes exceptionally with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    FAIL_FAST,
+
+    /**
+     * Runs the task on the thread that submitted it, which naturally slows submitters down.  The task still runs
+     * outside any transaction the submitting thread has open, on a connection of its own.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Blocks the submitting thread until queue space frees up, or rejects the task once
+     * {@link ExecutorSettings#awaitTimeoutMillis} elapses.
+     */
+    AWAIT
+}
@@ -0,0 +1,122 @@
+package pro.evanwright.saphira.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DatabaseExecutor} that runs every task on its own virtual thread (JDK 21+).
+ * <p>
+ * A fair semaphore with one permit per pooled connection gates the tasks, so thousands of waiting callers
+ * park cheaply on the semaphore instead of piling up inside the connection pool, and at most one carrier
+ * per connection can be pinned by a driver that blocks inside {@code synchronized} code.
+ * <p>
+ * The library targets Java 8, so virtual threads are looked up reflectively; use {@link #isSupported()}
+ * to check for them before opting in.
+ */
+public class VirtualThreadDatabaseExecutor implements DatabaseExecutor {
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR = findNewThreadPerTaskExecutor();
+    private static final boolean SUPPORTED = NEW_THREAD_PER_TASK_EXECUTOR != null && canCreateThreadPerTaskExecutor();
+
+    private final ExecutorService threadPerTaskExecutor;
+    private final Semaphore permits;
+    private final int maximumConcurrency;
+    private final AtomicLong rejectedCount;
+
+    public VirtualThreadDatabaseExecutor(@NotNull String name, int maximumConcurrency) {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer.");
+        }
+
+        this.threadPerTaskExecutor = createThreadPerTaskExecutor(name);
+        this.permits = new Semaphore(maximumConcurrency, true);
+        this.maximumConcurrency = maximumConcurrency;
+        this.rejectedCount = new AtomicLong();
+    }
+
+    /**
+     * @return True if the running JVM can create virtual threads, which JDK 19 and 20 only do with preview features enabled
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        try {
+            this.threadPerTaskExecutor.execute(() -> {
+                // An interrupted task still runs, with its interrupt status set, so whoever waits for it is told it failed
+                this.permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    this.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            this.rejectedCount.incrementAndGet();
+            throw exception;
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return this.permits.getQueueLength();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.maximumConcurrency - this.permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    @Override
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        this.threadPerTaskExecutor.shutdown();
+        return this.threadPerTaskExecutor.awaitTermination(timeout, unit);
+    }
+
+    private static ExecutorService createThreadPerTaskExecutor(String name) {
+        try {
+            // Thread.ofVirtual().name(name + " #", 1).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + " #", 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable throwable) {
+            throw new UnsupportedOperationException("Failed to create a virtual thread executor.", throwable);
+        }
+    }
+
+    private static boolean canCreateThreadPerTaskExecutor() {
+        try {
+            createThreadPerTaskExecutor("Saphira Probe").shutdown();
+            return true;
+        } catch (UnsupportedOperationException exception) {
+            return false;
+        }
+    }
+
+    private static MethodHandle findNewThreadPerTaskExecutor() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException exception) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pro.evanwright.saphira.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Receives an {@link OperationEvent} for every completed or failed {@link pro.evanwright.saphira.DatabaseClient}
+ * operation.  Listeners are called synchronously on the thread that ran the operation, so they must be fast and
+ * thread-safe.  Exceptions thrown by a listener are ignored.
+ *
+ * @see pro.evanwright.saphira.DatabaseClient#setDatabaseListener(DatabaseListener)
+ * @see MetricsCollector
+ */
+@FunctionalInterface
+public interface DatabaseListener {
+
+    /**
+     * @param event The timings and outcome of the operation
+     */
+    void onOperation(@NotNull OperationEvent event);
+
+    /**
+     * Called before a failed transaction is retried under the client's {@link pro.evanwright.saphira.RetryPolicy}.
+     * The failed attempt has already been reported to {@link #onOperation(OperationEvent)}.
+     *
+     * @param attempt       The attempt that failed, starting at 1
+     * @param error         The error the attempt failed with
+     * @param backoffMillis The time waited before the next attempt
+     */
+    default void onRetry(int attempt, @NotNull Throwable error, long backoffMillis) {
+    }
+
+    /**
+     * Combines listeners into one that calls each of them in order.
+     *
+     * @param listeners The listeners
+     * @return The combined listener
+     */
+    static DatabaseListener all(@NotNull DatabaseListener... listeners) {
+        List<DatabaseListener> all = Arrays.asList(listeners.clone());
+        return new DatabaseListener() {
+            @Override
+            public void onOperation(@NotNull OperationEvent event) {
+                for (DatabaseListener listener : all) {
+                    try {
+                        listener.onOperation(event);
+                    } catch (RuntimeException ignored) {} // One failing listener must not starve the others
+                }
+            }
+
+            @Override
+            public void onRetry(int attempt, @NotNull Throwable error, long backoffMillis) {
+                for (DatabaseListener listener : all) {
+                    try {
+                        listener.onRetry(attempt, error, backoffMillis);
+                    } catch (RuntimeException ignored) {}
+                }
+            }
+        };
+    }
+}
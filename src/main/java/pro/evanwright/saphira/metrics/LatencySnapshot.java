@@ -0,0 +1,31 @@
+package pro.evanwright.saphira.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A data container holding the distribution of a {@link LatencyHistogram} at one point in time, in nanoseconds.
+ */
+public class LatencySnapshot {
+    public final long count, meanNanos, maxNanos, p50Nanos, p99Nanos, p999Nanos;
+
+    public LatencySnapshot(long count, long meanNanos, long maxNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "count=" + count +
+                ", meanMicros=" + TimeUnit.NANOSECONDS.toMicros(meanNanos) +
+                ", p50Micros=" + TimeUnit.NANOSECONDS.toMicros(p50Nanos) +
+                ", p99Micros=" + TimeUnit.NANOSECONDS.toMicros(p99Nanos) +
+                ", p999Micros=" + TimeUnit.NANOSECONDS.toMicros(p999Nanos) +
+                ", maxMicros=" + TimeUnit.NANOSECONDS.toMicros(maxNanos) +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package pro.evanwright.saphira.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.query.SQLStatements;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link DatabaseListener} that aggregates operations by {@link SQLStatements#fingerprint(String) SQL fingerprint}
+ * into lock-free latency histograms and counters, for scraping through {@link #snapshot()}.
+ * <p>
+ * Total, connection acquire and execute latencies are tracked per fingerprint, execute including statement
+ * preparation.  Transactions are aggregated under {@value #TRANSACTION_FINGERPRINT}.  To bound memory, statements
+ * beyond the fingerprint limit are aggregated under {@value #OTHER_FINGERPRINT}.
+ */
+public class MetricsCollector implements DatabaseListener {
+    public static final String TRANSACTION_FINGERPRINT = "<transaction>";
+    public static final String OTHER_FINGERPRINT = "<other>";
+    private static final int DEFAULT_MAX_FINGERPRINTS = 500;
+
+    private final int maxFingerprints;
+    private final Map<String, String> fingerprints; // Applications reuse the same SQL strings, so normalize each once
+    private final Map<String, StatementMetrics> metrics;
+
+    public MetricsCollector() {
+        this(DEFAULT_MAX_FINGERPRINTS);
+    }
+
+    /**
+     * @param maxFingerprints The maximum number of fingerprints tracked separately
+     */
+    public MetricsCollector(int maxFingerprints) {
+        this.maxFingerprints = maxFingerprints;
+        this.fingerprints = new ConcurrentHashMap<>();
+        this.metrics = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void onOperation(@NotNull OperationEvent event) {
+        StatementMetrics statementMetrics = this.getMetrics(this.fingerprint(event));
+        statementMetrics.total.record(event.getTotalNanos());
+        statementMetrics.acquire.record(event.acquireNanos);
+        statementMetrics.execute.record(event.prepareNanos + event.executeNanos);
+        statementMetrics.operations.increment();
+        if (event.rows > 0) {
+            statementMetrics.rows.add(event.rows);
+        }
+        if (event.isError()) {
+            statementMetrics.errors.increment();
+        }
+    }
+
+    /**
+     * Counts the retry under {@value #TRANSACTION_FINGERPRINT}, the failed attempt itself is counted as an error.
+     */
+    @Override
+    public void onRetry(int attempt, @NotNull Throwable error, long backoffMillis) {
+        this.getMetrics(TRANSACTION_FINGERPRINT).retries.increment();
+    }
+
+    /**
+     * @return The metrics of every fingerprint, sorted by fingerprint
+     */
+    public Map<String, StatementSnapshot> snapshot() {
+        Map<String, StatementSnapshot> snapshot = new TreeMap<>();
+        this.metrics.forEach((fingerprint, statementMetrics) -> snapshot.put(fingerprint, statementMetrics.snapshot(fingerprint)));
+        return snapshot;
+    }
+
+    /**
+     * Discards every recorded metric.
+     */
+    public void reset() {
+        this.metrics.clear();
+    }
+
+    private String fingerprint(OperationEvent event) {
+        if (event.sqlStatement == null) {
+            return TRANSACTION_FINGERPRINT;
+        }
+
+        String fingerprint = this.fingerprints.get(event.sqlStatement);
+        if (fingerprint == null) {
+            fingerprint = SQLStatements.fingerprint(event.sqlStatement);
+            if (this.fingerprints.size() < this.maxFingerprints * 4) {
+                this.fingerprints.put(event.sqlStatement, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    private StatementMetrics getMetrics(String fingerprint) {
+        StatementMetrics statementMetrics = this.metrics.get(fingerprint);
+        if (statementMetrics == null) {
+            String key = this.metrics.size() < this.maxFingerprints ? fingerprint : OTHER_FINGERPRINT;
+            statementMetrics = this.metrics.computeIfAbsent(key, ignored -> new StatementMetrics());
+        }
+        return statementMetrics;
+    }
+
+    private static final class StatementMetrics {
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LatencyHistogram execute = new LatencyHistogram();
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+
+        StatementSnapshot snapshot(String fingerprint) {
+            return new StatementSnapshot(fingerprint, this.operations.sum(), this.errors.sum(), this.rows.sum(), this.retries.sum(),
+                    this.total.snapshot(), this.acquire.snapshot(), this.execute.snapshot());
+        }
+    }
+}
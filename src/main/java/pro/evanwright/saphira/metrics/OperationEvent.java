@@ -0,0 +1,94 @@
+package pro.evanwright.saphira.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A data container describing one {@link pro.evanwright.saphira.DatabaseClient} operation.
+ * Phases an operation does not have, such as materialization for an update, are reported as zero.
+ */
+public class OperationEvent {
+    public final OperationType type;
+    /**
+     * The SQL statement, or null for a transaction.
+     */
+    @Nullable
+    public final String sqlStatement;
+    /**
+     * Time spent waiting for a connection, zero when the operation reused a transaction's connection.
+     */
+    public final long acquireNanos;
+    /**
+     * Time spent preparing the statement and binding its parameters.
+     */
+    public final long prepareNanos;
+    /**
+     * Time spent executing the statement, or the body and commit of a transaction.
+     */
+    public final long executeNanos;
+    /**
+     * Time spent reading, copying or consuming the rows of a query.
+     */
+    public final long materializeNanos;
+    /**
+     * The rows returned or affected, or -1 if unknown.
+     */
+    public final long rows;
+    /**
+     * The exception the operation failed with, or null if it succeeded.
+     */
+    @Nullable
+    public final Throwable error;
+    /**
+     * The parameters bound to the statement, or null if they are unknown because a preparer bound them.
+     * Listeners must not modify or retain them beyond the call.
+     */
+    @Nullable
+    public final Object[] parameters;
+
+    public OperationEvent(@NotNull OperationType type, @Nullable String sqlStatement, long acquireNanos, long prepareNanos,
+                          long executeNanos, long materializeNanos, long rows, @Nullable Throwable error) {
+        this(type, sqlStatement, acquireNanos, prepareNanos, executeNanos, materializeNanos, rows, error, null);
+    }
+
+    public OperationEvent(@NotNull OperationType type, @Nullable String sqlStatement, long acquireNanos, long prepareNanos,
+                          long executeNanos, long materializeNanos, long rows, @Nullable Throwable error, @Nullable Object[] parameters) {
+        this.type = type;
+        this.sqlStatement = sqlStatement;
+        this.acquireNanos = acquireNanos;
+        this.prepareNanos = prepareNanos;
+        this.executeNanos = executeNanos;
+        this.materializeNanos = materializeNanos;
+        this.rows = rows;
+        this.error = error;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @return The duration of the whole operation
+     */
+    public long getTotalNanos() {
+        return this.acquireNanos + this.prepareNanos + this.executeNanos + this.materializeNanos;
+    }
+
+    /**
+     * @return True if the operation failed
+     */
+    public boolean isError() {
+        return this.error != null;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationEvent{" +
+                "type=" + type +
+                ", sqlStatement='" + sqlStatement + '\'' +
+                ", acquireNanos=" + acquireNanos +
+                ", prepareNanos=" + prepareNanos +
+                ", executeNanos=" + executeNanos +
+                ", materializeNanos=" + materializeNanos +
+                ", rows=" + rows +
+                ", error=" + error +
+                '}';
+    }
+}
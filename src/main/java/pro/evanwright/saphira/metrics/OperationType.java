@@ -0,0 +1,27 @@
+package pro.evanwright.saphira.metrics;
+
+/**
+ * The kinds of {@link pro.evanwright.saphira.DatabaseClient} operations reported to a {@link DatabaseListener}.
+ */
+public enum OperationType {
+    /**
+     * A query whose rows are materialized or mapped before it returns.
+     */
+    QUERY,
+    /**
+     * A query whose rows are handed to a consumer one at a time.
+     */
+    QUERY_STREAMING,
+    /**
+     * A single DML statement.
+     */
+    UPDATE,
+    /**
+     * A JDBC batch of statements.
+     */
+    BATCH,
+    /**
+     * A transaction, from acquiring its connection to its commit or rollback.
+     */
+    TRANSACTION
+}
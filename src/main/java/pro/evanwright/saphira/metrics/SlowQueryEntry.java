@@ -0,0 +1,79 @@
+package pro.evanwright.saphira.metrics;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A data container describing one operation recorded by a {@link SlowQueryLog}.
+ */
+public class SlowQueryEntry {
+    /**
+     * When the operation finished, in epoch milliseconds.
+     */
+    public final long timestampMillis;
+    public final OperationType type;
+    @Nullable
+    public final String sqlStatement;
+    /**
+     * The types of the bound parameters with their values redacted, or null if they are unknown.
+     */
+    @Nullable
+    public final String parameterSummary;
+    public final long totalNanos, acquireNanos, prepareNanos, executeNanos, materializeNanos, rows;
+    /**
+     * The error the operation failed with, or null if it succeeded.
+     */
+    @Nullable
+    public final String error;
+    /**
+     * The name of the thread that ran the operation.  For asynchronous operations this is the executor's worker.
+     */
+    public final String threadName;
+    private volatile String plan;
+
+    public SlowQueryEntry(long timestampMillis, OperationEvent event, @Nullable String parameterSummary, String threadName) {
+        this.timestampMillis = timestampMillis;
+        this.type = event.type;
+        this.sqlStatement = event.sqlStatement;
+        this.parameterSummary = parameterSummary;
+        this.totalNanos = event.getTotalNanos();
+        this.acquireNanos = event.acquireNanos;
+        this.prepareNanos = event.prepareNanos;
+        this.executeNanos = event.executeNanos;
+        this.materializeNanos = event.materializeNanos;
+        this.rows = event.rows;
+        this.error = event.error != null ? event.error.toString() : null;
+        this.threadName = threadName;
+    }
+
+    /**
+     * @return The {@code EXPLAIN} output captured for the statement, or null if none was captured (yet)
+     */
+    @Nullable
+    public String getPlan() {
+        return this.plan;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQueryEntry{" +
+                "timestampMillis=" + timestampMillis +
+                ", type=" + type +
+                ", sqlStatement='" + sqlStatement + '\'' +
+                ", parameters=" + parameterSummary +
+                ", totalMillis=" + TimeUnit.NANOSECONDS.toMillis(totalNanos) +
+                ", acquireMillis=" + TimeUnit.NANOSECONDS.toMillis(acquireNanos) +
+                ", executeMillis=" + TimeUnit.NANOSECONDS.toMillis(executeNanos) +
+                ", materializeMillis=" + TimeUnit.NANOSECONDS.toMillis(materializeNanos) +
+                ", rows=" + rows +
+                ", error=" + error +
+                ", thread='" + threadName + '\'' +
+                ", plan=" + plan +
+                '}';
+    }
+}
@@ -0,0 +1,183 @@
+package pro.evanwright.saphira.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.query.ColumnarQueryResult;
+import pro.evanwright.saphira.query.QueryResult;
+import pro.evanwright.saphira.query.SQLStatements;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link DatabaseListener} that keeps the most recent operations slower than a threshold in a bounded ring buffer.
+ * <p>
+ * Parameter values are never recorded, only their types and, for strings and byte arrays, their lengths.  With
+ * {@link #enableExplain(DatabaseClient, double)}, a sample of the slow {@code SELECT}s whose parameters are known is
+ * explained asynchronously on a separate connection and the plan is attached to the entry once it arrives.
+ * Combine with other listeners through {@link DatabaseListener#all(DatabaseListener...)}.
+ */
+public class SlowQueryLog implements DatabaseListener {
+    private static final int MAX_CONCURRENT_EXPLAINS = 2;
+    private static final Pattern EXPLAINABLE = Pattern.compile("^[\\s(]*(?:SELECT|WITH)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowQueryEntry> entries;
+    private final AtomicLong recordedCount;
+    private final AtomicInteger runningExplains;
+    private volatile DatabaseClient explainClient;
+    private volatile double explainSampleRate;
+
+    /**
+     * @param threshold The duration above which an operation is recorded
+     * @param unit      The unit of the threshold
+     * @param capacity  The number of most recent entries kept
+     */
+    public SlowQueryLog(long threshold, @NotNull TimeUnit unit, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1.");
+        }
+
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.recordedCount = new AtomicLong();
+        this.runningExplains = new AtomicInteger();
+    }
+
+    /**
+     * Explains a sample of the slow {@code SELECT}s.  Explains run on the client's asynchronous executor with their own
+     * connection, at most {@value #MAX_CONCURRENT_EXPLAINS} at a time; slow queries arriving while that many are
+     * running are not explained.
+     *
+     * @param client     The client to run {@code EXPLAIN} with, normally the one this log listens to
+     * @param sampleRate The fraction of slow {@code SELECT}s to explain, from 0 to 1
+     */
+    public void enableExplain(@NotNull DatabaseClient client, double sampleRate) {
+        this.explainClient = client;
+        this.explainSampleRate = sampleRate;
+    }
+
+    /**
+     * Stops explaining slow queries.
+     */
+    public void disableExplain() {
+        this.explainClient = null;
+    }
+
+    @Override
+    public void onOperation(@NotNull OperationEvent event) {
+        if (event.getTotalNanos() < this.thresholdNanos) {
+            return;
+        }
+
+        SlowQueryEntry entry = new SlowQueryEntry(System.currentTimeMillis(), event, summarize(event.parameters), Thread.currentThread().getName());
+        long index = this.recordedCount.getAndIncrement();
+        this.entries.set((int) (index % this.entries.length()), entry);
+
+        DatabaseClient explainClient = this.explainClient;
+        if (explainClient != null && this.shouldExplain(event)) {
+            this.explain(explainClient, event, entry);
+        }
+    }
+
+    /**
+     * @return The recorded entries, most recent first
+     */
+    public List<SlowQueryEntry> getEntries() {
+        long recorded = this.recordedCount.get();
+        int size = (int) Math.min(recorded, this.entries.length());
+        List<SlowQueryEntry> entries = new ArrayList<>(size);
+        for (long index = recorded - 1; index >= recorded - size; index--) {
+            SlowQueryEntry entry = this.entries.get((int) (index % this.entries.length()));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return The number of operations recorded since creation, including those no longer in the buffer
+     */
+    public long getRecordedCount() {
+        return this.recordedCount.get();
+    }
+
+    private boolean shouldExplain(OperationEvent event) {
+        if (event.type != OperationType.QUERY || event.sqlStatement == null || event.isError()) {
+            return false;
+        }
+        if (event.parameters == null && event.sqlStatement.indexOf('?') >= 0) { // Bound by a preparer, cannot be replayed
+            return false;
+        }
+        return EXPLAINABLE.matcher(event.sqlStatement).find() && SQLStatements.isReadOnly(event.sqlStatement)
+                && ThreadLocalRandom.current().nextDouble() < this.explainSampleRate;
+    }
+
+    private void explain(DatabaseClient client, OperationEvent event, SlowQueryEntry entry) {
+        if (this.runningExplains.incrementAndGet() > MAX_CONCURRENT_EXPLAINS) {
+            this.runningExplains.decrementAndGet();
+            return;
+        }
+
+        Object[] params = event.parameters != null ? event.parameters.clone() : new Object[0];
+        client.queryAsync("EXPLAIN " + event.sqlStatement, preparedStatement -> {
+            for (int i = 0; i < params.length; i++) {
+                preparedStatement.setObject(i + 1, params[i]);
+            }
+        }).whenComplete((result, throwable) -> {
+            this.runningExplains.decrementAndGet();
+            entry.setPlan(throwable == null ? format(result) : "EXPLAIN failed: " + throwable);
+        });
+    }
+
+    private static String format(QueryResult result) {
+        int columnCount;
+        try {
+            columnCount = result instanceof ColumnarQueryResult ? ((ColumnarQueryResult) result).getColumnCount()
+                    : result.getResultSet().getMetaData().getColumnCount();
+        } catch (SQLException exception) {
+            return "EXPLAIN returned an unreadable result: " + exception;
+        }
+
+        StringBuilder plan = new StringBuilder();
+        while (result.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                plan.append(i == 1 ? "" : " | ").append(result.getObject(i));
+            }
+            plan.append('\n');
+        }
+        return plan.toString().trim();
+    }
+
+    @Nullable
+    static String summarize(@Nullable Object[] params) {
+        if (params == null) {
+            return null;
+        }
+
+        StringBuilder summary = new StringBuilder("[");
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            summary.append(i == 0 ? "" : ", ");
+            if (param == null) {
+                summary.append("null");
+            } else if (param instanceof CharSequence) {
+                summary.append("String(").append(((CharSequence) param).length()).append(')');
+            } else if (param instanceof byte[]) {
+                summary.append("byte[").append(((byte[]) param).length).append(']');
+            } else {
+                summary.append(param.getClass().getSimpleName());
+            }
+        }
+        return summary.append(']').toString();
+    }
+}
@@ -0,0 +1,48 @@
+package pro.evanwright.saphira.metrics;
+
+/**
+ * A data container holding the metrics of one SQL fingerprint at one point in time.
+ *
+ * @see MetricsCollector#snapshot()
+ */
+public class StatementSnapshot {
+    public final String fingerprint;
+    public final long operations, errors, rows;
+
+    /**
+     * The number of times a failed attempt was retried, only counted for transactions.
+     */
+    public final long retries;
+    public final LatencySnapshot total, acquire, execute;
+
+    public StatementSnapshot(String fingerprint, long operations, long errors, long rows,
+                             LatencySnapshot total, LatencySnapshot acquire, LatencySnapshot execute) {
+        this(fingerprint, operations, errors, rows, 0, total, acquire, execute);
+    }
+
+    public StatementSnapshot(String fingerprint, long operations, long errors, long rows, long retries,
+                             LatencySnapshot total, LatencySnapshot acquire, LatencySnapshot execute) {
+        this.fingerprint = fingerprint;
+        this.operations = operations;
+        this.errors = errors;
+        this.rows = rows;
+        this.retries = retries;
+        this.total = total;
+        this.acquire = acquire;
+        this.execute = execute;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementSnapshot{" +
+                "fingerprint='" + fingerprint + '\'' +
+                ", operations=" + operations +
+                ", errors=" + errors +
+                ", rows=" + rows +
+                ", retries=" + retries +
+                ", total=" + total +
+                ", acquire=" + acquire +
+                ", execute=" + execute +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable mapping of column labels to 1-based column indexes for one result shape.
+ * <p>
+ * Label lookups are case-insensitive and resolve to the first matching column, like
+ * {@link java.sql.ResultSet#findColumn(String)}.  Labels spelled exactly as the driver reports them
+ * are resolved with a single hash lookup and no allocation.  A lookup that matches no label falls back
+ * to the underlying column names, so {@code name} still resolves in {@code SELECT name AS userName}.
+ */
+public final class ColumnLabels {
+    private final String[] labels;
+    private final Map<String, Integer> exactIndexes;
+    private final Map<String, Integer> lowerCaseIndexes;
+    private final Map<String, Integer> lowerCaseNameIndexes;
+
+    private ColumnLabels(String[] labels, String[] names) {
+        this.labels = labels;
+        this.exactIndexes = new HashMap<>(labels.length * 2);
+        this.lowerCaseIndexes = new HashMap<>(labels.length * 2);
+        this.lowerCaseNameIndexes = new HashMap<>(names.length * 2);
+        for (int i = labels.length - 1; i >= 0; i--) { // Iterate backwards so the first duplicate label wins
+            this.exactIndexes.put(labels[i], i + 1);
+            this.lowerCaseIndexes.put(labels[i].toLowerCase(Locale.ROOT), i + 1);
+            if (names[i] != null) {
+                this.lowerCaseNameIndexes.put(names[i].toLowerCase(Locale.ROOT), i + 1);
+            }
+        }
+    }
+
+    /**
+     * Reads the column labels and names of a result.
+     *
+     * @param metaData The metadata of the result
+     * @return The label mapping
+     * @throws SQLException If reading the metadata fails
+     */
+    public static ColumnLabels of(@NotNull ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        String[] names = new String[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            names[i] = metaData.getColumnName(i + 1);
+        }
+        return new ColumnLabels(labels, names);
+    }
+
+    /**
+     * Checks whether a result has exactly the labels of this mapping, in the same order.
+     *
+     * @param metaData The metadata of the result
+     * @return True if this mapping can be used for the result
+     * @throws SQLException If reading the metadata fails
+     */
+    public boolean matches(@NotNull ResultSetMetaData metaData) throws SQLException {
+        if (metaData.getColumnCount() != this.labels.length) {
+            return false;
+        }
+        for (int i = 0; i < this.labels.length; i++) {
+            if (!this.labels[i].equals(metaData.getColumnLabel(i + 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param columnLabel The label, or failing that the column name, to resolve
+     * @return The 1-based index of the first column with the label
+     * @throws SQLException If no column has the label or name
+     */
+    public int indexOf(@NotNull String columnLabel) throws SQLException {
+        Integer index = this.exactIndexes.get(columnLabel);
+        if (index == null) {
+            String lowerCaseLabel = columnLabel.toLowerCase(Locale.ROOT);
+            index = this.lowerCaseIndexes.get(lowerCaseLabel);
+            if (index == null) {
+                index = this.lowerCaseNameIndexes.get(lowerCaseLabel);
+            }
+            if (index == null) {
+                throw new SQLException("Unknown column label: " + columnLabel);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param columnIndex The 1-based column index
+     * @return The label of the column
+     */
+    public String getLabel(int columnIndex) {
+        return this.labels[columnIndex - 1];
+    }
+
+    /**
+     * @return The number of columns
+     */
+    public int size() {
+        return this.labels.length;
+    }
+}
@@ -0,0 +1,940 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link QueryResult} that copies a {@link ResultSet} into compact, column-oriented storage.
+ * <p>
+ * Integer, long and double columns are stored as primitive arrays with a null bitmap, and string
+ * columns are dictionary encoded so repeated values share one instance.  Every other type is kept as
+ * an object array.  Compared to a {@link javax.sql.rowset.CachedRowSet}, which boxes every cell into
+ * per-row vectors, this keeps large results much smaller on the heap.
+ * <p>
+ * Since there is no backing {@link ResultSet}, {@link #getResultSet()} is unsupported.
+ */
+public class ColumnarQueryResult extends QueryResult {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long OBJECT_BYTES = 32;
+
+    private final ColumnLabels labels;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private int cursor; // 1-based like JDBC: 0 is before the first row, rowCount + 1 is after the last
+    private boolean wasNull;
+
+    private ColumnarQueryResult(ColumnLabels labels, Column[] columns, int rowCount) {
+        this.labels = labels;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Reads every remaining row of the result set into a new columnar result.
+     * The result set is not closed.
+     *
+     * @param resultSet The result set to copy
+     * @return The columnar copy
+     * @throws SQLException If reading the result set fails
+     */
+    public static ColumnarQueryResult from(@NotNull ResultSet resultSet) throws SQLException {
+        return from(resultSet, ColumnLabels.of(resultSet.getMetaData()));
+    }
+
+    /**
+     * Reads every remaining row of the result set into a new columnar result, reusing a label mapping
+     * that was already resolved for this result shape.  The result set is not closed.
+     *
+     * @param resultSet    The result set to copy
+     * @param columnLabels The label mapping of the result set
+     * @return The columnar copy
+     * @throws SQLException If reading the result set fails
+     */
+    public static ColumnarQueryResult from(@NotNull ResultSet resultSet, @NotNull ColumnLabels columnLabels) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = Column.forClassName(metaData.getColumnClassName(i + 1));
+        }
+
+        int rows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].append(resultSet, i + 1, rows);
+            }
+            rows++;
+        }
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+
+        return new ColumnarQueryResult(columnLabels, columns, rows);
+    }
+
+    /**
+     * Concatenates results of the same statement, such as the results of one query run on several shards, into a
+     * single columnar result.  Rows keep the order of the results and, within a result, their original order.
+     * Results that are not columnar are copied from their {@link QueryResult#getResultSet() result set}, which must
+     * still be positioned before its first row.
+     *
+     * @param results The results to concatenate, all with the same columns
+     * @return The concatenated result
+     * @throws UncheckedSQLException If the results have different columns or a {@link SQLException} occurs
+     */
+    public static ColumnarQueryResult concat(@NotNull List<? extends QueryResult> results) throws UncheckedSQLException {
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("At least one result is required.");
+        }
+
+        ColumnarQueryResult[] sources = new ColumnarQueryResult[results.size()];
+        for (int i = 0; i < sources.length; i++) {
+            QueryResult result = results.get(i);
+            try {
+                sources[i] = result instanceof ColumnarQueryResult ? (ColumnarQueryResult) result : from(result.getResultSet());
+            } catch (SQLException exception) {
+                throw new UncheckedSQLException(exception);
+            }
+            if (sources[i].columns.length != sources[0].columns.length) {
+                throw new UncheckedSQLException("Cannot concatenate results with different numbers of columns.");
+            }
+        }
+
+        Column[] columns = new Column[sources[0].columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Column column = sources[0].columns[i];
+            for (ColumnarQueryResult source : sources) {
+                if (source.columns[i].getClass() != column.getClass()) { // Mixed kinds, keep the values as they are
+                    column = new ObjectColumn();
+                    break;
+                }
+            }
+            columns[i] = column.newEmpty();
+        }
+
+        int rows = 0;
+        for (ColumnarQueryResult source : sources) {
+            for (int sourceRow = 0; sourceRow < source.rowCount; sourceRow++, rows++) {
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i].append(source.columns[i], sourceRow, rows);
+                }
+            }
+        }
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+
+        return new ColumnarQueryResult(sources[0].labels, columns, rows);
+    }
+
+    /**
+     * @return The number of rows in this result
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * @return The number of columns in this result
+     */
+    public int getColumnCount() {
+        return this.columns.length;
+    }
+
+    /**
+     * @param columnIndex The 1-based column index
+     * @return The label of the column
+     */
+    public String getColumnLabel(int columnIndex) {
+        this.checkColumn(columnIndex);
+        return this.labels.getLabel(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return null;
+        }
+        return column.getString(row);
+    }
+
+    @Override
+    public String getString(String columnLabel) throws UncheckedSQLException {
+        return getString(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws UncheckedSQLException {
+        return (int) checkRange(this.getLong(columnIndex), Integer.MIN_VALUE, Integer.MAX_VALUE, "int", columnIndex);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws UncheckedSQLException {
+        return getInt(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws UncheckedSQLException {
+        return (float) this.getDouble(columnIndex);
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws UncheckedSQLException {
+        return getFloat(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return 0;
+        }
+        return column.getDouble(row);
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws UncheckedSQLException {
+        return getDouble(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return null;
+        }
+        return column.getBigDecimal(row);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws UncheckedSQLException {
+        return getBigDecimal(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws UncheckedSQLException {
+        return (byte) checkRange(this.getLong(columnIndex), Byte.MIN_VALUE, Byte.MAX_VALUE, "byte", columnIndex);
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws UncheckedSQLException {
+        return getByte(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return null;
+        }
+        return column.getDate(row);
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws UncheckedSQLException {
+        return getDate(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return false;
+        }
+        return column.getBoolean(row);
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws UncheckedSQLException {
+        return getBoolean(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return null;
+        }
+        return column.getObject(row);
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws UncheckedSQLException {
+        return getObject(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws UncheckedSQLException {
+        return (short) checkRange(this.getLong(columnIndex), Short.MIN_VALUE, Short.MAX_VALUE, "short", columnIndex);
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws UncheckedSQLException {
+        return getShort(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws UncheckedSQLException {
+        Column column = this.column(columnIndex);
+        int row = this.currentRow();
+        if (this.checkNull(column, row)) {
+            return 0;
+        }
+        return column.getLong(row);
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws UncheckedSQLException {
+        return getLong(this.findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean absolute(int row) throws UncheckedSQLException {
+        if (row >= 0) {
+            this.cursor = Math.min(row, this.rowCount + 1);
+        } else {
+            this.cursor = Math.max(this.rowCount + 1 + row, 0);
+        }
+        return this.isOnRow();
+    }
+
+    @Override
+    public void afterLast() throws UncheckedSQLException {
+        this.cursor = this.rowCount + 1;
+    }
+
+    @Override
+    public void beforeFirst() throws UncheckedSQLException {
+        this.cursor = 0;
+    }
+
+    @Override
+    public boolean first() throws UncheckedSQLException {
+        return this.absolute(1);
+    }
+
+    @Override
+    public int getRow() throws UncheckedSQLException {
+        return this.isOnRow() ? this.cursor : 0;
+    }
+
+    @Override
+    public boolean isAfterLast() throws UncheckedSQLException {
+        return this.rowCount > 0 && this.cursor > this.rowCount;
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws UncheckedSQLException {
+        return this.rowCount > 0 && this.cursor == 0;
+    }
+
+    @Override
+    public boolean isFirst() throws UncheckedSQLException {
+        return this.rowCount > 0 && this.cursor == 1;
+    }
+
+    @Override
+    public boolean isLast() throws UncheckedSQLException {
+        return this.rowCount > 0 && this.cursor == this.rowCount;
+    }
+
+    @Override
+    public boolean last() throws UncheckedSQLException {
+        return this.absolute(-1);
+    }
+
+    @Override
+    public boolean next() throws UncheckedSQLException {
+        if (this.cursor <= this.rowCount) {
+            this.cursor++;
+        }
+        return this.isOnRow();
+    }
+
+    @Override
+    public boolean previous() throws UncheckedSQLException {
+        if (this.cursor > 0) {
+            this.cursor--;
+        }
+        return this.isOnRow();
+    }
+
+    @Override
+    public boolean relative(int rows) throws UncheckedSQLException {
+        long target = (long) this.cursor + rows;
+        this.cursor = (int) Math.max(0, Math.min(target, this.rowCount + 1));
+        return this.isOnRow();
+    }
+
+    @Override
+    public boolean wasNull() throws UncheckedSQLException {
+        return this.wasNull;
+    }
+
+    /**
+     * Creates a result over the same columns with its own cursor.  Columns are never modified once read,
+     * so duplicates can be read by different threads without copying.
+     */
+    @Override
+    public ColumnarQueryResult duplicate() {
+        return new ColumnarQueryResult(this.labels, this.columns, this.rowCount);
+    }
+
+    @Override
+    int rowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    long estimateSize() {
+        long bytes = OBJECT_BYTES * (2 + this.columns.length);
+        for (Column column : this.columns) {
+            bytes += column.estimateSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Columnar results are not backed by a {@link ResultSet}.
+     *
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public ResultSet getResultSet() {
+        throw new UnsupportedOperationException("Columnar query results are not backed by a ResultSet.");
+    }
+
+    private boolean isOnRow() {
+        return this.cursor >= 1 && this.cursor <= this.rowCount;
+    }
+
+    private int currentRow() {
+        if (!this.isOnRow()) {
+            throw new UncheckedSQLException("The cursor is not positioned on a row.");
+        }
+        return this.cursor - 1;
+    }
+
+    private Column column(int columnIndex) {
+        this.checkColumn(columnIndex);
+        return this.columns[columnIndex - 1];
+    }
+
+    private void checkColumn(int columnIndex) {
+        if (columnIndex < 1 || columnIndex > this.columns.length) {
+            throw new UncheckedSQLException("Column index " + columnIndex + " is out of range (1-" + this.columns.length + ").");
+        }
+    }
+
+    private boolean checkNull(Column column, int row) {
+        this.wasNull = column.isNull(row);
+        return this.wasNull;
+    }
+
+    /**
+     * Narrowing must fail like a JDBC driver does instead of silently wrapping around.
+     */
+    private static long checkRange(long value, long min, long max, String type, int columnIndex) {
+        if (value < min || value > max) {
+            throw new UncheckedSQLException("Value " + value + " in column " + columnIndex + " is out of range for " + type + ".");
+        }
+        return value;
+    }
+
+    private int findColumn(String columnLabel) {
+        try {
+            return this.labels.indexOf(columnLabel);
+        } catch (SQLException exception) {
+            throw new UncheckedSQLException(exception);
+        }
+    }
+
+    /**
+     * Storage for a single column.  Subclasses override the accessors they can serve without boxing;
+     * everything else falls back to converting {@link #getObject(int)}.
+     */
+    private static abstract class Column {
+        private long[] nulls = new long[1];
+
+        static Column forClassName(String className) {
+            if (className == null) {
+                return new ObjectColumn();
+            }
+
+            switch (className) {
+                case "java.lang.Integer":
+                    return new IntColumn();
+                case "java.lang.Long":
+                    return new LongColumn();
+                case "java.lang.Double":
+                    return new DoubleColumn();
+                case "java.lang.String":
+                    return new StringColumn();
+                default:
+                    return new ObjectColumn();
+            }
+        }
+
+        final void append(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            this.ensureCapacity(row + 1);
+            this.read(resultSet, columnIndex, row);
+            if (resultSet.wasNull()) {
+                this.markNull(row);
+            }
+        }
+
+        final void append(Column source, int sourceRow, int row) {
+            this.ensureCapacity(row + 1);
+            if (source.isNull(sourceRow)) {
+                this.markNull(row);
+            } else {
+                this.copy(source, sourceRow, row);
+            }
+        }
+
+        private void markNull(int row) {
+            int word = row >>> 6;
+            if (word >= this.nulls.length) {
+                this.nulls = Arrays.copyOf(this.nulls, Math.max(word + 1, this.nulls.length * 2));
+            }
+            this.nulls[word] |= 1L << row;
+        }
+
+        final boolean isNull(int row) {
+            int word = row >>> 6;
+            return word < this.nulls.length && (this.nulls[word] & (1L << row)) != 0;
+        }
+
+        void trim(int rows) {
+            this.nulls = Arrays.copyOf(this.nulls, Math.max((rows + 63) >>> 6, 1));
+        }
+
+        long estimateSize() {
+            return OBJECT_BYTES + 8L * this.nulls.length;
+        }
+
+        static long estimateSize(Object value) {
+            if (value instanceof String) {
+                return OBJECT_BYTES + 2L * ((String) value).length();
+            } else if (value instanceof byte[]) {
+                return OBJECT_BYTES + ((byte[]) value).length;
+            }
+            return value == null ? 0 : OBJECT_BYTES;
+        }
+
+        static int grow(int capacity, int required) {
+            return Math.max(required, Math.max(INITIAL_CAPACITY, capacity * 2));
+        }
+
+        abstract void ensureCapacity(int rows);
+
+        abstract void read(ResultSet resultSet, int columnIndex, int row) throws SQLException;
+
+        /**
+         * Copies a non-null value from a column of any kind.
+         */
+        abstract void copy(Column source, int sourceRow, int row);
+
+        abstract Column newEmpty();
+
+        abstract Object getObject(int row);
+
+        String getString(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof byte[]) {
+                return new String((byte[]) value, StandardCharsets.UTF_8); // Like the MySQL drivers on a UTF-8 connection
+            } else if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).toPlainString(); // DECIMAL text as the server sends it, never in E notation
+            }
+            return value.toString();
+        }
+
+        long getLong(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            }
+
+            try {
+                return new BigDecimal(value.toString().trim()).longValue();
+            } catch (NumberFormatException exception) {
+                throw new UncheckedSQLException("Cannot convert value to a number: " + value, exception);
+            }
+        }
+
+        double getDouble(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            }
+
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException exception) {
+                throw new UncheckedSQLException("Cannot convert value to a number: " + value, exception);
+            }
+        }
+
+        BigDecimal getBigDecimal(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof BigDecimal) {
+                return (BigDecimal) value;
+            } else if (value instanceof Double || value instanceof Float) {
+                return BigDecimal.valueOf(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                return BigDecimal.valueOf(((Number) value).longValue());
+            }
+
+            try {
+                return new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException exception) {
+                throw new UncheckedSQLException("Cannot convert value to a number: " + value, exception);
+            }
+        }
+
+        boolean getBoolean(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            } else if (value instanceof Number) {
+                return ((Number) value).doubleValue() != 0;
+            }
+
+            String string = value.toString().trim();
+            return string.equalsIgnoreCase("true") || string.equals("1");
+        }
+
+        Date getDate(int row) {
+            Object value = this.getObject(row);
+            if (value instanceof Date) {
+                return (Date) value;
+            } else if (value instanceof java.util.Date) {
+                return new Date(((java.util.Date) value).getTime());
+            } else if (value instanceof LocalDate) {
+                return Date.valueOf((LocalDate) value);
+            }
+
+            try {
+                return Date.valueOf(value.toString().trim());
+            } catch (IllegalArgumentException exception) {
+                throw new UncheckedSQLException("Cannot convert value to a date: " + value, exception);
+            }
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        @Override
+        void ensureCapacity(int rows) {
+            if (rows > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rows));
+            }
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            this.values[row] = resultSet.getInt(columnIndex);
+        }
+
+        @Override
+        void copy(Column source, int sourceRow, int row) {
+            this.values[row] = (int) source.getLong(sourceRow);
+        }
+
+        @Override
+        Column newEmpty() {
+            return new IntColumn();
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            this.values = Arrays.copyOf(this.values, rows);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 4L * this.values.length;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        String getString(int row) {
+            return Integer.toString(this.values[row]);
+        }
+
+        @Override
+        long getLong(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return this.values[row];
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        @Override
+        void ensureCapacity(int rows) {
+            if (rows > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rows));
+            }
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            this.values[row] = resultSet.getLong(columnIndex);
+        }
+
+        @Override
+        void copy(Column source, int sourceRow, int row) {
+            this.values[row] = source.getLong(sourceRow);
+        }
+
+        @Override
+        Column newEmpty() {
+            return new LongColumn();
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            this.values = Arrays.copyOf(this.values, rows);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 8L * this.values.length;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        String getString(int row) {
+            return Long.toString(this.values[row]);
+        }
+
+        @Override
+        long getLong(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return this.values[row];
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        void ensureCapacity(int rows) {
+            if (rows > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rows));
+            }
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            this.values[row] = resultSet.getDouble(columnIndex);
+        }
+
+        @Override
+        void copy(Column source, int sourceRow, int row) {
+            this.values[row] = source.getDouble(sourceRow);
+        }
+
+        @Override
+        Column newEmpty() {
+            return new DoubleColumn();
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            this.values = Arrays.copyOf(this.values, rows);
+        }
+
+        @Override
+        long estimateSize() {
+            return super.estimateSize() + 8L * this.values.length;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        String getString(int row) {
+            return Double.toString(this.values[row]);
+        }
+
+        @Override
+        long getLong(int row) {
+            return (long) this.values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return this.values[row];
+        }
+    }
+
+    /**
+     * Dictionary encoded strings: each row stores an index into a table of distinct values.
+     */
+    private static final class StringColumn extends Column {
+        private int[] codes = new int[0];
+        private String[] dictionary = new String[INITIAL_CAPACITY];
+        private Map<String, Integer> dictionaryIndexes = new HashMap<>();
+
+        @Override
+        void ensureCapacity(int rows) {
+            if (rows > this.codes.length) {
+                this.codes = Arrays.copyOf(this.codes, grow(this.codes.length, rows));
+            }
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            String value = resultSet.getString(columnIndex);
+            if (value != null) {
+                this.codes[row] = this.encode(value);
+            }
+        }
+
+        @Override
+        void copy(Column source, int sourceRow, int row) {
+            this.codes[row] = this.encode(source.getString(sourceRow));
+        }
+
+        @Override
+        Column newEmpty() {
+            return new StringColumn();
+        }
+
+        private int encode(String value) {
+            Integer code = this.dictionaryIndexes.get(value);
+            if (code == null) {
+                code = this.dictionaryIndexes.size();
+                if (code == this.dictionary.length) {
+                    this.dictionary = Arrays.copyOf(this.dictionary, this.dictionary.length * 2);
+                }
+                this.dictionary[code] = value;
+                this.dictionaryIndexes.put(value, code);
+            }
+            return code;
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            this.codes = Arrays.copyOf(this.codes, rows);
+            this.dictionary = Arrays.copyOf(this.dictionary, this.dictionaryIndexes.size());
+            this.dictionaryIndexes = null; // Only needed while reading
+        }
+
+        @Override
+        long estimateSize() {
+            long bytes = super.estimateSize() + 4L * this.codes.length + 8L * this.dictionary.length;
+            for (String value : this.dictionary) {
+                bytes += estimateSize(value);
+            }
+            return bytes;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return this.dictionary[this.codes[row]];
+        }
+
+        @Override
+        String getString(int row) {
+            return this.dictionary[this.codes[row]];
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        void ensureCapacity(int rows) {
+            if (rows > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rows));
+            }
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            this.values[row] = resultSet.getObject(columnIndex);
+        }
+
+        @Override
+        void copy(Column source, int sourceRow, int row) {
+            this.values[row] = source.getObject(sourceRow);
+        }
+
+        @Override
+        Column newEmpty() {
+            return new ObjectColumn();
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            this.values = Arrays.copyOf(this.values, rows);
+        }
+
+        @Override
+        long estimateSize() {
+            long bytes = super.estimateSize() + 8L * this.values.length;
+            for (Object value : this.values) {
+                bytes += estimateSize(value);
+            }
+            return bytes;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return this.values[row];
+        }
+    }
+}
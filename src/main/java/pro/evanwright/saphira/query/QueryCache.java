@@ -0,0 +1,317 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A read-through cache of materialized query results, keyed by SQL text and bound parameters.
+ * <p>
+ * The cache is bounded by entry count and by the estimated heap size of the results, evicting the least recently
+ * used entries first, and entries expire after a fixed time to live.  Entries are invalidated per table: writes
+ * through a {@link pro.evanwright.saphira.DatabaseClient} drop every entry whose statement reads from a table the
+ * write may modify.  Table names are found by {@link SQLStatements}, so reads through views are only refreshed by
+ * their time to live.
+ * <p>
+ * Each lookup returns its own {@link QueryResult#duplicate() duplicate} of the cached result, so several threads
+ * can read the same entry at once without sharing a cursor.
+ *
+ * @see pro.evanwright.saphira.DatabaseClient#setQueryCache(QueryCache)
+ */
+public class QueryCache {
+    private static final long KEY_OVERHEAD_BYTES = 96;
+    private static final long PARAMETER_BYTES = 32;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Key, Entry> entries; // Access ordered, the eldest entry is the least recently used
+    private final Map<String, Set<Key>> keysByTable;
+    private final Map<String, Long> tableVersions;
+    private long version;
+    private long allTablesVersion;
+    private long estimatedBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param maxEntries The maximum number of cached results
+     * @param maxBytes   The maximum estimated heap size of all cached results
+     * @param ttl        How long a result stays cached, zero or less for no expiry
+     * @param unit       The unit of the time to live
+     */
+    public QueryCache(int maxEntries, long maxBytes, long ttl, @NotNull TimeUnit unit) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("The cache must be able to hold at least one entry.");
+        }
+
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl > 0 ? unit.toNanos(ttl) : 0;
+        this.entries = new LinkedHashMap<>(16, 0.75F, true);
+        this.keysByTable = new HashMap<>();
+        this.tableVersions = new HashMap<>();
+    }
+
+    /**
+     * Returns a cached result for the statement and parameters, or loads, caches and returns it.  A result loaded
+     * while a write invalidated one of the statement's tables is returned but not cached, since it may predate the write.
+     *
+     * @param sqlStatement The read-only SQL statement
+     * @param params       The parameters bound to the statement
+     * @param loader       Executes the query on a miss
+     * @return A result with its own cursor, positioned before the first row
+     * @throws UncheckedSQLException If the loader fails
+     */
+    public QueryResult getOrLoad(@NotNull String sqlStatement, @NotNull Object[] params, @NotNull Supplier<QueryResult> loader) throws UncheckedSQLException {
+        Key key = new Key(sqlStatement, params);
+        long loadVersion;
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && this.ttlNanos > 0 && System.nanoTime() - entry.loadedAt >= this.ttlNanos) {
+                this.remove(key);
+                this.evictionCount.incrementAndGet();
+                entry = null;
+            }
+
+            if (entry != null) {
+                this.hitCount.incrementAndGet();
+                return entry.result.duplicate();
+            }
+            this.missCount.incrementAndGet();
+            loadVersion = this.version;
+        }
+
+        QueryResult result = loader.get();
+        Set<String> tables = SQLStatements.readTables(sqlStatement);
+        QueryResult cached = result.duplicate();
+        long bytes = key.estimateSize() + cached.estimateSize();
+        if (bytes > this.maxBytes) {
+            return result;
+        }
+
+        synchronized (this) {
+            if (this.isInvalidatedSince(tables, loadVersion)) {
+                return result;
+            }
+
+            this.remove(key);
+            this.entries.put(key, new Entry(cached, tables, bytes, System.nanoTime()));
+            this.estimatedBytes += bytes;
+            for (String table : tables) {
+                this.keysByTable.computeIfAbsent(table, ignored -> new HashSet<>()).add(key);
+            }
+            this.evictOverflow();
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates every result that reads from a table the statement may write to.  If the statement's
+     * tables cannot be determined, the whole cache is invalidated.
+     *
+     * @param sqlStatement A statement that modified the database
+     */
+    public void invalidate(@NotNull String sqlStatement) {
+        Set<String> tables = SQLStatements.writtenTables(sqlStatement);
+        if (tables.isEmpty()) {
+            this.invalidateAll();
+        } else {
+            this.invalidateTables(tables);
+        }
+    }
+
+    /**
+     * Invalidates every result that reads from one of the tables.
+     *
+     * @param tables The modified table names, case-insensitive and without schema
+     */
+    public synchronized void invalidateTables(@NotNull Collection<String> tables) {
+        long version = ++this.version;
+        for (String table : tables) {
+            String normalized = SQLStatements.normalizeTable(table);
+            this.tableVersions.put(normalized, version);
+
+            Set<Key> keys = this.keysByTable.remove(normalized);
+            if (keys != null) {
+                for (Key key : keys.toArray(new Key[0])) {
+                    if (this.remove(key)) {
+                        this.invalidationCount.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates every cached result.
+     */
+    public synchronized void invalidateAll() {
+        this.allTablesVersion = ++this.version;
+        this.invalidationCount.addAndGet(this.entries.size());
+        this.entries.clear();
+        this.keysByTable.clear();
+        this.estimatedBytes = 0;
+    }
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * @return The number of lookups that had to query the database
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * @return The number of results removed because the cache was full or they expired
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return The number of results removed because a table they read from was written to
+     */
+    public long getInvalidationCount() {
+        return this.invalidationCount.get();
+    }
+
+    /**
+     * @return The number of cached results
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return The estimated heap size of all cached results
+     */
+    public synchronized long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache{" +
+                "maxEntries=" + maxEntries +
+                ", maxBytes=" + maxBytes +
+                ", ttlMillis=" + TimeUnit.NANOSECONDS.toMillis(ttlNanos) +
+                ", hits=" + hitCount +
+                ", misses=" + missCount +
+                ", evictions=" + evictionCount +
+                '}';
+    }
+
+    private boolean isInvalidatedSince(Set<String> tables, long loadVersion) {
+        if (this.allTablesVersion > loadVersion) {
+            return true;
+        }
+        for (String table : tables) {
+            Long tableVersion = this.tableVersions.get(table);
+            if (tableVersion != null && tableVersion > loadVersion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> iterator = this.entries.entrySet().iterator();
+        while ((this.entries.size() > this.maxEntries || this.estimatedBytes > this.maxBytes) && iterator.hasNext()) {
+            Map.Entry<Key, Entry> eldest = iterator.next();
+            iterator.remove();
+            this.unlink(eldest.getKey(), eldest.getValue());
+            this.evictionCount.incrementAndGet();
+        }
+    }
+
+    private boolean remove(Key key) {
+        Entry entry = this.entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        this.unlink(key, entry);
+        return true;
+    }
+
+    private void unlink(Key key, Entry entry) {
+        this.estimatedBytes -= entry.bytes;
+        for (String table : entry.tables) {
+            Set<Key> keys = this.keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    this.keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String sqlStatement;
+        private final Object[] params;
+        private final int hashCode;
+
+        Key(String sqlStatement, Object[] params) {
+            this.sqlStatement = sqlStatement;
+            this.params = params.clone();
+            this.hashCode = 31 * sqlStatement.hashCode() + Arrays.deepHashCode(this.params);
+        }
+
+        long estimateSize() {
+            return KEY_OVERHEAD_BYTES + 2L * this.sqlStatement.length() + PARAMETER_BYTES * this.params.length;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return this.hashCode == key.hashCode && this.sqlStatement.equals(key.sqlStatement) && Arrays.deepEquals(this.params, key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final QueryResult result;
+        private final Set<String> tables;
+        private final long bytes;
+        private final long loadedAt;
+
+        Entry(QueryResult result, Set<String> tables, long bytes, long loadedAt) {
+            this.result = result;
+            this.tables = tables;
+            this.bytes = bytes;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pro.evanwright.saphira.query;
 
+import org.jetbrains.annotations.NotNull;
 import pro.evanwright.saphira.exception.UncheckedSQLException;
 
 import javax.sql.rowset.CachedRowSet;
@@ -8,15 +9,53 @@ import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A wrapper around {@link ResultSet} that transforms checked {@link SQLException} into {@link UncheckedSQLException}.
+ * <p>
+ * Results returned by {@link pro.evanwright.saphira.DatabaseClient#query(String)} are backed by a disconnected
+ * {@link CachedRowSet} and support every cursor movement.  Results handed to a streaming consumer wrap the live,
+ * forward-only cursor instead, so only {@link #next()} may be used to move through them.
+ *
+ * @see ColumnarQueryResult
  */
 public class QueryResult {
-    private final CachedRowSet resultSet;
+    private static final long ESTIMATED_CELL_BYTES = 48;
+    private static final long ESTIMATED_OVERHEAD_BYTES = 512;
+
+    private final ResultSet resultSet;
+    private final ColumnLabels columnLabels;
 
     public QueryResult(CachedRowSet resultSet) {
+        this(resultSet, null);
+    }
+
+    public QueryResult(ResultSet resultSet) {
+        this(resultSet, null);
+    }
+
+    /**
+     * Creates a result whose label-based accessors resolve labels through a precomputed mapping
+     * instead of the result set's metadata.
+     *
+     * @param resultSet    The result set to wrap
+     * @param columnLabels The label mapping for the shape of the result set, or null to let the result set resolve labels
+     */
+    public QueryResult(ResultSet resultSet, ColumnLabels columnLabels) {
         this.resultSet = resultSet;
+        this.columnLabels = columnLabels;
+    }
+
+    /**
+     * Constructor for subclasses that provide their own storage and override every accessor.
+     */
+    protected QueryResult() {
+        this.resultSet = null;
+        this.columnLabels = null;
     }
 
     /**
@@ -28,16 +67,12 @@ public class QueryResult {
      * @throws UncheckedSQLException If a {@link SQLException} occurs.
      */
     public <T> Optional<T> getFirstColValue() throws UncheckedSQLException {
-        try {
-            if (resultSet.next()) {
-                @SuppressWarnings("unchecked")
-                T value = (T) resultSet.getObject(1);
-                return Optional.ofNullable(value);
-            } else {
-                return Optional.empty();
-            }
-        } catch (SQLException exception) {
-            throw new UncheckedSQLException(exception);
+        if (this.next()) {
+            @SuppressWarnings("unchecked")
+            T value = (T) this.getObject(1);
+            return Optional.ofNullable(value);
+        } else {
+            return Optional.empty();
         }
     }
 
@@ -51,16 +86,12 @@ public class QueryResult {
      * @throws UncheckedSQLException If a {@link SQLException} occurs.
      */
     public <T> Optional<T> getFirstRowColValue(String columnLabel) throws UncheckedSQLException {
-        try {
-            if (resultSet.next()) {
-                @SuppressWarnings("unchecked")
-                T value = (T) resultSet.getObject(columnLabel);
-                return Optional.ofNullable(value);
-            } else {
-                return Optional.empty();
-            }
-        } catch (SQLException exception) {
-            throw new UncheckedSQLException(exception);
+        if (this.next()) {
+            @SuppressWarnings("unchecked")
+            T value = (T) this.getObject(columnLabel);
+            return Optional.ofNullable(value);
+        } else {
+            return Optional.empty();
         }
     }
 
@@ -80,7 +111,7 @@ public class QueryResult {
      */
     public String getString(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getString(columnLabel);
+            return this.resultSet.getString(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -102,7 +133,7 @@ public class QueryResult {
      */
     public int getInt(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getInt(columnLabel);
+            return this.resultSet.getInt(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -124,7 +155,7 @@ public class QueryResult {
      */
     public float getFloat(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getFloat(columnLabel);
+            return this.resultSet.getFloat(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -146,7 +177,7 @@ public class QueryResult {
      */
     public double getDouble(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getDouble(columnLabel);
+            return this.resultSet.getDouble(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -168,7 +199,7 @@ public class QueryResult {
      */
     public BigDecimal getBigDecimal(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getBigDecimal(columnLabel);
+            return this.resultSet.getBigDecimal(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -190,7 +221,7 @@ public class QueryResult {
      */
     public byte getByte(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getByte(columnLabel);
+            return this.resultSet.getByte(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -212,7 +243,7 @@ public class QueryResult {
      */
     public Date getDate(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getDate(columnLabel);
+            return this.resultSet.getDate(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -234,7 +265,7 @@ public class QueryResult {
      */
     public boolean getBoolean(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getBoolean(columnLabel);
+            return this.resultSet.getBoolean(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -256,7 +287,7 @@ public class QueryResult {
      */
     public Object getObject(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getObject(columnLabel);
+            return this.resultSet.getObject(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -278,7 +309,7 @@ public class QueryResult {
      */
     public short getShort(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getShort(columnLabel);
+            return this.resultSet.getShort(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -300,7 +331,7 @@ public class QueryResult {
      */
     public long getLong(String columnLabel) throws UncheckedSQLException {
         try {
-            return this.resultSet.getLong(columnLabel);
+            return this.resultSet.getLong(this.findColumn(columnLabel));
         } catch (SQLException exception) {
             throw new UncheckedSQLException(exception);
         }
@@ -463,4 +494,83 @@ public class QueryResult {
     public ResultSet getResultSet() {
         return resultSet;
     }
+
+    /**
+     * Creates a result over the same rows with its own cursor, positioned before the first row.  Duplicates
+     * share their storage, so a result can be read by several threads at once as long as each reads its own duplicate.
+     *
+     * @return The duplicate
+     * @throws UnsupportedOperationException If the result wraps a live cursor instead of a disconnected copy
+     * @throws UncheckedSQLException         If a {@link SQLException} occurs
+     */
+    public QueryResult duplicate() throws UncheckedSQLException {
+        if (!(this.resultSet instanceof CachedRowSet)) {
+            throw new UnsupportedOperationException("Only disconnected query results can be duplicated.");
+        }
+
+        try {
+            ResultSet shared = ((CachedRowSet) this.resultSet).createShared();
+            shared.beforeFirst();
+            return new QueryResult(shared, this.columnLabels);
+        } catch (SQLException exception) {
+            throw new UncheckedSQLException(exception);
+        }
+    }
+
+    /**
+     * Creates a sequential stream that maps every row of this result.  The stream reads its own duplicates, so it
+     * neither moves nor depends on this result's cursor, and splits cleanly for {@link Stream#parallel()}.
+     * The {@link QueryResult} passed to the mapper is positioned on the row to map and must not be moved or retained.
+     *
+     * @param mapper The function that maps a row
+     * @return The stream
+     * @throws UnsupportedOperationException If the result wraps a live cursor instead of a disconnected copy
+     * @see QueryResult#spliterator(Function)
+     */
+    public <T> Stream<T> stream(@NotNull Function<? super QueryResult, ? extends T> mapper) throws UncheckedSQLException {
+        return StreamSupport.stream(this.spliterator(mapper), false);
+    }
+
+    /**
+     * Creates a spliterator that maps every row of this result.  Splitting halves the remaining rows, and each part
+     * reads its rows through its own {@link #duplicate()}.
+     *
+     * @param mapper The function that maps a row
+     * @return The spliterator
+     * @throws UnsupportedOperationException If the result wraps a live cursor instead of a disconnected copy
+     */
+    public <T> Spliterator<T> spliterator(@NotNull Function<? super QueryResult, ? extends T> mapper) throws UncheckedSQLException {
+        return new RowSpliterator<>(this, mapper, 0, this.rowCount());
+    }
+
+    /**
+     * @return The number of rows of this result
+     * @throws UnsupportedOperationException If the result wraps a live cursor instead of a disconnected copy
+     */
+    int rowCount() {
+        if (!(this.resultSet instanceof CachedRowSet)) {
+            throw new UnsupportedOperationException("Only disconnected query results can be split.");
+        }
+        return ((CachedRowSet) this.resultSet).size();
+    }
+
+    /**
+     * @return A rough estimate of the heap used by the rows of this result
+     */
+    long estimateSize() {
+        if (!(this.resultSet instanceof CachedRowSet)) {
+            return ESTIMATED_OVERHEAD_BYTES;
+        }
+
+        try {
+            CachedRowSet rowSet = (CachedRowSet) this.resultSet;
+            return ESTIMATED_OVERHEAD_BYTES + ESTIMATED_CELL_BYTES * rowSet.size() * rowSet.getMetaData().getColumnCount();
+        } catch (SQLException exception) {
+            throw new UncheckedSQLException(exception);
+        }
+    }
+
+    private int findColumn(String columnLabel) throws SQLException {
+        return this.columnLabels != null ? this.columnLabels.indexOf(columnLabel) : this.resultSet.findColumn(columnLabel);
+    }
 }
@@ -0,0 +1,24 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a live {@link ResultSet} to an object.
+ *
+ * @param <T> The type of object each row is mapped to
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Maps the row the result set is currently positioned on.  Implementations
+     * must not move the cursor.
+     *
+     * @param resultSet The result set, positioned on the row to map
+     * @return The mapped object
+     * @throws SQLException If one occurs
+     */
+    T map(@NotNull ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,80 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Splits the rows of a disconnected {@link QueryResult} into halves of a row range.  Each part reads its rows
+ * through its own {@link QueryResult#duplicate()}, which is only created once the part is traversed, so the parts
+ * can be processed by different threads.
+ */
+final class RowSpliterator<T> implements Spliterator<T> {
+    private final QueryResult source;
+    private final Function<? super QueryResult, ? extends T> mapper;
+    private int origin; // 0-based index of the next row
+    private final int fence;
+    private QueryResult cursor;
+
+    RowSpliterator(@NotNull QueryResult source, @NotNull Function<? super QueryResult, ? extends T> mapper, int origin, int fence) {
+        this.source = source;
+        this.mapper = mapper;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.origin >= this.fence) {
+            return false;
+        }
+        action.accept(this.mapper.apply(this.moveTo(this.origin++)));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (this.origin >= this.fence) {
+            return;
+        }
+        QueryResult row = this.moveTo(this.origin);
+        while (true) {
+            action.accept(this.mapper.apply(row));
+            if (++this.origin >= this.fence) {
+                return;
+            }
+            row.next();
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int middle = (this.origin + this.fence) >>> 1;
+        if (this.cursor != null || middle <= this.origin) { // Parts are only split before they are traversed
+            return null;
+        }
+        RowSpliterator<T> prefix = new RowSpliterator<>(this.source, this.mapper, this.origin, middle);
+        this.origin = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.fence - this.origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+    }
+
+    private QueryResult moveTo(int row) {
+        if (this.cursor == null) {
+            this.cursor = this.source.duplicate();
+        }
+        this.cursor.absolute(row + 1);
+        return this.cursor;
+    }
+}
@@ -0,0 +1,140 @@
+package pro.evanwright.saphira.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight, conservative classification of SQL statements.
+ * <p>
+ * This is not a parser: it finds table names with regular expressions after removing comments and string
+ * literals.  It errs on the side of reporting too many tables, which for its users (cache invalidation and
+ * routing) only costs efficiency, never correctness.  Table names are returned lower-cased, unquoted and
+ * without their schema.
+ */
+public final class SQLStatements {
+    private static final String NAME = "(?:`[^`]+`|\"[^\"]+\"|[\\w$]+)";
+    private static final String IDENTIFIER = NAME + "(?:\\s*\\.\\s*" + NAME + ")?";
+    private static final String TABLE_REFERENCE = IDENTIFIER + "(?:\\s+(?:AS\\s+)?[\\w$]+)?";
+
+    private static final Pattern LITERALS_AND_COMMENTS = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'|--[^\\n]*|#[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LEADING_IDENTIFIER = Pattern.compile("^\\s*(" + IDENTIFIER + ")");
+    private static final Pattern READ_TABLES = Pattern.compile(
+            "\\b(?:FROM|JOIN)\\s+(" + TABLE_REFERENCE + "(?:\\s*,\\s*" + TABLE_REFERENCE + ")*)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_TABLES = Pattern.compile("\\b(?:" +
+            "INSERT(?:\\s+(?:LOW_PRIORITY|DELAYED|HIGH_PRIORITY|IGNORE))*\\s+(?:INTO\\s+)?" +
+            "|REPLACE(?:\\s+(?:LOW_PRIORITY|DELAYED))*\\s+(?:INTO\\s+)?" +
+            "|UPDATE(?:\\s+(?:LOW_PRIORITY|IGNORE))*\\s+" +
+            "|TRUNCATE\\s+(?:TABLE\\s+)?" +
+            "|(?:ALTER|DROP|CREATE|RENAME)\\s+(?:TEMPORARY\\s+)?TABLE\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?" +
+            "|INTO\\s+TABLE\\s+" +
+            ")(" + IDENTIFIER + ")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ_ONLY = Pattern.compile("^[\\s(]*(?:SELECT|WITH|SHOW|EXPLAIN|DESCRIBE|DESC|VALUES|TABLE)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOCKING_READ = Pattern.compile("\\bFOR\\s+(?:UPDATE|SHARE)\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b|\\bINTO\\s+(?:OUTFILE|DUMPFILE)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern FINGERPRINT_LITERALS = Pattern.compile(
+            "'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.)*\"|\\b0x[0-9a-f]+\\b|(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?:e[-+]?\\d+)?\\b|\\bnull\\b|\\btrue\\b|\\bfalse\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMMENTS = Pattern.compile("--[^\\n]*|#[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern REPEATED_ROWS = Pattern.compile("\\(\\?\\+\\)(?:\\s*,\\s*\\(\\?\\+\\))+");
+
+    private SQLStatements() {
+    }
+
+    /**
+     * Checks whether a statement only reads data.  Locking reads such as {@code SELECT ... FOR UPDATE}
+     * and {@code SELECT ... INTO OUTFILE} are not considered read-only.
+     *
+     * @param sqlStatement The SQL statement
+     * @return True if the statement is a plain read
+     */
+    public static boolean isReadOnly(@NotNull String sqlStatement) {
+        String stripped = strip(sqlStatement);
+        return READ_ONLY.matcher(stripped).find() && !LOCKING_READ.matcher(stripped).find() && !WRITE_TABLES.matcher(stripped).find();
+    }
+
+    /**
+     * Finds the tables a statement reads from ({@code FROM} and {@code JOIN} clauses).
+     *
+     * @param sqlStatement The SQL statement
+     * @return The table names, possibly empty
+     */
+    public static Set<String> readTables(@NotNull String sqlStatement) {
+        Set<String> tables = new LinkedHashSet<>();
+        addReadTables(strip(sqlStatement), tables);
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Finds the tables a statement may modify.  Tables the statement reads from are included too, since
+     * multi-table updates and deletes name their targets in {@code FROM} and {@code JOIN} clauses.
+     *
+     * @param sqlStatement The SQL statement
+     * @return The table names, or an empty set if the statement could not be classified
+     */
+    public static Set<String> writtenTables(@NotNull String sqlStatement) {
+        String stripped = strip(sqlStatement);
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = WRITE_TABLES.matcher(stripped);
+        while (matcher.find()) {
+            tables.add(normalizeTable(matcher.group(1)));
+        }
+        addReadTables(stripped, tables);
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Normalizes a statement so that executions differing only in literal values, {@code IN} list lengths or the
+     * number of inserted rows share one fingerprint.  Literals become {@code ?}, lists of placeholders become
+     * {@code (?+)}, whitespace and comments are collapsed and the statement is lower-cased.
+     *
+     * @param sqlStatement The SQL statement
+     * @return The fingerprint
+     */
+    public static String fingerprint(@NotNull String sqlStatement) {
+        String fingerprint = FINGERPRINT_LITERALS.matcher(sqlStatement).replaceAll("?");
+        fingerprint = COMMENTS.matcher(fingerprint).replaceAll(" ");
+        fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+        fingerprint = PLACEHOLDER_LIST.matcher(fingerprint).replaceAll("(?+)");
+        fingerprint = REPEATED_ROWS.matcher(fingerprint).replaceAll("(?+)");
+        if (fingerprint.endsWith(";")) {
+            fingerprint = fingerprint.substring(0, fingerprint.length() - 1).trim();
+        }
+        return fingerprint.toLowerCase(Locale.ROOT);
+    }
+
+    private static void addReadTables(String stripped, Set<String> tables) {
+        Matcher matcher = READ_TABLES.matcher(stripped);
+        while (matcher.find()) {
+            for (String reference : matcher.group(1).split(",")) {
+                Matcher identifier = LEADING_IDENTIFIER.matcher(reference);
+                if (identifier.find()) {
+                    tables.add(normalizeTable(identifier.group(1)));
+                }
+            }
+        }
+    }
+
+    private static String strip(String sqlStatement) {
+        return LITERALS_AND_COMMENTS.matcher(sqlStatement).replaceAll(" ");
+    }
+
+    /**
+     * @param identifier A possibly quoted and schema-qualified table name
+     * @return The table name as the other methods of this class report it
+     */
+    static String normalizeTable(String identifier) {
+        String table = identifier.substring(identifier.lastIndexOf('.') + 1).trim();
+        if (table.length() > 1 && (table.charAt(0) == '`' || table.charAt(0) == '"')) {
+            table = table.substring(1, table.length() - 1);
+        }
+        return table.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,19 @@
+package pro.evanwright.saphira.shard;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Spreads keys evenly over the shards by their {@link Object#hashCode()}, which must therefore be stable across
+ * JVMs, as it is for strings, numbers and {@link java.util.UUID}s.  Changing the number of shards moves most keys.
+ */
+public class HashShardStrategy implements ShardStrategy<Object> {
+
+    @Override
+    public int shardFor(@NotNull Object key, int shardCount) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16; // Spread the bits so keys with similar hash codes land on different shards
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return Math.floorMod(hash, shardCount);
+    }
+}
@@ -0,0 +1,51 @@
+package pro.evanwright.saphira.shard;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns contiguous ranges of keys to the shards.  With upper bounds {@code b0 < b1 < ...}, keys below {@code b0}
+ * belong to shard 0, keys from {@code b0} up to {@code b1} to shard 1, and keys from the last bound on to the last shard.
+ *
+ * @param <K> The type of the shard keys
+ */
+public class RangeShardStrategy<K extends Comparable<? super K>> implements ShardStrategy<K> {
+    private final List<K> upperBounds;
+
+    /**
+     * @param upperBounds The exclusive upper bound of every shard but the last, in ascending order
+     */
+    @SafeVarargs
+    public RangeShardStrategy(@NotNull K... upperBounds) {
+        this.upperBounds = new ArrayList<>(upperBounds.length);
+        for (K upperBound : upperBounds) { // Copied without handing the array on, so @SafeVarargs holds
+            this.upperBounds.add(upperBound);
+        }
+        for (int i = 1; i < this.upperBounds.size(); i++) {
+            if (this.upperBounds.get(i - 1).compareTo(this.upperBounds.get(i)) >= 0) {
+                throw new IllegalArgumentException("Upper bounds must be in ascending order.");
+            }
+        }
+    }
+
+    @Override
+    public int shardFor(@NotNull K key, int shardCount) {
+        if (shardCount != this.upperBounds.size() + 1) {
+            throw new IllegalStateException(this.upperBounds.size() + " upper bounds cannot split keys over " + shardCount + " shards.");
+        }
+
+        int low = 0;
+        int high = this.upperBounds.size();
+        while (low < high) { // Find the first bound greater than the key
+            int middle = (low + high) >>> 1;
+            if (this.upperBounds.get(middle).compareTo(key) > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
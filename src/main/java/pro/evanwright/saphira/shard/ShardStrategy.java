@@ -0,0 +1,22 @@
+package pro.evanwright.saphira.shard;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Picks the shard that owns a shard key.  Implementations must be deterministic: the same key and shard count
+ * must always map to the same shard, across restarts and on every application instance.
+ *
+ * @param <K> The type of the shard keys
+ * @see HashShardStrategy
+ * @see RangeShardStrategy
+ */
+@FunctionalInterface
+public interface ShardStrategy<K> {
+
+    /**
+     * @param key        The shard key
+     * @param shardCount The number of shards
+     * @return The index of the shard that owns the key, from 0 to {@code shardCount - 1}
+     */
+    int shardFor(@NotNull K key, int shardCount);
+}
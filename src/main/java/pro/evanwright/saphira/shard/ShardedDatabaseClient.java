@@ -0,0 +1,166 @@
+package pro.evanwright.saphira.shard;
+
+import org.jetbrains.annotations.NotNull;
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.query.ColumnarQueryResult;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Routes operations over several {@link DatabaseClient}s, each owning a shard of the data, by a shard key.
+ * <p>
+ * Every shard keeps its own pool and asynchronous executor, so writes scale with the number of shards.  Keyed
+ * operations go to the shard chosen by the {@link ShardStrategy}; {@link #forKey(Object)} exposes that shard's full
+ * client API, including transactions, which never span shards.  {@link #queryAll(String, Object...)} runs a query on
+ * every shard in parallel and concatenates the results.
+ * <p>
+ * This is not itself a {@link DatabaseClient}: an operation without a shard key has no single connection to run on.
+ *
+ * @param <K> The type of the shard keys
+ */
+public class ShardedDatabaseClient<K> {
+    private final List<DatabaseClient> shards;
+    private final ShardStrategy<? super K> shardStrategy;
+
+    /**
+     * @param shards        The clients of the shards, in shard index order
+     * @param shardStrategy The strategy that maps shard keys to shard indexes
+     */
+    public ShardedDatabaseClient(@NotNull List<? extends DatabaseClient> shards, @NotNull ShardStrategy<? super K> shardStrategy) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required.");
+        }
+
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.shardStrategy = shardStrategy;
+    }
+
+    /**
+     * @param key The shard key
+     * @return The index of the shard that owns the key
+     */
+    public int shardIndex(@NotNull K key) {
+        int index = this.shardStrategy.shardFor(key, this.shards.size());
+        if (index < 0 || index >= this.shards.size()) {
+            throw new IllegalStateException("Shard strategy returned shard " + index + " for " + this.shards.size() + " shards.");
+        }
+        return index;
+    }
+
+    /**
+     * @param key The shard key
+     * @return The client of the shard that owns the key
+     */
+    public DatabaseClient forKey(@NotNull K key) {
+        return this.shards.get(this.shardIndex(key));
+    }
+
+    /**
+     * @see DatabaseClient#query(String, Object...)
+     */
+    public QueryResult query(@NotNull K key, @NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        return this.forKey(key).query(sqlStatement, params);
+    }
+
+    /**
+     * @see DatabaseClient#queryAsync(String, Object...)
+     */
+    public CompletableFuture<QueryResult> queryAsync(@NotNull K key, @NotNull String sqlStatement, @NotNull Object... params) {
+        return this.forKey(key).queryAsync(sqlStatement, params);
+    }
+
+    /**
+     * @see DatabaseClient#update(String, Object...)
+     */
+    public int update(@NotNull K key, @NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        return this.forKey(key).update(sqlStatement, params);
+    }
+
+    /**
+     * @see DatabaseClient#updateAsync(String, Object...)
+     */
+    public CompletableFuture<Integer> updateAsync(@NotNull K key, @NotNull String sqlStatement, @NotNull Object... params) {
+        return this.forKey(key).updateAsync(sqlStatement, params);
+    }
+
+    /**
+     * Runs a transaction on the shard that owns the key.  Every operation of the transaction must use
+     * the client returned by {@link #forKey(Object)} for the same key.
+     *
+     * @see DatabaseClient#executeTransaction(Supplier)
+     */
+    public <T> T executeTransaction(@NotNull K key, @NotNull Supplier<T> supplier) throws UncheckedSQLException {
+        return this.forKey(key).executeTransaction(supplier);
+    }
+
+    /**
+     * @see ShardedDatabaseClient#executeTransaction(Object, Supplier)
+     */
+    public <T> CompletableFuture<T> executeTransactionAsync(@NotNull K key, @NotNull Supplier<T> supplier) {
+        return this.forKey(key).executeTransactionAsync(supplier);
+    }
+
+    /**
+     * Runs a query on every shard in parallel and concatenates the results in shard order.  Ordering, limits and
+     * aggregates in the statement apply to each shard separately.
+     *
+     * @param sqlStatement The SQL statement to execute
+     * @param params       The parameters for the statement
+     * @return The rows of every shard
+     * @throws UncheckedSQLException If the query fails on any shard
+     */
+    public ColumnarQueryResult queryAll(@NotNull String sqlStatement, @NotNull Object... params) throws UncheckedSQLException {
+        try {
+            return this.queryAllAsync(sqlStatement, params).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Does the same thing as {@link ShardedDatabaseClient#queryAll(String, Object...)} except
+     * returns a {@link CompletableFuture}.
+     *
+     * @see ShardedDatabaseClient#queryAll(String, Object...)
+     */
+    public CompletableFuture<ColumnarQueryResult> queryAllAsync(@NotNull String sqlStatement, @NotNull Object... params) {
+        List<CompletableFuture<QueryResult>> futures = new ArrayList<>(this.shards.size());
+        for (DatabaseClient shard : this.shards) {
+            futures.add(shard.queryAsync(sqlStatement, params));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<QueryResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<QueryResult> future : futures) {
+                results.add(future.join());
+            }
+            return ColumnarQueryResult.concat(results);
+        });
+    }
+
+    /**
+     * @return The clients of the shards, in shard index order
+     */
+    public List<DatabaseClient> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Shuts down the client of every shard.
+     */
+    public void shutdown() {
+        for (DatabaseClient shard : this.shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+public class DatabaseSessionTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Accounts");
+        mockMySQLDatabaseClient.update("CREATE TABLE Accounts (id INT PRIMARY KEY, balance INT)");
+        mockMySQLDatabaseClient.update("INSERT INTO Accounts VALUES (1, 100), (2, 50)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void sessionHoldsOneConnectionAcrossStagesTest() {
+        DatabaseSession session = mockMySQLDatabaseClient.openSession();
+        Assertions.assertEquals(1, mockMySQLDatabaseClient.getActiveConnections());
+
+        int balance = session.updateAsync("UPDATE Accounts SET balance = balance + ? WHERE id = ?", 5, 1)
+                .thenCompose(updated -> session.updateAsync("UPDATE Accounts SET balance = balance + ? WHERE id = ?", 5, 1))
+                .thenCompose(updated -> session.queryAsync("SELECT balance FROM Accounts WHERE id = ?", 1))
+                .thenApply(result -> result.<Integer>getFirstColValue().orElse(-1))
+                .whenComplete((result, throwable) -> session.close())
+                .join();
+
+        Assertions.assertEquals(110, balance);
+        Assertions.assertTrue(session.isClosed());
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+        Assertions.assertThrows(IllegalStateException.class, () -> session.query("SELECT 1"));
+    }
+
+    @Test
+    public void transactionalSessionCommitsAndRollsBackTest() {
+        try (DatabaseSession session = mockMySQLDatabaseClient.openSession(true)) {
+            session.update("UPDATE Accounts SET balance = balance - ? WHERE id = ?", 30, 1);
+            session.update("UPDATE Accounts SET balance = balance + ? WHERE id = ?", 30, 2);
+            Assertions.assertEquals(Integer.valueOf(80), session.queryFirst("SELECT balance FROM Accounts WHERE id = ?", resultSet -> resultSet.getInt(1), 2).orElse(null));
+            session.commit();
+
+            session.update("DELETE FROM Accounts");
+            session.rollback();
+
+            session.update("DELETE FROM Accounts WHERE id = ?", 2); // Rolled back when the session closes
+        }
+
+        Assertions.assertEquals(70, (int) mockMySQLDatabaseClient.query("SELECT balance FROM Accounts WHERE id = ?", 1).getFirstColValue().orElse(-1));
+        Assertions.assertEquals(80, (int) mockMySQLDatabaseClient.query("SELECT balance FROM Accounts WHERE id = ?", 2).getFirstColValue().orElse(-1));
+        try (DatabaseSession session = mockMySQLDatabaseClient.openSession()) {
+            Assertions.assertThrows(IllegalStateException.class, session::commit);
+        }
+    }
+}
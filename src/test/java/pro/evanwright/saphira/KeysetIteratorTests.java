@@ -0,0 +1,109 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class KeysetIteratorTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Scores");
+        mockMySQLDatabaseClient.update("CREATE TABLE Scores (season INT, player INT, points INT, PRIMARY KEY (season, player))");
+        mockMySQLDatabaseClient.update("INSERT INTO Scores SELECT MOD(X, 4), X, X * 10 FROM SYSTEM_RANGE(1, 100)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void pagesBySingleKeyTest() {
+        List<Integer> players = new ArrayList<>();
+        try (KeysetIterator<Integer> pages = mockMySQLDatabaseClient.queryPages("SELECT player FROM Scores WHERE points > ?;", "player", 16,
+                resultSet -> resultSet.getInt("player"), 200)) {
+            while (pages.hasNext()) {
+                List<Integer> page = pages.next();
+                Assertions.assertTrue(page.size() <= 16);
+                players.addAll(page);
+            }
+            Assertions.assertEquals(5, pages.getPageCount());
+            Assertions.assertThrows(NoSuchElementException.class, pages::next);
+        }
+
+        Assertions.assertEquals(80, players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Assertions.assertEquals(21 + i, (int) players.get(i));
+        }
+
+        try (KeysetIterator<Integer> empty = mockMySQLDatabaseClient.queryPages("SELECT player FROM Scores WHERE points < 0", "player", 16,
+                resultSet -> resultSet.getInt(1))) {
+            Assertions.assertFalse(empty.hasNext());
+        }
+    }
+
+    @Test
+    public void pagesByCompositeKeyTest() {
+        List<String> rows = new ArrayList<>();
+        try (KeysetIterator<String> pages = mockMySQLDatabaseClient.queryPages("SELECT season, player FROM Scores", Arrays.asList("season", "player"), 7,
+                resultSet -> resultSet.getInt("season") + ":" + resultSet.getInt("player"))) {
+            pages.forEachRemaining(rows::addAll);
+        }
+
+        Assertions.assertEquals(100, rows.size());
+        Assertions.assertEquals("0:4", rows.get(0));
+        Assertions.assertEquals("0:100", rows.get(24));
+        Assertions.assertEquals("1:1", rows.get(25));
+        Assertions.assertEquals("3:99", rows.get(99));
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+    }
+
+    @Test
+    public void mergesSeekIntoQueryConditionTest() {
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Players");
+        mockMySQLDatabaseClient.update("CREATE TABLE Players (id INT PRIMARY KEY, name VARCHAR(32))");
+        mockMySQLDatabaseClient.update("INSERT INTO Players SELECT X, CONCAT('player', X) FROM SYSTEM_RANGE(1, 100)");
+
+        // The OR must stay grouped, the join needs a qualified key, and the trailing comment must not swallow the seek
+        List<String> names = new ArrayList<>();
+        try (KeysetIterator<String> pages = mockMySQLDatabaseClient.queryPages("SELECT p.id, p.name FROM Players p JOIN Scores s ON s.player = p.id "
+                        + "WHERE s.season = ? OR p.name = 'player1' -- seasons start at 0", "p.id", 4,
+                resultSet -> resultSet.getString("name"), 2)) {
+            pages.forEachRemaining(names::addAll);
+        }
+
+        Assertions.assertEquals(26, names.size());
+        Assertions.assertEquals("player1", names.get(0));
+        Assertions.assertEquals("player2", names.get(1));
+        Assertions.assertEquals("player98", names.get(25));
+    }
+
+    @Test
+    public void rejectsUnmergeableQueriesTest() {
+        for (String query : Arrays.asList("SELECT DISTINCT season FROM Scores",
+                "SELECT season, SUM(points) FROM Scores GROUP BY season",
+                "SELECT player FROM Scores WHERE season = 1 UNION SELECT player FROM Scores WHERE season = 2",
+                "SELECT player FROM Scores ORDER BY points")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> mockMySQLDatabaseClient.queryPages(query, "player", 10, resultSet -> resultSet.getInt(1)));
+        }
+
+        // Grouping inside a subquery or a literal does not affect the outer query
+        List<Integer> seasons = new ArrayList<>();
+        try (KeysetIterator<Integer> pages = mockMySQLDatabaseClient.queryPages("SELECT season FROM (SELECT season FROM Scores GROUP BY season) seasons "
+                + "WHERE 'ORDER BY' <> ''", "season", 3, resultSet -> resultSet.getInt(1))) {
+            pages.forEachRemaining(seasons::addAll);
+        }
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), seasons);
+    }
+}
@@ -0,0 +1,68 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class QueryStreamTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Numbers");
+        mockMySQLDatabaseClient.update("CREATE TABLE Numbers (n INT PRIMARY KEY)");
+        mockMySQLDatabaseClient.update("INSERT INTO Numbers SELECT X FROM SYSTEM_RANGE(1, 1000)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void lazyCursorStreamTest() {
+        Stream<Integer> lazy = mockMySQLDatabaseClient.stream("SELECT n FROM Numbers WHERE n > ? ORDER BY n", resultSet -> resultSet.getInt(1), 990);
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections()); // Nothing runs before the terminal operation
+        Assertions.assertEquals(9955, lazy.mapToInt(Integer::intValue).sum());
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+
+        try (Stream<Integer> numbers = mockMySQLDatabaseClient.stream("SELECT n FROM Numbers ORDER BY n", resultSet -> resultSet.getInt(1))) {
+            Assertions.assertEquals(3, (int) numbers.skip(2).findFirst().orElse(-1));
+            Assertions.assertEquals(1, mockMySQLDatabaseClient.getActiveConnections()); // The abandoned cursor is still open
+        }
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+    }
+
+    @Test
+    public void parallelMaterializedStreamTest() {
+        for (boolean columnar : new boolean[] {false, true}) {
+            mockMySQLDatabaseClient.setColumnarResults(columnar);
+            QueryResult result = mockMySQLDatabaseClient.query("SELECT n FROM Numbers ORDER BY n");
+
+            Spliterator<Integer> spliterator = result.spliterator(row -> row.getInt(1));
+            Spliterator<Integer> prefix = spliterator.trySplit();
+            Assertions.assertEquals(500, prefix.estimateSize());
+            Assertions.assertEquals(500, spliterator.estimateSize());
+
+            long sum = result.stream(row -> (long) row.getInt(1)).parallel().mapToLong(Long::longValue).sum();
+            Assertions.assertEquals(500500L, sum);
+
+            List<Integer> ordered = result.stream(row -> row.getInt(1)).parallel().collect(Collectors.toList());
+            Assertions.assertEquals(1000, ordered.size());
+            Assertions.assertEquals(1, (int) ordered.get(0));
+            Assertions.assertEquals(1000, (int) ordered.get(999));
+            Assertions.assertTrue(result.next()); // The result's own cursor was not moved
+            Assertions.assertEquals(1, result.getInt(1));
+        }
+    }
+}
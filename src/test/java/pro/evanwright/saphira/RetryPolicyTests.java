@@ -0,0 +1,87 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.metrics.MetricsCollector;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryPolicyTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Counters");
+        mockMySQLDatabaseClient.update("CREATE TABLE Counters (id INT PRIMARY KEY, hits INT)");
+        mockMySQLDatabaseClient.update("INSERT INTO Counters VALUES (1, 0)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void retriesTransientFailuresTest() {
+        MetricsCollector metricsCollector = new MetricsCollector();
+        mockMySQLDatabaseClient.setDatabaseListener(metricsCollector);
+        mockMySQLDatabaseClient.setRetryPolicy(new RetryPolicy(3, 1, 5));
+
+        AtomicInteger attempts = new AtomicInteger();
+        int hits = mockMySQLDatabaseClient.executeTransaction(() -> {
+            mockMySQLDatabaseClient.update("UPDATE Counters SET hits = hits + 1 WHERE id = ?", 1);
+            if (attempts.incrementAndGet() < 3) { // Rolled back, so only the last attempt's update counts
+                throw new UncheckedSQLException(new SQLTransactionRollbackException("Deadlock found", "40001", 1213));
+            }
+            return mockMySQLDatabaseClient.querySingle("SELECT hits FROM Counters WHERE id = ?", rs -> rs.getInt(1), 1);
+        });
+        Assertions.assertEquals(3, attempts.get());
+        Assertions.assertEquals(1, hits);
+        Assertions.assertEquals(2, metricsCollector.snapshot().get(MetricsCollector.TRANSACTION_FINGERPRINT).retries);
+
+        attempts.set(0);
+        Assertions.assertThrows(UncheckedSQLException.class, () -> mockMySQLDatabaseClient.executeTransaction(() -> {
+            attempts.incrementAndGet();
+            throw new UncheckedSQLException(new SQLException("Lock wait timeout exceeded", "HY000", 1205));
+        }));
+        Assertions.assertEquals(3, attempts.get()); // Gave up after the last attempt
+
+        attempts.set(0);
+        Assertions.assertThrows(UncheckedSQLException.class, () -> mockMySQLDatabaseClient.executeTransaction(() -> {
+            attempts.incrementAndGet();
+            return mockMySQLDatabaseClient.update("INSERT INTO Missing VALUES (1)");
+        }));
+        Assertions.assertEquals(1, attempts.get()); // Not transient
+        Assertions.assertEquals(1, (int) mockMySQLDatabaseClient.querySingle("SELECT hits FROM Counters WHERE id = ?", rs -> rs.getInt(1), 1));
+    }
+
+    @Test
+    public void classifiesAndBacksOffTest() {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 10, 50);
+        Assertions.assertTrue(retryPolicy.isRetryable(new UncheckedSQLException(new SQLException("Deadlock", "40P01"))));
+        Assertions.assertTrue(retryPolicy.isRetryable(new SQLTimeoutException("Lock wait timeout exceeded", "HY000", 1205)));
+        Assertions.assertFalse(retryPolicy.isRetryable(new UncheckedSQLException(new SQLTimeoutException("Query timed out"))));
+        Assertions.assertFalse(retryPolicy.isRetryable(new IllegalStateException()));
+
+        SQLException batchFailure = new SQLException("Batch failed");
+        batchFailure.setNextException(new SQLException("Deadlock found", "40001", 1213));
+        Assertions.assertTrue(retryPolicy.isRetryable(new UncheckedSQLException(batchFailure)));
+
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(retryPolicy.backoffMillis(1) <= 10);
+            Assertions.assertTrue(retryPolicy.backoffMillis(2) <= 20);
+            Assertions.assertTrue(retryPolicy.backoffMillis(40) <= 50);
+            Assertions.assertTrue(retryPolicy.backoffMillis(40) >= 0);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, 10, 50));
+    }
+}
@@ -0,0 +1,117 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class RowPublisherTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Numbers");
+        mockMySQLDatabaseClient.update("CREATE TABLE Numbers (n INT PRIMARY KEY)");
+        mockMySQLDatabaseClient.update("INSERT INTO Numbers SELECT X FROM SYSTEM_RANGE(1, 100)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void emitsRowsOnDemandTest() throws Exception {
+        Publisher<Integer> publisher = mockMySQLDatabaseClient.queryPublisher("SELECT n FROM Numbers WHERE n > ? ORDER BY n",
+                resultSet -> resultSet.getInt(1), 10);
+        BatchingSubscriber subscriber = new BatchingSubscriber(7, Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        subscriber.completed.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(90, subscriber.rows.size());
+        Assertions.assertEquals(11, (int) subscriber.rows.get(0));
+        Assertions.assertEquals(100, (int) subscriber.rows.get(89));
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+
+        // The publisher is cold, every subscription runs the query again
+        BatchingSubscriber again = new BatchingSubscriber(Long.MAX_VALUE, Long.MAX_VALUE);
+        publisher.subscribe(again);
+        again.completed.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(90, again.rows.size());
+    }
+
+    @Test
+    public void cancelReleasesConnectionTest() throws Exception {
+        BatchingSubscriber subscriber = new BatchingSubscriber(5, 12);
+        mockMySQLDatabaseClient.queryPublisher("SELECT n FROM Numbers ORDER BY n", resultSet -> resultSet.getInt(1)).subscribe(subscriber);
+
+        subscriber.completed.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(12, subscriber.rows.size());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mockMySQLDatabaseClient.getActiveConnections() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+
+        BatchingSubscriber invalid = new BatchingSubscriber(0, Long.MAX_VALUE);
+        mockMySQLDatabaseClient.queryPublisher("SELECT n FROM Numbers", resultSet -> resultSet.getInt(1)).subscribe(invalid);
+        Assertions.assertThrows(Exception.class, () -> invalid.completed.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Requests rows in fixed batches and cancels after a number of rows.
+     */
+    private static class BatchingSubscriber implements Subscriber<Integer> {
+        private final long batchSize;
+        private final long cancelAfter;
+        private final List<Integer> rows = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Void> completed = new CompletableFuture<>();
+        private Subscription subscription;
+        private long outstanding;
+
+        BatchingSubscriber(long batchSize, long cancelAfter) {
+            this.batchSize = batchSize;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            this.outstanding = this.batchSize;
+            subscription.request(this.batchSize);
+        }
+
+        @Override
+        public void onNext(Integer row) {
+            this.rows.add(row);
+            if (this.rows.size() == this.cancelAfter) {
+                this.subscription.cancel();
+                this.completed.complete(null);
+            } else if (--this.outstanding == 0) {
+                this.outstanding = this.batchSize;
+                this.subscription.request(this.batchSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.completed.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed.complete(null);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.List;
+
+public class StatementCacheTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+    private StatementCache statementCache;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient("statement_cache", new ExecutorSettings());
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Items");
+        mockMySQLDatabaseClient.update("CREATE TABLE Items (id INT PRIMARY KEY, parent INT)");
+        mockMySQLDatabaseClient.update("INSERT INTO Items VALUES (1, NULL), (2, 1), (3, 2)");
+
+        statementCache = new StatementCache(2);
+        mockMySQLDatabaseClient.setStatementCache(statementCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void reusesStatementsAcrossCheckoutsTest() {
+        for (int id = 1; id <= 3; id++) {
+            Assertions.assertEquals(1, mockMySQLDatabaseClient.update("UPDATE Items SET parent = parent WHERE id = ?", id));
+        }
+        Assertions.assertEquals(1, statementCache.getMissCount());
+        Assertions.assertEquals(2, statementCache.getHitCount());
+
+        // Parameters and row limits of the previous execution must not leak into the next
+        Assertions.assertTrue(mockMySQLDatabaseClient.queryFirst("SELECT id FROM Items ORDER BY id", resultSet -> resultSet.getInt(1)).isPresent());
+        Assertions.assertEquals(3, mockMySQLDatabaseClient.queryList("SELECT id FROM Items ORDER BY id", resultSet -> resultSet.getInt(1)).size());
+
+        mockMySQLDatabaseClient.query("SELECT COUNT(*) FROM Items");
+        Assertions.assertEquals(1, statementCache.getEvictionCount());
+        Assertions.assertEquals(2, statementCache.size());
+
+        Assertions.assertThrows(UncheckedSQLException.class, () -> mockMySQLDatabaseClient.update("UPDATE Items SET id = ? WHERE id = ?", 1, 2));
+        Assertions.assertEquals(2, statementCache.size()); // The failed statement was closed, not cached
+    }
+
+    @Test
+    public void nestedExecutionsOfOneStatementTest() {
+        String parentOf = "SELECT parent FROM Items WHERE id = ?";
+        List<Integer> grandparents = mockMySQLDatabaseClient.executeTransaction(() -> mockMySQLDatabaseClient.queryList(parentOf, resultSet ->
+                mockMySQLDatabaseClient.queryFirst(parentOf, row -> row.getInt(1), resultSet.getInt(1)).orElse(-1), 3));
+
+        Assertions.assertEquals(1, (int) grandparents.get(0));
+        Assertions.assertEquals(2, statementCache.getMissCount());
+
+        statementCache.clear();
+        Assertions.assertEquals(0, statementCache.size());
+    }
+
+    @Test
+    public void rollsBackOnAnyTransactionFailureTest() {
+        Assertions.assertThrows(IllegalStateException.class, () -> mockMySQLDatabaseClient.executeTransaction(() -> {
+            mockMySQLDatabaseClient.update("INSERT INTO Items VALUES (?, ?)", 4, 3);
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals(1, statementCache.getMissCount()); // The insert went through a cached statement
+        Assertions.assertEquals(0L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Items WHERE id = ?", resultSet -> resultSet.getLong(1), 4));
+    }
+}
@@ -0,0 +1,78 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class StatementHandleTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Players");
+        mockMySQLDatabaseClient.update("CREATE TABLE Players (id BIGINT PRIMARY KEY, name VARCHAR(255), coins INT)");
+        mockMySQLDatabaseClient.update("INSERT INTO Players VALUES (1, 'Alpha', 10), (2, 'Beta', 20)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void parsesNamedParametersOnceTest() {
+        StatementHandle handle = mockMySQLDatabaseClient.prepare(
+                "SELECT name FROM Players WHERE (id = :id OR coins > :id * 100) AND name <> ':id' /* :ignored */ AND name <> ?");
+
+        Assertions.assertEquals("SELECT name FROM Players WHERE (id = ? OR coins > ? * 100) AND name <> ':id' /* :ignored */ AND name <> ?",
+                handle.getParsedSqlStatement());
+        Assertions.assertEquals(2, handle.getParameterCount());
+        Assertions.assertEquals(Arrays.asList("id"), Arrays.asList(handle.getParameterNames().toArray()));
+
+        Assertions.assertEquals("Beta", handle.query(2L, "Alpha").getFirstColValue().orElse(null));
+        Assertions.assertEquals("Alpha", handle.queryFirst(1L, (parameters, id) -> parameters.setLong("id", id).setString(2, "Beta"),
+                resultSet -> resultSet.getString(1)).orElse(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> handle.query(1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> handle.update(1L, (parameters, id) -> parameters.setLong("missing", id)));
+    }
+
+    @Test
+    public void typedBindersTest() {
+        StatementHandle addCoins = mockMySQLDatabaseClient.prepare("UPDATE Players SET coins = coins + :coins WHERE id = :id");
+        Player alpha = new Player(1, 5);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(1, addCoins.update(alpha, Player::bind));
+        }
+        Assertions.assertEquals(2, addCoins.executeBatch(Arrays.asList(new Player(1, 1), new Player(2, 2)), Player::bind));
+        Assertions.assertEquals(Integer.valueOf(3), addCoins.updateAsync(new Player(3, 1), Player::bind).thenApply(updated -> updated + 3).join());
+
+        StatementHandle coinsOf = mockMySQLDatabaseClient.prepare("SELECT coins FROM Players WHERE id = :id");
+        List<Integer> coins = coinsOf.queryList(1L, (parameters, id) -> parameters.setLong("id", id), resultSet -> {
+            // A nested execution of the same handle on this thread gets its own parameters
+            Assertions.assertEquals(22, (int) coinsOf.queryFirst(2L, (parameters, id) -> parameters.setLong(1, id), row -> row.getInt(1)).orElse(-1));
+            return resultSet.getInt(1);
+        });
+        Assertions.assertEquals(26, (int) coins.get(0));
+    }
+
+    private static class Player {
+        private final long id;
+        private final int coins;
+
+        Player(long id, int coins) {
+            this.id = id;
+            this.coins = coins;
+        }
+
+        static void bind(StatementParameters parameters, Player player) throws java.sql.SQLException {
+            parameters.setLong("id", player.id).setInt("coins", player.coins);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package pro.evanwright.saphira;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.QueryResult;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TimeoutTests {
+    // Billions of row pairs, which H2 only stops early when the statement is cancelled or times out
+    private static final String SLOW_QUERY = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b WHERE a.X + b.X = 7";
+
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Accounts");
+        mockMySQLDatabaseClient.update("CREATE TABLE Accounts (id INT PRIMARY KEY, balance INT)");
+        mockMySQLDatabaseClient.update("INSERT INTO Accounts VALUES (1, 100)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void deadlineCoversTransactionTest() {
+        long started = System.nanoTime();
+        UncheckedSQLException exception = Assertions.assertThrows(UncheckedSQLException.class, () ->
+                mockMySQLDatabaseClient.withTimeout(1, TimeUnit.SECONDS, () -> mockMySQLDatabaseClient.executeTransaction(() -> {
+                    mockMySQLDatabaseClient.update("UPDATE Accounts SET balance = 0 WHERE id = ?", 1);
+                    return mockMySQLDatabaseClient.query(SLOW_QUERY);
+                })));
+        Assertions.assertTrue(exception.getCause() instanceof SQLTimeoutException, exception.getCause().toString());
+        Assertions.assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertEquals(100, (int) mockMySQLDatabaseClient.querySingle("SELECT balance FROM Accounts WHERE id = ?", rs -> rs.getInt(1), 1));
+
+        mockMySQLDatabaseClient.setDefaultTimeout(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(1000, mockMySQLDatabaseClient.getDefaultTimeoutMillis());
+        Assertions.assertThrows(UncheckedSQLException.class, () -> mockMySQLDatabaseClient.query(SLOW_QUERY));
+        CompletableFuture<QueryResult> async = mockMySQLDatabaseClient.withTimeout(1, TimeUnit.MILLISECONDS, () -> {
+            sleep(10);
+            return mockMySQLDatabaseClient.queryAsync("SELECT balance FROM Accounts");
+        });
+        Assertions.assertThrows(Exception.class, async::join); // The worker inherits the caller's expired deadline
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+    }
+
+    @Test
+    public void cancellingFutureCancelsStatementTest() throws Exception {
+        CompletableFuture<QueryResult> future = mockMySQLDatabaseClient.queryAsync(SLOW_QUERY);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mockMySQLDatabaseClient.getActiveConnections() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100); // Let the statement start executing
+
+        Assertions.assertTrue(future.cancel(true));
+        deadline = System.currentTimeMillis() + 5000;
+        while (mockMySQLDatabaseClient.getActiveConnections() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+        Assertions.assertEquals(100, (int) mockMySQLDatabaseClient.querySingle("SELECT balance FROM Accounts WHERE id = ?", rs -> rs.getInt(1), 1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pro.evanwright.saphira.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class BulkWriterTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Players");
+        mockMySQLDatabaseClient.update("CREATE TABLE Players (id INT PRIMARY KEY, name VARCHAR(255), coins INT)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void chunkedInsertTest() {
+        List<Long> progress = new ArrayList<>();
+        long affected = new BulkWriter("Players", "id", "name", "coins")
+                .setRowsPerStatement(100)
+                .setRowsPerTransaction(1000)
+                .setProgressListener((written, rowsAffected) -> progress.add(written))
+                .write(mockMySQLDatabaseClient, IntStream.range(0, 2500).mapToObj(i -> new Object[]{i, "Player " + i, i}).iterator());
+
+        Assertions.assertEquals(2500, affected);
+        Assertions.assertEquals(Arrays.asList(1000L, 2000L, 2500L), progress);
+        Assertions.assertEquals(2500L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Players", rs -> rs.getLong(1)));
+    }
+
+    @Test
+    public void upsertAndStatementSizeLimitTest() {
+        List<Object[]> rows = Arrays.asList(new Object[]{1, "Alice", 10}, new Object[]{2, "Bob", 20}, new Object[]{1, "Alice", 5});
+
+        new BulkWriter("Players", "id", "name", "coins")
+                .setUpsertClause("ON DUPLICATE KEY UPDATE coins = coins + VALUES(coins)")
+                .setMaxStatementBytes(1) // Forces one row per statement
+                .write(mockMySQLDatabaseClient, rows);
+
+        Assertions.assertEquals(15, (int) mockMySQLDatabaseClient.querySingle("SELECT coins FROM Players WHERE id = ?", rs -> rs.getInt(1), 1));
+        Assertions.assertEquals(20, (int) mockMySQLDatabaseClient.querySingle("SELECT coins FROM Players WHERE id = ?", rs -> rs.getInt(1), 2));
+    }
+}
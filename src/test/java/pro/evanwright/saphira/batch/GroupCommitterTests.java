@@ -0,0 +1,136 @@
+package pro.evanwright.saphira.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class GroupCommitterTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Events");
+        mockMySQLDatabaseClient.update("CREATE TABLE Events (id INT PRIMARY KEY)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void batchesConcurrentUpdatesTest() {
+        mockMySQLDatabaseClient.enableGroupCommit(60000, 5);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int id = i;
+            futures.add(mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, id)));
+        }
+
+        futures.forEach(future -> Assertions.assertEquals(1, future.join()));
+        Assertions.assertEquals(2, mockMySQLDatabaseClient.getGroupCommitter().getBatchCount());
+        Assertions.assertEquals(10L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Events", rs -> rs.getLong(1)));
+    }
+
+    @Test
+    public void returnsEachInsertsOwnCountTest() {
+        mockMySQLDatabaseClient.enableGroupCommit(60000, 3);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int id = i * 10;
+            futures.add(mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) SELECT X FROM SYSTEM_RANGE(?, ?)", ps -> {
+                ps.setInt(1, id);
+                ps.setInt(2, id + id / 10); // Inserts 1, 2 and 3 rows
+            }));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(i + 1, futures.get(i).join());
+        }
+        Assertions.assertEquals(1, mockMySQLDatabaseClient.getGroupCommitter().getBatchCount());
+        Assertions.assertEquals(6L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Events", rs -> rs.getLong(1)));
+    }
+
+    @Test
+    public void windowFlushAndFailureTest() {
+        mockMySQLDatabaseClient.enableGroupCommit(200, 100);
+
+        CompletableFuture<Integer> first = mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 1));
+        CompletableFuture<Integer> duplicate = mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 1));
+
+        Assertions.assertThrows(CompletionException.class, first::join); // The whole batch is rolled back
+        Assertions.assertThrows(CompletionException.class, duplicate::join);
+        Assertions.assertEquals(0L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Events", rs -> rs.getLong(1)));
+
+        Assertions.assertEquals(1, mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 2)).join());
+    }
+
+    @Test
+    public void cancellationAndDeadlinesTest() {
+        mockMySQLDatabaseClient.enableGroupCommit(200, 100);
+
+        CompletableFuture<Integer> kept = mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 1));
+        CompletableFuture<Integer> withdrawn = mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 2));
+        CompletableFuture<Integer> late = mockMySQLDatabaseClient.withTimeout(50, TimeUnit.MILLISECONDS, () ->
+                mockMySQLDatabaseClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 3)));
+        Assertions.assertTrue(withdrawn.cancel(true));
+
+        Assertions.assertEquals(1, kept.join());
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, late::join); // Its deadline passed within the window
+        Assertions.assertTrue(exception.getCause() instanceof UncheckedSQLException);
+        Assertions.assertTrue(exception.getCause().getCause() instanceof SQLTimeoutException);
+        Assertions.assertEquals(1, mockMySQLDatabaseClient.getGroupCommitter().getStatementCount());
+        Assertions.assertEquals(1L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Events", rs -> rs.getLong(1)));
+    }
+
+    @Test
+    public void pinsCallerAfterWriteTest() {
+        ThreadLocal<String> caller = ThreadLocal.withInitial(() -> "worker");
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        MockMySQLDatabaseClient pinningClient = new MockMySQLDatabaseClient() {
+            @Override
+            protected void afterWrite() {
+                pinned.add(caller.get());
+            }
+
+            @Override
+            protected <T> Supplier<T> propagateContext(Supplier<T> task) {
+                String callerName = caller.get();
+                return () -> {
+                    caller.set(callerName);
+                    try {
+                        return task.get();
+                    } finally {
+                        caller.remove();
+                    }
+                };
+            }
+        };
+
+        try {
+            pinningClient.enableGroupCommit(10, 100);
+            caller.set("test");
+            Assertions.assertEquals(1, pinningClient.updateAsync("INSERT INTO Events (id) VALUES (?)", ps -> ps.setInt(1, 1)).join());
+            Assertions.assertTrue(pinned.contains("test"), pinned.toString()); // Pinned before the future completed
+        } finally {
+            caller.remove();
+            pinningClient.shutdown();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pro.evanwright.saphira.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class WriteBehindBufferTests {
+    private static final String UPSERT_SQL = "INSERT INTO Coins (id, coins) VALUES (?, ?) ON DUPLICATE KEY UPDATE coins = coins + VALUES(coins)";
+
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Coins");
+        mockMySQLDatabaseClient.update("CREATE TABLE Coins (id INT PRIMARY KEY, coins INT)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void coalescesMutationsPerKeyTest() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (WriteBehindBuffer<Integer, Integer> buffer = new WriteBehindBuffer<>(mockMySQLDatabaseClient, UPSERT_SQL,
+                (ps, id, delta) -> {
+                    ps.setInt(1, id);
+                    ps.setInt(2, delta);
+                }, Integer::sum, 100, 100, 60000)) {
+            for (int i = 0; i < 90; i++) {
+                futures.add(buffer.submit(i % 3, 10));
+            }
+            Assertions.assertEquals(3, buffer.getPendingCount());
+
+            buffer.flush();
+            Assertions.assertEquals(90, buffer.getSubmittedCount());
+            Assertions.assertEquals(3, buffer.getWrittenCount());
+        }
+
+        futures.forEach(CompletableFuture::join);
+        Assertions.assertEquals(900L, (long) mockMySQLDatabaseClient.querySingle("SELECT SUM(coins) FROM Coins", rs -> rs.getLong(1)));
+        Assertions.assertEquals(300, (int) mockMySQLDatabaseClient.querySingle("SELECT coins FROM Coins WHERE id = ?", rs -> rs.getInt(1), 2));
+    }
+
+    @Test
+    public void flushesWhenFullAndFailsFuturesOnErrorTest() {
+        try (WriteBehindBuffer<Integer, Integer> buffer = new WriteBehindBuffer<>(mockMySQLDatabaseClient, "INSERT INTO Missing VALUES (?, ?)",
+                (ps, id, value) -> {
+                    ps.setInt(1, id);
+                    ps.setInt(2, value);
+                }, (previous, next) -> next, 3, 2, 60000)) { // Never flushes on its own, so only the full buffer triggers a write
+            CompletableFuture<Void> first = buffer.submit(1, 1);
+            CompletableFuture<Void> second = buffer.submit(2, 2);
+            Assertions.assertEquals(2, buffer.getPendingCount());
+            Assertions.assertFalse(first.isDone());
+
+            CompletableFuture<Void> third = buffer.submit(3, 3); // Waits for the scheduler to flush the first two
+            Assertions.assertTrue(first.isCompletedExceptionally());
+            Assertions.assertTrue(second.isCompletedExceptionally());
+            Assertions.assertThrows(CompletionException.class, first::join);
+            Assertions.assertEquals(1, buffer.getPendingCount());
+            Assertions.assertFalse(third.isDone());
+            Assertions.assertEquals(0, buffer.getWrittenCount());
+        }
+    }
+
+    @Test
+    public void submitsIntoFullBufferInsideTransactionTest() {
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Audit");
+        mockMySQLDatabaseClient.update("CREATE TABLE Audit (id INT PRIMARY KEY)");
+        try (WriteBehindBuffer<Integer, Integer> buffer = new WriteBehindBuffer<>(mockMySQLDatabaseClient, UPSERT_SQL,
+                (ps, id, delta) -> {
+                    ps.setInt(1, id);
+                    ps.setInt(2, delta);
+                }, Integer::sum, 3, 2, 60000)) {
+            CompletableFuture<Void> first = buffer.submit(1, 10);
+            CompletableFuture<Void> second = buffer.submit(2, 20);
+
+            CompletableFuture<Void> third = mockMySQLDatabaseClient.executeTransaction(() -> {
+                mockMySQLDatabaseClient.update("INSERT INTO Audit VALUES (?)", 3);
+                return buffer.submit(3, 30); // The buffer is full, but other callers' mutations must not be written on this connection
+            });
+            first.join();
+            second.join();
+            Assertions.assertFalse(third.isDone());
+            Assertions.assertEquals(1, buffer.getPendingCount());
+            Assertions.assertEquals(2, buffer.getWrittenCount());
+
+            buffer.flush();
+            third.join();
+        }
+
+        Assertions.assertEquals(60L, (long) mockMySQLDatabaseClient.querySingle("SELECT SUM(coins) FROM Coins", rs -> rs.getLong(1)));
+        Assertions.assertEquals(1L, (long) mockMySQLDatabaseClient.querySingle("SELECT COUNT(*) FROM Audit", rs -> rs.getLong(1)));
+    }
+}
@@ -0,0 +1,123 @@
+package pro.evanwright.saphira.client;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class DelimitedRowInputStreamTests {
+
+    @Test
+    public void encodesAndEscapesRowsTest() throws IOException {
+        List<Object[]> rows = Arrays.asList(
+                new Object[]{1, "plain", null},
+                new Object[]{2, "tab\there\nnew line \\ slash", true},
+                new Object[]{3, "émoji 😀", false});
+
+        String encoded = readAll(new DelimitedRowInputStream(rows.iterator(), new LoadDataFormat(), Integer.MAX_VALUE));
+
+        Assertions.assertEquals("1\tplain\t\\N\n" +
+                "2\ttab\\there\\nnew line \\\\ slash\t1\n" +
+                "3\témoji 😀\t0\n", encoded);
+    }
+
+    @Test
+    public void customFormatAndChunkingTest() throws IOException {
+        Iterator<Object[]> rows = Arrays.asList(new Object[]{"a,b", "c|d"}, new Object[]{"e", "f"}, new Object[]{"g", "h"}).iterator();
+        LoadDataFormat format = new LoadDataFormat(',', '|', '\\', 2);
+
+        DelimitedRowInputStream firstChunk = new DelimitedRowInputStream(rows, format, format.rowsPerStatement);
+        Assertions.assertEquals("a\\,b,c\\|d|e,f|", readAll(firstChunk));
+        Assertions.assertEquals(2, firstChunk.getRowCount());
+        Assertions.assertEquals("g,h|", readAll(new DelimitedRowInputStream(rows, format, format.rowsPerStatement)));
+        Assertions.assertEquals("FIELDS TERMINATED BY ',' ESCAPED BY '\\\\' LINES TERMINATED BY '|'", format.toClause());
+    }
+
+    @Test
+    public void loadedRowsReadBackUnchangedTest() throws IOException {
+        byte[] everyByte = new byte[256];
+        for (int i = 0; i < everyByte.length; i++) {
+            everyByte[i] = (byte) i;
+        }
+        List<Object[]> rows = Arrays.asList(
+                new Object[]{1, "tab\there\nnew line \\ émoji 😀", everyByte},
+                new Object[]{2, null, new byte[0]},
+                new Object[]{3, "\\N", null});
+        LoadDataFormat format = new LoadDataFormat(',', '|', '\\', 10);
+
+        MockMySQLDatabaseClient mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        try {
+            mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Blobs");
+            mockMySQLDatabaseClient.update("CREATE TABLE Blobs (id INT PRIMARY KEY, name VARCHAR(100), data VARBINARY(1000))");
+            List<byte[][]> loaded = load(new DelimitedRowInputStream(rows.iterator(), format, format.rowsPerStatement), format);
+            mockMySQLDatabaseClient.executeBatch("INSERT INTO Blobs VALUES (?, ?, ?)", ps -> {
+                for (byte[][] fields : loaded) {
+                    ps.setInt(1, Integer.parseInt(new String(fields[0], StandardCharsets.UTF_8)));
+                    ps.setString(2, fields[1] == null ? null : new String(fields[1], StandardCharsets.UTF_8));
+                    ps.setBytes(3, fields[2]);
+                    ps.addBatch();
+                }
+            });
+
+            List<Object[]> readBack = mockMySQLDatabaseClient.queryList("SELECT id, name, data FROM Blobs ORDER BY id",
+                    rs -> new Object[]{rs.getInt(1), rs.getString(2), rs.getBytes(3)});
+            Assertions.assertEquals(rows.size(), readBack.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Assertions.assertArrayEquals(rows.get(i), readBack.get(i)); // Compares the byte arrays by content
+            }
+        } finally {
+            mockMySQLDatabaseClient.shutdown();
+        }
+    }
+
+    /**
+     * Splits and unescapes the stream the way the server's {@code LOAD DATA ... CHARACTER SET binary} does.
+     */
+    private static List<byte[][]> load(InputStream inputStream, LoadDataFormat format) throws IOException {
+        List<byte[][]> rows = new ArrayList<>();
+        List<byte[]> fields = new ArrayList<>();
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        boolean isNull = false;
+        int read;
+        while ((read = inputStream.read()) != -1) {
+            if (read == format.escapeCharacter) {
+                int escaped = inputStream.read();
+                if (escaped == 'N' && field.size() == 0) {
+                    isNull = true;
+                } else {
+                    field.write(escaped == '0' ? 0 : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped == 't' ? '\t' : escaped);
+                }
+            } else if (read == format.fieldTerminator || read == format.lineTerminator) {
+                fields.add(isNull ? null : field.toByteArray());
+                field.reset();
+                isNull = false;
+                if (read == format.lineTerminator) {
+                    rows.add(fields.toArray(new byte[0][]));
+                    fields.clear();
+                }
+            } else {
+                field.write(read);
+            }
+        }
+        return rows;
+    }
+
+    private static String readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3]; // Small reads exercise rows spanning several calls
+        int read;
+        while ((read = inputStream.read(buffer, 0, buffer.length)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
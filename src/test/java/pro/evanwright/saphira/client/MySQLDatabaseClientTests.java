@@ -9,7 +9,13 @@ import pro.evanwright.saphira.exception.UncheckedSQLException;
 import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
 import pro.evanwright.saphira.query.QueryResult;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MySQLDatabaseClientTests {
     private MockMySQLDatabaseClient mockMySQLDatabaseClient;
@@ -122,4 +128,107 @@ public class MySQLDatabaseClientTests {
         Optional<Long> rowCount = mockMySQLDatabaseClient.query("SELECT COUNT(id) FROM Users").getFirstColValue();
         rowCount.ifPresent(count -> Assertions.assertEquals(1, count));
     }
+
+    @Test
+    public void queryStreamingTest() {
+        mockMySQLDatabaseClient.update("INSERT INTO Users (name, dob) VALUES (?, ?)", "Jane Doe", "1991-02-02");
+
+        List<String> names = new ArrayList<>();
+        long rows = mockMySQLDatabaseClient.queryStreaming("SELECT name FROM Users ORDER BY id ASC", row -> names.add(row.getString("name")));
+
+        Assertions.assertEquals(2, rows);
+        Assertions.assertEquals(Arrays.asList("John Doe", "Jane Doe"), names);
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+    }
+
+    @Test
+    public void queryStreamingReleasesConnectionOnFailureTest() {
+        Assertions.assertThrows(IllegalStateException.class, () ->
+                mockMySQLDatabaseClient.queryStreaming("SELECT * FROM Users", row -> {
+                    throw new IllegalStateException("Consumer failed");
+                }));
+
+        Assertions.assertEquals(0, mockMySQLDatabaseClient.getActiveConnections());
+    }
+
+    @Test
+    public void queryStreamingAsyncTest() {
+        long rows = mockMySQLDatabaseClient.queryStreamingAsync("SELECT * FROM Users", row -> {}).join();
+
+        Assertions.assertEquals(1, rows);
+    }
+
+    @Test
+    public void queryListTest() {
+        mockMySQLDatabaseClient.update("INSERT INTO Users (name, dob) VALUES (?, ?)", "Jane Doe", "1991-02-02");
+
+        List<String> names = mockMySQLDatabaseClient.queryList("SELECT name FROM Users WHERE dob > ? ORDER BY id ASC", rs -> rs.getString("name"), "1900-01-01");
+
+        Assertions.assertEquals(Arrays.asList("John Doe", "Jane Doe"), names);
+        Assertions.assertEquals(Arrays.asList("Jane Doe"), mockMySQLDatabaseClient.queryList("SELECT name FROM Users WHERE dob > ?",
+                rs -> rs.getString(1), ps -> ps.setString(1, "1991-01-01")));
+    }
+
+    @Test
+    public void queryFirstTest() {
+        Optional<String> name = mockMySQLDatabaseClient.queryFirst("SELECT name FROM Users WHERE id = ?", rs -> rs.getString(1), 1);
+        Optional<String> missing = mockMySQLDatabaseClient.queryFirst("SELECT name FROM Users WHERE id = ?", rs -> rs.getString(1), 42);
+
+        Assertions.assertEquals(Optional.of("John Doe"), name);
+        Assertions.assertFalse(missing.isPresent());
+    }
+
+    @Test
+    public void querySingleTest() {
+        long count = mockMySQLDatabaseClient.querySingleAsync("SELECT COUNT(*) FROM Users", rs -> rs.getLong(1)).join();
+        Assertions.assertEquals(1, count);
+
+        Assertions.assertThrows(UncheckedSQLException.class, () ->
+                mockMySQLDatabaseClient.querySingle("SELECT name FROM Users WHERE id = ?", rs -> rs.getString(1), 42));
+    }
+
+    @Test
+    public void columnLabelLookupTest() {
+        final String selectSql = "SELECT id, name AS userName, dob FROM Users";
+
+        for (int i = 0; i < 2; i++) { // The second execution reuses the cached label mapping
+            QueryResult result = mockMySQLDatabaseClient.query(selectSql);
+            Assertions.assertTrue(result.next());
+            Assertions.assertEquals("John Doe", result.getString("USERNAME"));
+            Assertions.assertEquals(1, result.getInt("id"));
+            Assertions.assertEquals("John Doe", result.getString("name")); // Resolved by column name, like CachedRowSet
+            Assertions.assertThrows(UncheckedSQLException.class, () -> result.getString("missing"));
+        }
+    }
+
+    @Test
+    public void readConnectionRoutingTest() {
+        AtomicInteger readConnections = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        MockMySQLDatabaseClient routingClient = new MockMySQLDatabaseClient() {
+            @Override
+            protected Connection getReadConnection(String sqlStatement) throws SQLException {
+                readConnections.incrementAndGet();
+                return super.getReadConnection(sqlStatement);
+            }
+
+            @Override
+            protected void afterWrite() {
+                writes.incrementAndGet();
+            }
+        };
+
+        try {
+            routingClient.query("SELECT * FROM Users");
+            routingClient.queryList("SELECT name FROM Users", resultSet -> resultSet.getString(1));
+            Assertions.assertEquals(2, readConnections.get());
+
+            routingClient.executeTransaction(() -> routingClient.query("SELECT * FROM Users"));
+            routingClient.update("UPDATE Users SET name = ? WHERE id = 1", "Jane Doe");
+            Assertions.assertEquals(2, readConnections.get()); // Transactions and updates stay on the primary
+            Assertions.assertEquals(2, writes.get());
+        } finally {
+            routingClient.shutdown();
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package pro.evanwright.saphira.executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BoundedDatabaseExecutorTests {
+
+    @Test
+    public void failFastRejectsWhenFullTest() throws InterruptedException {
+        BoundedDatabaseExecutor executor = new BoundedDatabaseExecutor("Test", 1, 1, RejectionPolicy.FAIL_FAST, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        started.await();
+        executor.execute(() -> {}); // Queued
+
+        Assertions.assertEquals(1, executor.getActiveCount());
+        Assertions.assertEquals(1, executor.getQueueDepth());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        Assertions.assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        Assertions.assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, executor.getCompletedTaskCount());
+    }
+
+    @Test
+    public void callerRunsWhenFullTest() throws InterruptedException {
+        BoundedDatabaseExecutor executor = new BoundedDatabaseExecutor("Test", 1, 0, RejectionPolicy.CALLER_RUNS, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Thread> runner = new AtomicReference<>();
+
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        started.await();
+        executor.execute(() -> runner.set(Thread.currentThread()));
+
+        Assertions.assertSame(Thread.currentThread(), runner.get());
+        release.countDown();
+        Assertions.assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void callerRunsOutsideCallersTransactionTest() {
+        MockMySQLDatabaseClient client = new MockMySQLDatabaseClient("caller_runs", new ExecutorSettings(0.1, 0, RejectionPolicy.CALLER_RUNS));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            client.update("DROP TABLE IF EXISTS Jobs");
+            client.update("CREATE TABLE Jobs (id INT PRIMARY KEY)");
+            client.getExecutor().execute(() -> await(release)); // Occupies the only worker
+
+            AtomicReference<Thread> runner = new AtomicReference<>();
+            Assertions.assertThrows(IllegalStateException.class, () -> client.executeTransaction(() -> {
+                client.update("INSERT INTO Jobs VALUES (?)", 1);
+                Assertions.assertEquals(1, client.executeTransactionAsync(() -> {
+                    runner.set(Thread.currentThread());
+                    return client.update("INSERT INTO Jobs VALUES (?)", 2);
+                }).join());
+                throw new IllegalStateException(); // Rolls back the caller's insert only
+            }));
+
+            Assertions.assertSame(Thread.currentThread(), runner.get());
+            Assertions.assertEquals(2, (int) client.querySingle("SELECT id FROM Jobs", rs -> rs.getInt(1)));
+        } finally {
+            release.countDown();
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void clientShutdownDrainsExecutorTest() {
+        MockMySQLDatabaseClient client = new MockMySQLDatabaseClient(new ExecutorSettings(0.5, 16, RejectionPolicy.FAIL_FAST));
+        Assertions.assertEquals(5, ((BoundedDatabaseExecutor) client.getExecutor()).getMaximumPoolSize());
+
+        CompletableFuture<Integer> future = client.queryFirstAsync("SELECT 1", rs -> rs.getInt(1)).thenApply(value -> value.orElse(0));
+        client.shutdown();
+
+        Assertions.assertEquals(1, future.join());
+        CompletableFuture<Integer> rejected = client.updateAsync("SELECT 1");
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, rejected::join);
+        Assertions.assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void virtualThreadExecutorTest() {
+        MockMySQLDatabaseClient client = new MockMySQLDatabaseClient(ExecutorSettings.virtualThreads(1.0));
+        try {
+            if (!VirtualThreadDatabaseExecutor.isSupported()) {
+                Assertions.assertThrows(UnsupportedOperationException.class, client::getExecutor);
+                return;
+            }
+
+            Assertions.assertTrue(client.getExecutor() instanceof VirtualThreadDatabaseExecutor);
+            Assertions.assertEquals(1, client.queryFirstAsync("SELECT 1", rs -> rs.getInt(1)).join().orElse(0));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package pro.evanwright.saphira.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.SQLStatements;
+
+import java.util.Map;
+
+public class MetricsCollectorTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+    private MetricsCollector metricsCollector;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Metrics");
+        mockMySQLDatabaseClient.update("CREATE TABLE Metrics (id INT PRIMARY KEY, name VARCHAR(255))");
+
+        metricsCollector = new MetricsCollector();
+        mockMySQLDatabaseClient.setDatabaseListener(metricsCollector);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void aggregatesByFingerprintTest() {
+        mockMySQLDatabaseClient.update("INSERT INTO Metrics VALUES (1, 'a')");
+        mockMySQLDatabaseClient.update("INSERT INTO Metrics VALUES (2, 'b')");
+        mockMySQLDatabaseClient.executeTransaction(() -> mockMySQLDatabaseClient.query("SELECT * FROM Metrics WHERE id IN (?, ?)", 1, 2));
+        Assertions.assertThrows(UncheckedSQLException.class, () -> mockMySQLDatabaseClient.update("INSERT INTO Metrics VALUES (1, 'c')"));
+
+        Map<String, StatementSnapshot> snapshot = metricsCollector.snapshot();
+        StatementSnapshot insert = snapshot.get("insert into metrics values (?+)");
+        Assertions.assertEquals(3, insert.operations);
+        Assertions.assertEquals(1, insert.errors);
+        Assertions.assertEquals(2, insert.rows);
+        Assertions.assertEquals(3, insert.total.count);
+
+        Assertions.assertEquals(2, snapshot.get("select * from metrics where id in (?+)").rows);
+        Assertions.assertEquals(1, snapshot.get(MetricsCollector.TRANSACTION_FINGERPRINT).operations);
+    }
+
+    @Test
+    public void histogramPercentilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(1000, snapshot.count);
+        Assertions.assertEquals(1_000_000, snapshot.maxNanos);
+        Assertions.assertEquals(500_000, snapshot.p50Nanos, 500_000 * 0.125);
+        Assertions.assertEquals(990_000, snapshot.p99Nanos, 990_000 * 0.125);
+        Assertions.assertTrue(snapshot.p999Nanos <= snapshot.maxNanos);
+    }
+
+    @Test
+    public void fingerprintTest() {
+        Assertions.assertEquals("select * from t where a = ? and b in (?+) and c = ?",
+                SQLStatements.fingerprint("SELECT *  FROM t\n WHERE a = 'x''y' AND b IN (1, 2, 3) AND c = -4.5;"));
+        Assertions.assertEquals("insert into t2 (a, b) values (?+)", SQLStatements.fingerprint("INSERT INTO t2 (a, b) VALUES (?, ?), (?, ?)"));
+    }
+}
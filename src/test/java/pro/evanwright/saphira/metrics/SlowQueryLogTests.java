@@ -0,0 +1,64 @@
+package pro.evanwright.saphira.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlowQueryLogTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Slow");
+        mockMySQLDatabaseClient.update("CREATE TABLE Slow (id INT PRIMARY KEY, name VARCHAR(255))");
+        mockMySQLDatabaseClient.update("INSERT INTO Slow VALUES (1, 'secret')");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void recordsRedactedEntriesInRingBufferTest() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 2);
+        mockMySQLDatabaseClient.setDatabaseListener(slowQueryLog);
+
+        mockMySQLDatabaseClient.update("UPDATE Slow SET name = ? WHERE id = ?", "hidden", 1);
+        mockMySQLDatabaseClient.query("SELECT name FROM Slow WHERE name = ?", "secret");
+        mockMySQLDatabaseClient.queryList("SELECT id FROM Slow", resultSet -> resultSet.getInt(1));
+
+        List<SlowQueryEntry> entries = slowQueryLog.getEntries();
+        Assertions.assertEquals(3, slowQueryLog.getRecordedCount());
+        Assertions.assertEquals(2, entries.size());
+        Assertions.assertEquals("SELECT id FROM Slow", entries.get(0).sqlStatement);
+        Assertions.assertEquals("[String(6)]", entries.get(1).parameterSummary);
+        Assertions.assertEquals(Thread.currentThread().getName(), entries.get(1).threadName);
+        Assertions.assertFalse(entries.toString().contains("secret"));
+    }
+
+    @Test
+    public void explainsSampledSelectsTest() throws InterruptedException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 10);
+        slowQueryLog.enableExplain(mockMySQLDatabaseClient, 1.0);
+        mockMySQLDatabaseClient.setDatabaseListener(slowQueryLog);
+
+        mockMySQLDatabaseClient.query("SELECT name FROM Slow WHERE id = ?", 1);
+        SlowQueryEntry entry = slowQueryLog.getEntries().stream()
+                .filter(candidate -> "SELECT name FROM Slow WHERE id = ?".equals(candidate.sqlStatement))
+                .findFirst().orElseThrow(AssertionError::new);
+        for (int i = 0; i < 100 && entry.getPlan() == null; i++) {
+            Thread.sleep(20);
+        }
+
+        Assertions.assertNotNull(entry.getPlan());
+        Assertions.assertFalse(entry.getPlan().startsWith("EXPLAIN failed"), entry.getPlan());
+    }
+}
@@ -3,6 +3,7 @@ package pro.evanwright.saphira.mock;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.executor.ExecutorSettings;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -14,8 +15,17 @@ public class MockMySQLDatabaseClient extends DatabaseClient {
     private final HikariDataSource dataSource;
 
     public MockMySQLDatabaseClient() {
+        this(new ExecutorSettings());
+    }
+
+    public MockMySQLDatabaseClient(ExecutorSettings executorSettings) {
+        this("testdb", executorSettings);
+    }
+
+    public MockMySQLDatabaseClient(String database, ExecutorSettings executorSettings) {
+        super(executorSettings);
         HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl("jdbc:h2:mem:testdb;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
         hikariConfig.setDriverClassName("org.h2.Driver");
 
         this.dataSource = new HikariDataSource(hikariConfig);
@@ -23,11 +33,21 @@ public class MockMySQLDatabaseClient extends DatabaseClient {
 
     @Override
     public void shutdown() {
+        this.shutdownExecutor();
         if (this.dataSource != null) {
             this.dataSource.close();
         }
     }
 
+    @Override
+    public int getMaximumPoolSize() {
+        return this.dataSource.getMaximumPoolSize();
+    }
+
+    public int getActiveConnections() {
+        return this.dataSource.getHikariPoolMXBean().getActiveConnections();
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
         return this.dataSource.getConnection();
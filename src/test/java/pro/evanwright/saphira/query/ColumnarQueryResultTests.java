@@ -0,0 +1,102 @@
+package pro.evanwright.saphira.query;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.exception.UncheckedSQLException;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.Optional;
+
+public class ColumnarQueryResultTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.setColumnarResults(true);
+
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Stats");
+        mockMySQLDatabaseClient.update("CREATE TABLE Stats (" +
+                "id INT PRIMARY KEY, " +
+                "name VARCHAR(255), " +
+                "coins BIGINT, " +
+                "ratio DOUBLE, " +
+                "joined DATE)");
+        mockMySQLDatabaseClient.update("INSERT INTO Stats VALUES (1, 'Alpha', 100, 0.5, '2020-01-01')");
+        mockMySQLDatabaseClient.update("INSERT INTO Stats VALUES (2, 'Beta', NULL, NULL, NULL)");
+        mockMySQLDatabaseClient.update("INSERT INTO Stats VALUES (3, 'Alpha', 300, 1.5, '2022-03-03')");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void readsTypedColumnsTest() {
+        QueryResult result = mockMySQLDatabaseClient.query("SELECT * FROM Stats ORDER BY id");
+        Assertions.assertTrue(result instanceof ColumnarQueryResult);
+
+        Assertions.assertTrue(result.next());
+        Assertions.assertEquals(1, result.getInt("ID"));
+        Assertions.assertEquals("Alpha", result.getString("name"));
+        Assertions.assertEquals(100L, result.getObject("coins"));
+        Assertions.assertEquals("100", result.getString("coins"));
+        Assertions.assertEquals(0.5, result.getDouble("ratio"));
+        Assertions.assertEquals("2020-01-01", result.getDate("joined").toString());
+
+        Assertions.assertTrue(result.next());
+        Assertions.assertEquals(0, result.getLong("coins"));
+        Assertions.assertTrue(result.wasNull());
+        Assertions.assertNull(result.getObject("ratio"));
+        Assertions.assertNull(result.getDate("joined"));
+
+        Assertions.assertTrue(result.next());
+        String name = result.getString("name");
+        Assertions.assertTrue(result.first());
+        Assertions.assertSame(name, result.getString("name")); // Repeated strings share one dictionary entry
+        Assertions.assertFalse(result.relative(5));
+        Assertions.assertTrue(result.isAfterLast());
+    }
+
+    @Test
+    public void cursorMovementTest() {
+        QueryResult result = mockMySQLDatabaseClient.query("SELECT id FROM Stats ORDER BY id");
+
+        Assertions.assertTrue(result.isBeforeFirst());
+        Assertions.assertTrue(result.last());
+        Assertions.assertEquals(3, result.getRow());
+        Assertions.assertTrue(result.isLast());
+        Assertions.assertTrue(result.previous());
+        Assertions.assertEquals(2, result.getInt(1));
+        Assertions.assertTrue(result.absolute(-3));
+        Assertions.assertTrue(result.isFirst());
+        result.afterLast();
+        Assertions.assertFalse(result.next());
+        Assertions.assertEquals(0, result.getRow());
+    }
+
+    @Test
+    public void firstColValueTest() {
+        Optional<Long> count = mockMySQLDatabaseClient.query("SELECT COUNT(*) FROM Stats").getFirstColValue();
+        Optional<Object> empty = mockMySQLDatabaseClient.query("SELECT id FROM Stats WHERE id = 42").getFirstColValue();
+
+        Assertions.assertEquals(Optional.of(3L), count);
+        Assertions.assertFalse(empty.isPresent());
+    }
+
+    @Test
+    public void conversionsMatchJdbcTest() {
+        QueryResult result = mockMySQLDatabaseClient.query("SELECT CAST(3000000000 AS BIGINT) big, X'C3A9' bin, CAST(0.0000001 AS DECIMAL(10, 7)) dec");
+        Assertions.assertTrue(result.next());
+
+        Assertions.assertEquals(3000000000L, result.getLong("big"));
+        Assertions.assertThrows(UncheckedSQLException.class, () -> result.getInt("big")); // Must not wrap around
+        Assertions.assertThrows(UncheckedSQLException.class, () -> result.getShort("big"));
+        Assertions.assertEquals("\u00e9", result.getString("bin"));
+        Assertions.assertEquals("0.0000001", result.getString("dec"));
+    }
+}
@@ -0,0 +1,72 @@
+package pro.evanwright.saphira.query;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+
+import java.util.concurrent.TimeUnit;
+
+public class QueryCacheTests {
+    private MockMySQLDatabaseClient mockMySQLDatabaseClient;
+    private QueryCache queryCache;
+
+    @BeforeEach
+    public void setUp() {
+        mockMySQLDatabaseClient = new MockMySQLDatabaseClient();
+        mockMySQLDatabaseClient.update("DROP TABLE IF EXISTS Profiles");
+        mockMySQLDatabaseClient.update("CREATE TABLE Profiles (id INT PRIMARY KEY, name VARCHAR(255))");
+        mockMySQLDatabaseClient.update("INSERT INTO Profiles VALUES (1, 'Alpha'), (2, 'Beta')");
+
+        queryCache = new QueryCache(2, 1 << 20, 0, TimeUnit.MILLISECONDS);
+        mockMySQLDatabaseClient.setQueryCache(queryCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockMySQLDatabaseClient.shutdown();
+    }
+
+    @Test
+    public void cachedResultsHaveIndependentCursorsTest() {
+        QueryResult first = mockMySQLDatabaseClient.query("SELECT name FROM Profiles ORDER BY id");
+        QueryResult second = mockMySQLDatabaseClient.query("SELECT name FROM Profiles ORDER BY id");
+        Assertions.assertEquals(1, queryCache.getMissCount());
+        Assertions.assertEquals(1, queryCache.getHitCount());
+
+        Assertions.assertTrue(first.next());
+        Assertions.assertTrue(first.next());
+        Assertions.assertEquals("Beta", first.getString("name"));
+        Assertions.assertTrue(second.next());
+        Assertions.assertEquals("Alpha", second.getString("name"));
+
+        mockMySQLDatabaseClient.query("SELECT name FROM Profiles WHERE id = ?", 1);
+        mockMySQLDatabaseClient.query("SELECT name FROM Profiles WHERE id = ?", 2); // Evicts the least recently used entry
+        Assertions.assertEquals(1, queryCache.getEvictionCount());
+        Assertions.assertEquals(2, queryCache.size());
+    }
+
+    @Test
+    public void writesInvalidateReadTablesTest() {
+        Assertions.assertEquals("Alpha", mockMySQLDatabaseClient.query("SELECT name FROM Profiles WHERE id = ?", 1).getFirstColValue().orElse(null));
+        mockMySQLDatabaseClient.update("UPDATE Profiles SET name = ? WHERE id = ?", "Gamma", 1);
+        Assertions.assertEquals("Gamma", mockMySQLDatabaseClient.query("SELECT name FROM Profiles WHERE id = ?", 1).getFirstColValue().orElse(null));
+
+        mockMySQLDatabaseClient.executeTransaction(() -> mockMySQLDatabaseClient.update("DELETE FROM `profiles` WHERE id = 1"));
+        Assertions.assertFalse(mockMySQLDatabaseClient.query("SELECT name FROM Profiles WHERE id = ?", 1).next());
+        Assertions.assertEquals(0, queryCache.getHitCount());
+        Assertions.assertEquals(2, queryCache.getInvalidationCount());
+    }
+
+    @Test
+    public void classifiesStatementsTest() {
+        Assertions.assertTrue(SQLStatements.isReadOnly("  select * from a"));
+        Assertions.assertFalse(SQLStatements.isReadOnly("SELECT * FROM a FOR UPDATE"));
+        Assertions.assertFalse(SQLStatements.isReadOnly("INSERT INTO a SELECT * FROM b"));
+        Assertions.assertEquals(2, SQLStatements.readTables("SELECT * FROM db.`A` a JOIN b ON a.id = b.id WHERE x = 'FROM c'").size());
+        Assertions.assertTrue(SQLStatements.writtenTables("UPDATE a JOIN b ON a.id = b.id SET a.x = 1").contains("b"));
+        Assertions.assertTrue(SQLStatements.writtenTables("INSERT IGNORE INTO Stats (id) VALUES (?)").contains("stats"));
+    }
+}
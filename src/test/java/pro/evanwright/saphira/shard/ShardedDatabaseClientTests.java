@@ -0,0 +1,94 @@
+package pro.evanwright.saphira.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pro.evanwright.saphira.DatabaseClient;
+import pro.evanwright.saphira.executor.ExecutorSettings;
+import pro.evanwright.saphira.metrics.OperationEvent;
+import pro.evanwright.saphira.mock.MockMySQLDatabaseClient;
+import pro.evanwright.saphira.query.ColumnarQueryResult;
+import pro.evanwright.saphira.query.QueryCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class ShardedDatabaseClientTests {
+    private ShardedDatabaseClient<Integer> shardedClient;
+
+    @BeforeEach
+    public void setUp() {
+        shardedClient = new ShardedDatabaseClient<>(Arrays.asList(
+                new MockMySQLDatabaseClient("shard0", new ExecutorSettings()),
+                new MockMySQLDatabaseClient("shard1", new ExecutorSettings())), new RangeShardStrategy<>(100));
+
+        for (int shard = 0; shard < 2; shard++) {
+            shardedClient.getShards().get(shard).update("DROP TABLE IF EXISTS Players");
+            shardedClient.getShards().get(shard).update("CREATE TABLE Players (id INT PRIMARY KEY, name VARCHAR(255))");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shardedClient.shutdown();
+    }
+
+    @Test
+    public void routesByKeyAndGathersTest() {
+        for (int id : new int[]{5, 150, 99, 300}) {
+            shardedClient.update(id, "INSERT INTO Players VALUES (?, ?)", id, "Player " + id);
+        }
+        Assertions.assertEquals(Arrays.asList(5, 99), shardedClient.getShards().get(0).queryList("SELECT id FROM Players ORDER BY id", resultSet -> resultSet.getInt(1)));
+        Assertions.assertEquals("Player 150", shardedClient.query(150, "SELECT name FROM Players WHERE id = ?", 150).getFirstColValue().orElse(null));
+        Assertions.assertFalse(shardedClient.query(5, "SELECT name FROM Players WHERE id = ?", 150).next());
+
+        ColumnarQueryResult all = shardedClient.queryAll("SELECT id, name FROM Players ORDER BY id");
+        List<Integer> ids = new ArrayList<>();
+        while (all.next()) {
+            ids.add(all.getInt("id"));
+        }
+        Assertions.assertEquals(Arrays.asList(5, 99, 150, 300), ids);
+    }
+
+    @Test
+    public void strategiesTest() {
+        RangeShardStrategy<Integer> range = new RangeShardStrategy<>(10, 20);
+        Assertions.assertEquals(0, range.shardFor(9, 3));
+        Assertions.assertEquals(1, range.shardFor(10, 3));
+        Assertions.assertEquals(2, range.shardFor(1000, 3));
+        Assertions.assertThrows(IllegalStateException.class, () -> range.shardFor(1, 2));
+
+        HashShardStrategy hash = new HashShardStrategy();
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            counts[hash.shardFor("player-" + i, 4)]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > 800, "Keys should spread evenly: " + Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    public void asyncKeyedOperationsMatchSyncTest() {
+        DatabaseClient shard = shardedClient.getShards().get(1);
+        QueryCache queryCache = new QueryCache(8, 1 << 20, 0, TimeUnit.MILLISECONDS);
+        shard.setQueryCache(queryCache);
+        List<OperationEvent> events = new CopyOnWriteArrayList<>();
+        shard.setDatabaseListener(events::add);
+
+        Assertions.assertEquals(1, (int) shardedClient.updateAsync(150, "INSERT INTO Players VALUES (?, ?)", 150, "Player 150").join());
+        Assertions.assertArrayEquals(new Object[]{150, "Player 150"}, events.get(0).parameters);
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals("Player 150", shardedClient.queryAsync(150, "SELECT name FROM Players WHERE id = ?", 150).join().getFirstColValue().orElse(null));
+        }
+        Assertions.assertEquals(1, queryCache.getMissCount());
+        Assertions.assertEquals(1, queryCache.getHitCount());
+        Assertions.assertArrayEquals(new Object[]{150}, events.get(1).parameters);
+    }
+}